@@ -0,0 +1,72 @@
+package com.redhat.labs.lodestar.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+
+import com.redhat.labs.lodestar.config.JsonConfig;
+import com.redhat.labs.lodestar.model.Engagement;
+
+import lombok.Getter;
+
+/**
+ * A full {@link Engagement} with the strong entity tag of its JSON
+ * representation. The tag is calculated once, when the engagement is loaded,
+ * so that conditional requests can be answered without serializing the
+ * engagement again.
+ */
+@Getter
+public class CachedEngagement {
+
+    private static final Jsonb SINGLE_LINE_JSONB = JsonbBuilder.create(JsonConfig.singleLineConfig());
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final Engagement engagement;
+    private final String entityTag;
+    private final long loadedAt;
+
+    CachedEngagement(Engagement engagement, long loadedAt) {
+        this.engagement = engagement;
+        this.entityTag = createEntityTag(engagement);
+        this.loadedAt = loadedAt;
+    }
+
+    /**
+     * Creates a {@link CachedEngagement} for the given {@link Engagement}.
+     *
+     * @param engagement
+     * @return
+     */
+    public static CachedEngagement of(Engagement engagement) {
+        return new CachedEngagement(engagement, System.currentTimeMillis());
+    }
+
+    /**
+     * Returns an entity tag derived from the last update time and a digest of
+     * the JSON representation. The digest is required because status, commit,
+     * and project id updates do not change the last update time.
+     *
+     * @param engagement
+     * @return
+     */
+    static String createEntityTag(Engagement engagement) {
+
+        try {
+
+            byte[] json = SINGLE_LINE_JSONB.toJson(engagement).getBytes(StandardCharsets.UTF_8);
+            byte[] digest = MessageDigest.getInstance(DIGEST_ALGORITHM).digest(json);
+
+            return new StringBuilder(String.valueOf(engagement.getLastUpdate())).append("-")
+                    .append(Base64.getUrlEncoder().withoutPadding().encodeToString(digest)).toString();
+
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is not available", e);
+        }
+
+    }
+
+}
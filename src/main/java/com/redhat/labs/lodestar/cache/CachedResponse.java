@@ -0,0 +1,112 @@
+package com.redhat.labs.lodestar.cache;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
+
+import lombok.Getter;
+
+/**
+ * A response from another LodeStar service. The body is read once, when the
+ * response is received, so it can be returned to any number of callers. The
+ * headers are kept, such as the paging and link headers of paginated responses,
+ * except for those that describe the original transfer.
+ */
+@Getter
+public class CachedResponse {
+
+    // set again for every response built from the cached response
+    private static final Set<String> TRANSFER_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        TRANSFER_HEADERS.addAll(List.of(HttpHeaders.CONTENT_LENGTH, HttpHeaders.CONTENT_TYPE,
+                HttpHeaders.CONTENT_ENCODING, HttpHeaders.DATE, "Transfer-Encoding", "Connection", "Age"));
+    }
+
+    private final int status;
+    private final String body;
+    private final String mediaType;
+    private final Map<String, List<String>> headers;
+    private final long loadedAt;
+
+    CachedResponse(int status, String body, String mediaType, Map<String, List<String>> headers, long loadedAt) {
+        this.status = status;
+        this.body = body;
+        this.mediaType = mediaType;
+        this.headers = headers;
+        this.loadedAt = loadedAt;
+    }
+
+    /**
+     * Creates a {@link CachedResponse} from the {@link Response}, reading and
+     * closing the entity.
+     *
+     * @param response
+     * @param loadedAt
+     * @return
+     */
+    public static CachedResponse of(Response response, long loadedAt) {
+
+        String body = null;
+        if (response.getEntity() instanceof String) {
+            body = (String) response.getEntity();
+        } else if (response.hasEntity()) {
+            body = response.readEntity(String.class);
+        }
+
+        String mediaType = null == response.getMediaType() ? MediaType.APPLICATION_JSON
+                : response.getMediaType().toString();
+
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        response.getStringHeaders().forEach((name, values) -> {
+            if (!TRANSFER_HEADERS.contains(name)) {
+                headers.put(name, List.copyOf(values));
+            }
+        });
+
+        return new CachedResponse(response.getStatus(), body, mediaType, headers, loadedAt);
+
+    }
+
+    /**
+     * Returns a new {@link Response} containing the cached status, headers, and
+     * body.
+     *
+     * @return
+     */
+    public Response toResponse() {
+        return toResponseBuilder().build();
+    }
+
+    /**
+     * Returns a new {@link ResponseBuilder} containing the cached status,
+     * headers, and body.
+     *
+     * @return
+     */
+    public ResponseBuilder toResponseBuilder() {
+
+        ResponseBuilder builder = Response.status(status).entity(body).type(mediaType);
+        headers.forEach((name, values) -> values.forEach(value -> builder.header(name, value)));
+
+        return builder;
+
+    }
+
+    /**
+     * Returns true if the response was successful and can be cached.
+     *
+     * @return
+     */
+    public boolean isSuccessful() {
+        return status >= 200 && status < 300;
+    }
+
+}
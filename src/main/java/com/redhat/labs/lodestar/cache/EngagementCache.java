@@ -0,0 +1,167 @@
+package com.redhat.labs.lodestar.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.annotation.Gauge;
+
+import com.redhat.labs.lodestar.model.Engagement;
+
+/**
+ * Size bounded, read through cache of full {@link Engagement}s keyed by UUID,
+ * with a secondary index from customer and project names to UUID. Entries are
+ * removed when the {@link EngagementChangeTracker} reports a write by this
+ * instance, and expire after the configured time to live to pick up writes
+ * made by other instances.
+ */
+@ApplicationScoped
+public class EngagementCache implements EngagementChangeListener {
+
+    private static final String NAME_SEPARATOR = ":";
+
+    @ConfigProperty(name = "engagement.cache.size", defaultValue = "500")
+    int size;
+
+    @ConfigProperty(name = "engagement.cache.ttl", defaultValue = "60s")
+    Duration ttl;
+
+    @Inject
+    EngagementChangeTracker changeTracker;
+
+    private LruCache<String, CachedEngagement> engagements;
+    private LruCache<String, String> uuidsByName;
+
+    @PostConstruct
+    void init() {
+        engagements = new LruCache<>(size);
+        uuidsByName = new LruCache<>(size);
+    }
+
+    @Gauge(name = "engagement-cache-hits", unit = MetricUnits.NONE, description = "Engagement cache hits")
+    public long getHits() {
+        return engagements.getHits();
+    }
+
+    @Gauge(name = "engagement-cache-misses", unit = MetricUnits.NONE, description = "Engagement cache misses")
+    public long getMisses() {
+        return engagements.getMisses();
+    }
+
+    /**
+     * Returns an {@link Optional} containing the {@link CachedEngagement} for the
+     * UUID. If not cached or expired, the loader is used and the result cached.
+     * An empty {@link Optional} is returned if the loader does not find the
+     * {@link Engagement}.
+     *
+     * @param uuid
+     * @param loader
+     * @return
+     */
+    public Optional<CachedEngagement> getByUuid(String uuid, Supplier<Optional<Engagement>> loader) {
+
+        Optional<CachedEngagement> cached = engagements.get(uuid).filter(this::isCurrent);
+        if (cached.isPresent()) {
+            return cached;
+        }
+
+        return load(loader);
+
+    }
+
+    /**
+     * Returns an {@link Optional} containing the {@link CachedEngagement} for the
+     * customer and project names. If not cached or expired, the loader is used
+     * and the result cached. An empty {@link Optional} is returned if the loader
+     * does not find the {@link Engagement}.
+     *
+     * @param customerName
+     * @param projectName
+     * @param loader
+     * @return
+     */
+    public Optional<CachedEngagement> getByCustomerAndProjectName(String customerName, String projectName,
+            Supplier<Optional<Engagement>> loader) {
+
+        Optional<CachedEngagement> cached = uuidsByName.get(nameKey(customerName, projectName))
+                .flatMap(engagements::get).filter(this::isCurrent)
+                .filter(c -> customerName.equals(c.getEngagement().getCustomerName())
+                        && projectName.equals(c.getEngagement().getProjectName()));
+        if (cached.isPresent()) {
+            return cached;
+        }
+
+        return load(loader);
+
+    }
+
+    @Override
+    public void onUpsert(Engagement engagement) {
+        evict(engagement);
+    }
+
+    @Override
+    public void onRemove(Engagement engagement) {
+        evict(engagement);
+    }
+
+    @Override
+    public void onReset() {
+        engagements.clear();
+        uuidsByName.clear();
+    }
+
+    /**
+     * Loads the {@link Engagement} and caches it, unless a write was recorded
+     * while loading, in which case the loaded value may already be stale.
+     *
+     * @param loader
+     * @return
+     */
+    private Optional<CachedEngagement> load(Supplier<Optional<Engagement>> loader) {
+
+        long version = changeTracker.getVersion();
+        Optional<CachedEngagement> loaded = loader.get().map(CachedEngagement::of);
+
+        loaded.filter(c -> null != c.getEngagement().getUuid()).filter(c -> version == changeTracker.getVersion())
+                .ifPresent(this::put);
+
+        return loaded;
+
+    }
+
+    private void put(CachedEngagement cached) {
+
+        Engagement engagement = cached.getEngagement();
+
+        engagements.put(engagement.getUuid(), cached);
+        uuidsByName.put(nameKey(engagement.getCustomerName(), engagement.getProjectName()), engagement.getUuid());
+
+    }
+
+    private void evict(Engagement engagement) {
+
+        if (null != engagement.getUuid()) {
+            engagements.remove(engagement.getUuid());
+        }
+
+        uuidsByName.remove(nameKey(engagement.getCustomerName(), engagement.getProjectName()));
+
+    }
+
+    private boolean isCurrent(CachedEngagement cached) {
+        return System.currentTimeMillis() - cached.getLoadedAt() < ttl.toMillis();
+    }
+
+    private String nameKey(String customerName, String projectName) {
+        return new StringBuilder(String.valueOf(customerName)).append(NAME_SEPARATOR).append(projectName)
+                .toString();
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.redhat.labs.lodestar.cache;
+
+import com.redhat.labs.lodestar.model.Engagement;
+
+/**
+ * Receives notifications from the {@link EngagementChangeTracker} after an
+ * {@link Engagement} is written to the data store. Notifications may be
+ * repeated, so implementations must be idempotent.
+ */
+public interface EngagementChangeListener {
+
+    /**
+     * Called after the {@link Engagement} was inserted or modified.
+     *
+     * @param engagement
+     */
+    void onUpsert(Engagement engagement);
+
+    /**
+     * Called after the {@link Engagement} was deleted.
+     *
+     * @param engagement
+     */
+    void onRemove(Engagement engagement);
+
+    /**
+     * Called after all {@link Engagement}s were deleted.
+     */
+    void onReset();
+
+    /**
+     * Called when {@link Engagement}s may have changed without the changes being
+     * known, such as deletes made by other instances. Anything derived from the
+     * data store should be read again. Defaults to {@link #onReset()}.
+     */
+    default void onInvalidate() {
+        onReset();
+    }
+
+}
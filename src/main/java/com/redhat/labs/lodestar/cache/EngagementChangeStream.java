@@ -0,0 +1,357 @@
+package com.redhat.labs.lodestar.cache;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.annotation.Gauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.redhat.labs.lodestar.model.Engagement;
+import com.redhat.labs.lodestar.repository.ChangeStreamTokenRepository;
+import com.redhat.labs.lodestar.repository.EngagementRepository;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+
+/**
+ * Follows the change stream of the engagement collection and records each
+ * change with the {@link EngagementChangeTracker}, so that caches on every
+ * instance see writes made by other instances. Inserts and updates are
+ * recorded as upserts of the changed {@link Engagement}. Deletes only identify
+ * the removed document, so the UUID and names of each known document are kept
+ * by document id to record the delete as a removal. Deletes of unknown
+ * documents, and any change to the collection itself, invalidate the caches
+ * instead. Invalidations are coalesced until the stream has caught up, so that
+ * a burst of changes, such as a purge, reloads the caches once.
+ *
+ * The resume token of the last change is saved periodically under the
+ * consumer name of the instance, so that a restarted instance resumes where it
+ * stopped. If the saved token is too old to
+ * resume from, the caches are invalidated and the stream is started from the
+ * current time. Change streams require a replica set.
+ */
+@ApplicationScoped
+public class EngagementChangeStream {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EngagementChangeStream.class);
+
+    private static final int CHANGE_STREAM_FATAL_ERROR = 280;
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+    private static final String DOCUMENT_ID = "_id";
+
+    @ConfigProperty(name = "engagement.change.stream.enabled", defaultValue = "false")
+    boolean enabled;
+
+    // resume tokens are saved per consumer, defaults to the host name of the instance
+    @ConfigProperty(name = "engagement.change.stream.consumer")
+    Optional<String> configuredConsumer;
+
+    @ConfigProperty(name = "engagement.change.stream.retry", defaultValue = "10s")
+    Duration retry;
+
+    @ConfigProperty(name = "engagement.change.stream.token.interval", defaultValue = "5s")
+    Duration tokenInterval;
+
+    @Inject
+    EngagementRepository repository;
+
+    @Inject
+    ChangeStreamTokenRepository tokenRepository;
+
+    @Inject
+    EngagementChangeTracker changeTracker;
+
+    private final AtomicLong changes = new AtomicLong();
+
+    private String consumer;
+
+    // UUID and names of the known engagements by document id, used by the stream thread only
+    private final Map<ObjectId, Engagement> identities = new HashMap<>();
+    private boolean invalidationPending = false;
+
+    private volatile boolean running = false;
+    private volatile BsonDocument resumeToken;
+    private long tokenSavedAt = 0;
+
+    void onStart(@Observes StartupEvent event) {
+
+        if (!enabled) {
+            return;
+        }
+
+        consumer = configuredConsumer.filter(c -> !c.isBlank()).orElseGet(EngagementChangeStream::getHostName);
+        running = true;
+
+        Thread follower = new Thread(this::follow, "engagement-change-stream");
+        follower.setDaemon(true);
+        follower.start();
+
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        running = false;
+    }
+
+    @Gauge(name = "engagement-change-stream-changes", unit = MetricUnits.NONE, description = "Engagement changes read from the change stream")
+    public long getChanges() {
+        return changes.get();
+    }
+
+    /**
+     * Watches the change stream until stopped. The stream is reopened from the
+     * last resume token after a failure.
+     */
+    void follow() {
+
+        while (running) {
+
+            try {
+                watch();
+            } catch (MongoCommandException e) {
+
+                if (!isResumeTokenLost(e)) {
+                    LOGGER.error("engagement change stream failed, retrying in {}", retry, e);
+                    pause();
+                    continue;
+                }
+
+                LOGGER.warn("engagement change stream cannot resume, restarting from the current time. {}",
+                        e.getErrorMessage());
+                forgetResumeToken();
+                changeTracker.invalidated();
+
+            } catch (MongoException e) {
+                LOGGER.error("engagement change stream failed, retrying in {}", retry, e);
+                pause();
+            }
+
+        }
+
+    }
+
+    /**
+     * Opens the change stream after the last resume token and records each change
+     * until stopped or the stream is invalidated.
+     */
+    private void watch() {
+
+        BsonDocument token = null != resumeToken ? resumeToken
+                : tokenRepository.findResumeToken(consumer).orElse(null);
+
+        ChangeStreamIterable<Engagement> stream = repository.mongoCollection().watch()
+                .fullDocument(FullDocument.UPDATE_LOOKUP);
+        if (null != token) {
+            stream = stream.resumeAfter(token);
+        }
+
+        LOGGER.info("following engagement change stream, resuming {}", null != token);
+
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Engagement>> cursor = stream.cursor()) {
+
+            // loaded after opening the stream so that no later change is missed
+            loadIdentities();
+
+            while (running) {
+
+                ChangeStreamDocument<Engagement> change = cursor.tryNext();
+
+                if (null != change) {
+
+                    changes.incrementAndGet();
+                    apply(change.getOperationType(), change.getFullDocument(), change.getDocumentKey());
+
+                    // an invalidated stream cannot be resumed
+                    if (OperationType.INVALIDATE.equals(change.getOperationType())) {
+                        forgetResumeToken();
+                        return;
+                    }
+
+                } else {
+                    // caught up, a burst of unknown changes is invalidated once
+                    flushInvalidation();
+                }
+
+                if (null != cursor.getResumeToken()) {
+                    resumeToken = cursor.getResumeToken();
+                    saveResumeToken(false);
+                }
+
+            }
+
+        } finally {
+            flushInvalidation();
+            saveResumeToken(true);
+        }
+
+    }
+
+    /**
+     * Records the change with the {@link EngagementChangeTracker}. Changes that
+     * cannot be recorded for a known {@link Engagement} mark the caches for
+     * invalidation by {@link #flushInvalidation()}.
+     *
+     * @param operationType
+     * @param engagement    the full document after the change, if known
+     * @param documentKey   identifies the changed document, if known
+     */
+    void apply(OperationType operationType, Engagement engagement, BsonDocument documentKey) {
+
+        switch (operationType) {
+        case INSERT:
+        case UPDATE:
+        case REPLACE:
+            // null if deleted before the update was read, the delete follows
+            if (null != engagement) {
+                remember(engagement);
+                changeTracker.upserted(engagement);
+            }
+            break;
+        case DELETE:
+            Engagement removed = forget(documentKey);
+            if (null != removed) {
+                changeTracker.removed(removed);
+            } else {
+                invalidationPending = true;
+            }
+            break;
+        case OTHER:
+            break;
+        default:
+            identities.clear();
+            invalidationPending = true;
+            break;
+        }
+
+    }
+
+    /**
+     * Invalidates the caches once if any change since the last call could not be
+     * recorded.
+     */
+    void flushInvalidation() {
+
+        if (invalidationPending) {
+            invalidationPending = false;
+            changeTracker.invalidated();
+        }
+
+    }
+
+    private void loadIdentities() {
+        identities.clear();
+        repository.findAllIdentities().forEach(this::remember);
+    }
+
+    private void remember(Engagement engagement) {
+
+        if (null != engagement.getMongoId()) {
+            identities.put(engagement.getMongoId(), Engagement.builder().uuid(engagement.getUuid())
+                    .customerName(engagement.getCustomerName()).projectName(engagement.getProjectName()).build());
+        }
+
+    }
+
+    private Engagement forget(BsonDocument documentKey) {
+
+        BsonValue id = null == documentKey ? null : documentKey.get(DOCUMENT_ID);
+        if (null == id || !id.isObjectId()) {
+            return null;
+        }
+
+        return identities.remove(id.asObjectId().getValue());
+
+    }
+
+    /**
+     * Saves the resume token if forced or if not saved within the token interval.
+     * Failures are logged, the token is saved again with the next change.
+     *
+     * @param force
+     */
+    private void saveResumeToken(boolean force) {
+
+        BsonDocument token = resumeToken;
+        long now = System.currentTimeMillis();
+
+        if (null == token || (!force && now - tokenSavedAt < tokenInterval.toMillis())) {
+            return;
+        }
+
+        try {
+            tokenRepository.saveResumeToken(consumer, token);
+            tokenSavedAt = now;
+        } catch (MongoException e) {
+            LOGGER.warn("failed to save engagement change stream resume token. {}", e.getMessage());
+        }
+
+    }
+
+    private void forgetResumeToken() {
+
+        resumeToken = null;
+
+        try {
+            tokenRepository.deleteResumeToken(consumer);
+        } catch (MongoException e) {
+            LOGGER.warn("failed to remove engagement change stream resume token. {}", e.getMessage());
+        }
+
+    }
+
+    /**
+     * Returns the host name of this instance, which is the pod name when running
+     * in Kubernetes. A random name is returned if the host name is unknown.
+     *
+     * @return
+     */
+    static String getHostName() {
+
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            String name = "lodestar-backend-" + Long.toHexString(new SecureRandom().nextLong());
+            LOGGER.warn("host name is unknown, following the engagement change stream as {}", name);
+            return name;
+        }
+
+    }
+
+    private boolean isResumeTokenLost(MongoCommandException e) {
+        return CHANGE_STREAM_HISTORY_LOST == e.getErrorCode() || CHANGE_STREAM_FATAL_ERROR == e.getErrorCode();
+    }
+
+    private void pause() {
+
+        try {
+            Thread.sleep(retry.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+
+    }
+
+}
@@ -0,0 +1,151 @@
+package com.redhat.labs.lodestar.cache;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Any;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.redhat.labs.lodestar.model.Engagement;
+
+/**
+ * Tracks writes to the engagement collection. Every write increments the
+ * collection version, which allows anything derived from the collection to be
+ * cached until the next write. Each {@link EngagementChangeListener} is notified
+ * of the write.
+ */
+@ApplicationScoped
+public class EngagementChangeTracker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EngagementChangeTracker.class);
+
+    private static final String TAG_SEPARATOR = "-";
+
+    @ConfigProperty(name = "engagement.list.etag.window", defaultValue = "60s")
+    Duration entityTagWindow;
+
+    // versions are per instance, so tags from other instances must not match
+    private final String instanceId = Long.toHexString(new SecureRandom().nextLong());
+    private final AtomicLong version = new AtomicLong();
+
+    @Inject
+    @Any
+    Instance<EngagementChangeListener> listeners;
+
+    /**
+     * Returns the current version of the engagement collection.
+     *
+     * @return
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Returns an entity tag for a response derived from the engagement collection
+     * and identified by the given signature. The tag changes on every write made
+     * by this instance and at the end of each window, so that writes made by
+     * other instances are picked up.
+     *
+     * @param signature
+     * @return
+     */
+    public String getEntityTag(String signature) {
+
+        return new StringBuilder(instanceId).append(TAG_SEPARATOR).append(version.get()).append(TAG_SEPARATOR)
+                .append(Long.toHexString(getWindow())).append(TAG_SEPARATOR)
+                .append(Integer.toHexString(String.valueOf(signature).hashCode())).toString();
+
+    }
+
+    /**
+     * Returns a cache key for a value derived from the engagement collection and
+     * identified by the given signature. Like the entity tag, the key changes on
+     * every write made by this instance and at the end of each window, so that
+     * cached values include writes made by other instances within the window.
+     *
+     * @param signature
+     * @return
+     */
+    public String getCacheKey(String signature) {
+        return new StringBuilder().append(version.get()).append(TAG_SEPARATOR).append(getWindow())
+                .append(TAG_SEPARATOR).append(signature).toString();
+    }
+
+    /**
+     * Returns the number of the current window.
+     *
+     * @return
+     */
+    private long getWindow() {
+        return System.currentTimeMillis() / Math.max(1, entityTagWindow.toMillis());
+    }
+
+    /**
+     * Records that the given {@link Engagement} was inserted or modified.
+     *
+     * @param engagement
+     */
+    public void upserted(Engagement engagement) {
+        version.incrementAndGet();
+        notifyListeners(l -> l.onUpsert(engagement));
+    }
+
+    /**
+     * Records that the given {@link Engagement} was deleted.
+     *
+     * @param engagement
+     */
+    public void removed(Engagement engagement) {
+        version.incrementAndGet();
+        notifyListeners(l -> l.onRemove(engagement));
+    }
+
+    /**
+     * Records that all {@link Engagement}s were deleted.
+     */
+    public void cleared() {
+        version.incrementAndGet();
+        notifyListeners(EngagementChangeListener::onReset);
+    }
+
+    /**
+     * Records that {@link Engagement}s may have changed without the changes
+     * being known.
+     */
+    public void invalidated() {
+        version.incrementAndGet();
+        notifyListeners(EngagementChangeListener::onInvalidate);
+    }
+
+    /**
+     * Calls each listener. A listener that fails does not prevent the remaining
+     * listeners from being notified.
+     *
+     * @param notification
+     */
+    private void notifyListeners(Consumer<EngagementChangeListener> notification) {
+
+        if (null == listeners) {
+            return;
+        }
+
+        for (EngagementChangeListener listener : listeners) {
+            try {
+                notification.accept(listener);
+            } catch (RuntimeException e) {
+                LOGGER.error("engagement change listener {} failed", listener.getClass().getName(), e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.redhat.labs.lodestar.cache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.redhat.labs.lodestar.model.Artifact;
+import com.redhat.labs.lodestar.model.Category;
+import com.redhat.labs.lodestar.model.Engagement;
+
+/**
+ * The {@link Engagement} fields whose values are grouped and counted for
+ * suggestions. Each facet knows the field name used to search it and how to
+ * read its values from an {@link Engagement}.
+ */
+public enum Facet {
+
+    CUSTOMER_NAME("customerName", false, true,
+            e -> null == e.getCustomerName() ? List.of() : List.of(e.getCustomerName())),
+    CATEGORY_NAME("categories.name", true, false, e -> values(e.getCategories(), Category::getName)),
+    ARTIFACT_TYPE("artifacts.type", false, false, e -> values(e.getArtifacts(), Artifact::getType));
+
+    private final String fieldName;
+    private final boolean sortedByCount;
+    private final boolean prefixRanked;
+    private final Function<Engagement, List<String>> extractor;
+
+    Facet(String fieldName, boolean sortedByCount, boolean prefixRanked,
+            Function<Engagement, List<String>> extractor) {
+        this.fieldName = fieldName;
+        this.sortedByCount = sortedByCount;
+        this.prefixRanked = prefixRanked;
+        this.extractor = extractor;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * Returns true if values are sorted by the number of times they are used.
+     * Otherwise, values are sorted by name ignoring case.
+     *
+     * @return
+     */
+    public boolean isSortedByCount() {
+        return sortedByCount;
+    }
+
+    /**
+     * Returns true if searched values starting with the search string are ranked
+     * before values only containing it.
+     *
+     * @return
+     */
+    public boolean isPrefixRanked() {
+        return prefixRanked;
+    }
+
+    /**
+     * Returns the values of this facet on the {@link Engagement}. A value used
+     * more than once is returned once for each use. Null values are ignored.
+     *
+     * @param engagement
+     * @return
+     */
+    public List<String> getValues(Engagement engagement) {
+        return extractor.apply(engagement);
+    }
+
+    private static <T> List<String> values(Collection<T> attributes, Function<T, String> getter) {
+
+        if (null == attributes) {
+            return List.of();
+        }
+
+        return attributes.stream().filter(Objects::nonNull).map(getter).filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+    }
+
+}
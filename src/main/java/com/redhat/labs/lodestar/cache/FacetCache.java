@@ -0,0 +1,258 @@
+package com.redhat.labs.lodestar.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.MongoException;
+import com.redhat.labs.lodestar.model.Engagement;
+import com.redhat.labs.lodestar.model.filter.ListFilterOptions;
+import com.redhat.labs.lodestar.model.filter.SortOrder;
+import com.redhat.labs.lodestar.repository.EngagementRepository;
+import com.redhat.labs.lodestar.util.ClassFieldUtils;
+
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+
+/**
+ * In memory index of the values of each {@link Facet} across all
+ * {@link Engagement}s, used to answer suggestion requests without grouping the
+ * collection. The index is loaded at startup, kept current by the writes made
+ * by this instance, and reloaded on a schedule to pick up writes made by other
+ * instances. Reads do not lock; reloads are built aside and swapped in whole.
+ * Until loaded, or if a request cannot be answered from memory,
+ * {@link #find(Facet, ListFilterOptions)} returns an empty {@link Optional} so
+ * callers fall back to the data store.
+ */
+@ApplicationScoped
+public class FacetCache implements EngagementChangeListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FacetCache.class);
+
+    private static final String NAME_SEPARATOR = ":";
+    private static final String VALUE_DELIMITER = ",";
+    private static final String COMPONENT_DELIMITER = "&";
+    private static final Pattern LIKE_SEARCH = Pattern.compile("^([\\w.]+)\\s*like\\s*(.*)$");
+    private static final Pattern REGEX_CHARACTERS = Pattern.compile("[\\\\^$.|?*+()\\[\\]{}]");
+
+    @ConfigProperty(name = "engagement.facet.cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @Inject
+    EngagementRepository repository;
+
+    private volatile Map<Facet, FacetIndex> indexes = newIndexes();
+    private volatile boolean loaded = false;
+
+    void onStart(@Observes StartupEvent event) {
+        reload();
+    }
+
+    @Scheduled(every = "{engagement.facet.cache.refresh}")
+    void refresh() {
+        reload();
+    }
+
+    /**
+     * Replaces the cache contents with the values currently in the data store. If
+     * the data store cannot be read, the cache is marked as not loaded.
+     */
+    public synchronized void reload() {
+
+        if (!enabled) {
+            return;
+        }
+
+        try {
+
+            List<Engagement> engagements = repository.findAllFacetFields();
+
+            Map<Facet, FacetIndex> reloaded = newIndexes();
+            engagements.forEach(e -> index(reloaded, e));
+            indexes = reloaded;
+            loaded = true;
+
+            LOGGER.debug("facet cache loaded with {} engagements", engagements.size());
+
+        } catch (MongoException e) {
+            indexes = newIndexes();
+            loaded = false;
+            LOGGER.error("failed to load facet cache", e);
+        }
+
+    }
+
+    /**
+     * Returns an {@link Optional} containing all values of the {@link Facet}
+     * matching the search in the {@link ListFilterOptions}, sorted the same way
+     * as the data store. For a prefix ranked {@link Facet}, values starting with
+     * the search string are returned before values only containing it. An empty
+     * {@link Optional} is returned if the cache is not loaded, if cursor paging
+     * is requested, or if the search is anything other than a like search of the
+     * {@link Facet} field without regular expression characters.
+     *
+     * @param facet
+     * @param filterOptions
+     * @return
+     */
+    public Optional<List<FacetValue>> find(Facet facet, ListFilterOptions filterOptions) {
+
+        if (!loaded || filterOptions.isCursorPaging()) {
+            return Optional.empty();
+        }
+
+        Optional<List<String>> literals = getLikeLiterals(facet, filterOptions.getSearch());
+        if (literals.isEmpty()) {
+            return Optional.empty();
+        }
+
+        FacetIndex index = indexes.get(facet);
+        boolean descending = SortOrder.DESC.equals(filterOptions.getSortOrder().orElse(SortOrder.ASC));
+
+        if (literals.get().isEmpty()) {
+            return Optional.of(sort(facet, new ArrayList<>(index.getValues()), descending));
+        }
+
+        if (!facet.isPrefixRanked()) {
+            return Optional.of(sort(facet, index.getValues().stream().filter(v -> containsAny(v, literals.get()))
+                    .collect(Collectors.toList()), descending));
+        }
+
+        // values starting with a literal, in key order
+        Map<String, FacetValue> prefixed = new TreeMap<>();
+        literals.get()
+                .forEach(l -> index.getPrefixTrie().startingWith(l).forEach(v -> prefixed.put(v.getKey(), v)));
+
+        List<FacetValue> contained = index.getValues().stream()
+                .filter(v -> !prefixed.containsKey(v.getKey()) && containsAny(v, literals.get()))
+                .collect(Collectors.toList());
+
+        List<FacetValue> ranked = sort(facet, new ArrayList<>(prefixed.values()), descending);
+        ranked.addAll(sort(facet, contained, descending));
+
+        return Optional.of(ranked);
+
+    }
+
+    @Override
+    public synchronized void onUpsert(Engagement engagement) {
+        index(indexes, engagement);
+    }
+
+    @Override
+    public synchronized void onRemove(Engagement engagement) {
+        getKey(engagement).ifPresent(key -> indexes.values().forEach(index -> index.remove(key)));
+    }
+
+    @Override
+    public synchronized void onReset() {
+        indexes = newIndexes();
+    }
+
+    @Override
+    public void onInvalidate() {
+        reload();
+    }
+
+    private void index(Map<Facet, FacetIndex> target, Engagement engagement) {
+        getKey(engagement).ifPresent(
+                key -> target.forEach((facet, index) -> index.put(key, facet.getValues(engagement))));
+    }
+
+    private Map<Facet, FacetIndex> newIndexes() {
+
+        Map<Facet, FacetIndex> created = new EnumMap<>(Facet.class);
+        Stream.of(Facet.values()).forEach(f -> created.put(f, new FacetIndex()));
+        return created;
+
+    }
+
+    private Optional<String> getKey(Engagement engagement) {
+
+        if (null != engagement.getUuid()) {
+            return Optional.of(engagement.getUuid());
+        }
+
+        if (null == engagement.getCustomerName() || null == engagement.getProjectName()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new StringBuilder(engagement.getCustomerName()).append(NAME_SEPARATOR)
+                .append(engagement.getProjectName()).toString().toLowerCase());
+
+    }
+
+    /**
+     * Returns an {@link Optional} containing the lowercase literals of a like
+     * search of the {@link Facet} field, or an empty {@link List} if there is no
+     * search. A like search is a case insensitive regular expression, so literal
+     * values match any value that contains one of them. An empty {@link Optional}
+     * is returned for any other search.
+     *
+     * @param facet
+     * @param search
+     * @return
+     */
+    private Optional<List<String>> getLikeLiterals(Facet facet, Optional<String> search) {
+
+        if (search.isEmpty()) {
+            return Optional.of(List.of());
+        }
+
+        if (search.get().contains(COMPONENT_DELIMITER)) {
+            return Optional.empty();
+        }
+
+        Matcher like = LIKE_SEARCH.matcher(search.get());
+        if (!like.matches() || !facet.getFieldName().equals(ClassFieldUtils.getFieldNameFromQueryName(like.group(1)))) {
+            return Optional.empty();
+        }
+
+        List<String> literals = new ArrayList<>();
+        for (String literal : like.group(2).split(VALUE_DELIMITER)) {
+            if (literal.isEmpty() || REGEX_CHARACTERS.matcher(literal).find()) {
+                return Optional.empty();
+            }
+            literals.add(literal.toLowerCase());
+        }
+
+        return literals.isEmpty() ? Optional.empty() : Optional.of(literals);
+
+    }
+
+    private boolean containsAny(FacetValue value, List<String> literals) {
+        return literals.stream().anyMatch(l -> value.getKey().contains(l));
+    }
+
+    private List<FacetValue> sort(Facet facet, List<FacetValue> values, boolean descending) {
+
+        if (facet.isSortedByCount()) {
+            values.sort(Comparator.comparingInt(FacetValue::getCount).thenComparing(FacetValue::getKey));
+        }
+
+        if (descending) {
+            Collections.reverse(values);
+        }
+
+        return values;
+
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.redhat.labs.lodestar.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * The values of one {@link Facet} for every engagement, grouped ignoring case.
+ * Each group keeps a count for each spelling in the order first used, and is
+ * named using the earliest spelling still in use. The sorted values are built
+ * on the first read after a change and shared until the next change, so reads
+ * between changes do not lock.
+ */
+class FacetIndex {
+
+    private final Map<String, List<String>> valuesByEngagement = new HashMap<>();
+    private final Map<String, Map<String, Integer>> spellingsByKey = new HashMap<>();
+
+    private volatile Snapshot snapshot = new Snapshot(List.of());
+
+    /**
+     * Replaces the values used by the engagement with the given key.
+     *
+     * @param engagementKey
+     * @param values
+     */
+    synchronized void put(String engagementKey, List<String> values) {
+
+        List<String> previous = valuesByEngagement.put(engagementKey, values);
+
+        // add before removing so unchanged values keep their spelling order
+        values.forEach(this::increment);
+        if (null != previous) {
+            previous.forEach(this::decrement);
+        }
+
+        snapshot = null;
+
+    }
+
+    /**
+     * Removes the values used by the engagement with the given key.
+     *
+     * @param engagementKey
+     */
+    synchronized void remove(String engagementKey) {
+
+        List<String> previous = valuesByEngagement.remove(engagementKey);
+        if (null != previous) {
+            previous.forEach(this::decrement);
+            snapshot = null;
+        }
+
+    }
+
+    /**
+     * Returns the values sorted by key. The returned {@link List} is not
+     * modifiable.
+     *
+     * @return
+     */
+    List<FacetValue> getValues() {
+        return getSnapshot().values;
+    }
+
+    /**
+     * Returns the values in a {@link PrefixTrie}, built on the first prefix
+     * search after a change.
+     *
+     * @return
+     */
+    PrefixTrie getPrefixTrie() {
+
+        Snapshot current = getSnapshot();
+
+        // building twice on a race is harmless, both tries are equal
+        PrefixTrie trie = current.trie;
+        if (null == trie) {
+            trie = new PrefixTrie(current.values);
+            current.trie = trie;
+        }
+
+        return trie;
+
+    }
+
+    private Snapshot getSnapshot() {
+
+        Snapshot current = snapshot;
+        if (null != current) {
+            return current;
+        }
+
+        synchronized (this) {
+            if (null == snapshot) {
+                snapshot = new Snapshot(sort());
+            }
+            return snapshot;
+        }
+
+    }
+
+    private List<FacetValue> sort() {
+
+        List<FacetValue> values = new ArrayList<>(spellingsByKey.size());
+        for (Entry<String, Map<String, Integer>> entry : spellingsByKey.entrySet()) {
+            int count = entry.getValue().values().stream().mapToInt(Integer::intValue).sum();
+            String name = entry.getValue().keySet().iterator().next();
+            values.add(new FacetValue(name, entry.getKey(), count));
+        }
+
+        values.sort(Comparator.comparing(FacetValue::getKey));
+
+        return Collections.unmodifiableList(values);
+
+    }
+
+    private void increment(String value) {
+        spellingsByKey.computeIfAbsent(value.toLowerCase(), k -> new LinkedHashMap<>()).merge(value, 1, Integer::sum);
+    }
+
+    private void decrement(String value) {
+
+        String key = value.toLowerCase();
+        Map<String, Integer> spellings = spellingsByKey.get(key);
+        if (null == spellings) {
+            return;
+        }
+
+        spellings.computeIfPresent(value, (k, v) -> v > 1 ? v - 1 : null);
+        if (spellings.isEmpty()) {
+            spellingsByKey.remove(key);
+        }
+
+    }
+
+    private static class Snapshot {
+
+        private final List<FacetValue> values;
+        private volatile PrefixTrie trie;
+
+        Snapshot(List<FacetValue> values) {
+            this.values = values;
+        }
+
+    }
+
+}
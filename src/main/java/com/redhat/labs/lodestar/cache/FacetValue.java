@@ -0,0 +1,18 @@
+package com.redhat.labs.lodestar.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A value of a {@link Facet} grouped ignoring case, with the number of times it
+ * is used.
+ */
+@Getter
+@AllArgsConstructor
+public class FacetValue {
+
+    private final String name;
+    private final String key;
+    private final int count;
+
+}
@@ -0,0 +1,178 @@
+package com.redhat.labs.lodestar.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.json.bind.Jsonb;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.annotation.Gauge;
+
+import com.redhat.labs.lodestar.model.Engagement;
+
+/**
+ * Cache of the serialized JSON response bodies of single {@link Engagement}s,
+ * keyed by UUID, version, and projection, so that the same bytes are not
+ * serialized again for every reader. The cache is bounded by the total number
+ * of bytes cached, evicting the least recently used bodies first. Bodies are
+ * serialized with the same {@link Jsonb} used for REST responses. All bodies
+ * for an engagement are removed when the {@link EngagementChangeTracker}
+ * reports a change to it.
+ */
+@ApplicationScoped
+public class JsonResponseCache implements EngagementChangeListener {
+
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    @ConfigProperty(name = "engagement.json.cache.max.bytes", defaultValue = "16777216")
+    long maxBytes;
+
+    @Inject
+    Jsonb jsonb;
+
+    private final Map<String, CachedBody> bodies = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Gauge(name = "engagement-json-cache-hits", unit = MetricUnits.NONE, description = "Engagement JSON response cache hits")
+    public long getHits() {
+        return hits.get();
+    }
+
+    @Gauge(name = "engagement-json-cache-misses", unit = MetricUnits.NONE, description = "Engagement JSON response cache misses")
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Gauge(name = "engagement-json-cache-bytes", unit = MetricUnits.BYTES, description = "Engagement JSON response bytes cached")
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Returns the JSON representation of the entity as UTF-8 bytes. If the body
+     * for the UUID, version, and projection is cached, it is returned without
+     * serializing the entity. Otherwise, the entity is serialized and cached. The
+     * body is not cached if the UUID or version is unknown or if it is larger than
+     * the cache.
+     *
+     * @param uuid
+     * @param version    changes whenever the serialized entity changes
+     * @param projection identifies the attributes included in the entity
+     * @param entity
+     * @return
+     */
+    public byte[] toJson(String uuid, String version, String projection, Object entity) {
+
+        if (!isEnabled() || null == uuid || null == version) {
+            return serialize(entity);
+        }
+
+        String key = createKey(uuid, version, projection);
+
+        synchronized (this) {
+            CachedBody cached = bodies.get(key);
+            if (null != cached) {
+                hits.incrementAndGet();
+                return cached.body;
+            }
+        }
+
+        misses.incrementAndGet();
+
+        // serialize outside of the lock, concurrent misses may each serialize
+        byte[] body = serialize(entity);
+        put(key, new CachedBody(uuid, body));
+
+        return body;
+
+    }
+
+    @Override
+    public void onUpsert(Engagement engagement) {
+        evict(engagement.getUuid());
+    }
+
+    @Override
+    public void onRemove(Engagement engagement) {
+        evict(engagement.getUuid());
+    }
+
+    @Override
+    public synchronized void onReset() {
+        bodies.clear();
+        totalBytes = 0;
+    }
+
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    private synchronized void put(String key, CachedBody cached) {
+
+        if (cached.body.length > maxBytes) {
+            return;
+        }
+
+        CachedBody replaced = bodies.put(key, cached);
+        if (null != replaced) {
+            totalBytes -= replaced.body.length;
+        }
+        totalBytes += cached.body.length;
+
+        // remove least recently used until within the limit
+        Iterator<CachedBody> eldest = bodies.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().body.length;
+            eldest.remove();
+        }
+
+    }
+
+    private synchronized void evict(String uuid) {
+
+        if (null == uuid) {
+            return;
+        }
+
+        Iterator<CachedBody> iterator = bodies.values().iterator();
+        while (iterator.hasNext()) {
+            CachedBody cached = iterator.next();
+            if (uuid.equals(cached.uuid)) {
+                totalBytes -= cached.body.length;
+                iterator.remove();
+            }
+        }
+
+    }
+
+    private byte[] serialize(Object entity) {
+        return jsonb.toJson(entity).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String createKey(String uuid, String version, String projection) {
+        return new StringBuilder(uuid).append(KEY_SEPARATOR).append(version).append(KEY_SEPARATOR)
+                .append(projection).toString();
+    }
+
+    private static class CachedBody {
+
+        private final String uuid;
+        private final byte[] body;
+
+        CachedBody(String uuid, byte[] body) {
+            this.uuid = uuid;
+            this.body = body;
+        }
+
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.redhat.labs.lodestar.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A thread safe, size bounded cache that evicts the least recently used entry
+ * once the maximum number of entries is reached. A maximum size of zero or less
+ * disables the cache. Hits and misses are counted so they can be exposed as
+ * metrics.
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class LruCache<K, V> {
+
+    private final int maxSize;
+    private final Map<K, V> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public LruCache(int maxSize) {
+
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > LruCache.this.maxSize;
+            }
+
+        };
+
+    }
+
+    /**
+     * Returns an {@link Optional} containing the value for the key if cached.
+     * Otherwise, an empty {@link Optional}.
+     *
+     * @param key
+     * @return
+     */
+    public Optional<V> get(K key) {
+
+        V value;
+        synchronized (entries) {
+            value = entries.get(key);
+        }
+
+        if (null == value) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        hits.incrementAndGet();
+        return Optional.of(value);
+
+    }
+
+    /**
+     * Returns the cached value for the key. If not cached, the value is created
+     * using the loader and cached. The loader is not called while holding the
+     * cache lock, so concurrent misses for the same key may each call the loader.
+     *
+     * @param key
+     * @param loader
+     * @return
+     */
+    public V computeIfAbsent(K key, Function<K, V> loader) {
+
+        Optional<V> cached = get(key);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        V value = loader.apply(key);
+        put(key, value);
+
+        return value;
+
+    }
+
+    /**
+     * Caches the value for the given key. Null values are not cached.
+     *
+     * @param key
+     * @param value
+     */
+    public void put(K key, V value) {
+
+        if (!isEnabled() || null == value) {
+            return;
+        }
+
+        synchronized (entries) {
+            entries.put(key, value);
+        }
+
+    }
+
+    /**
+     * Removes the value for the given key.
+     *
+     * @param key
+     */
+    public void remove(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+}
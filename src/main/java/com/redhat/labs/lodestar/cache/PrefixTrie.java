@@ -0,0 +1,72 @@
+package com.redhat.labs.lodestar.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable trie of {@link FacetValue}s keyed by their lowercase name. Values
+ * are returned in key order, so a prefix search returns the same order as
+ * sorting the matching values by key.
+ */
+class PrefixTrie {
+
+    private final Node root = new Node();
+
+    PrefixTrie(List<FacetValue> values) {
+        values.forEach(this::add);
+    }
+
+    /**
+     * Returns the values whose key starts with the given lowercase prefix, sorted
+     * by key.
+     *
+     * @param prefix
+     * @return
+     */
+    List<FacetValue> startingWith(String prefix) {
+
+        Node node = root;
+        for (int i = 0; i < prefix.length() && null != node; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+
+        List<FacetValue> values = new ArrayList<>();
+        if (null != node) {
+            collect(node, values);
+        }
+
+        return values;
+
+    }
+
+    private void add(FacetValue value) {
+
+        Node node = root;
+        for (int i = 0; i < value.getKey().length(); i++) {
+            node = node.children.computeIfAbsent(value.getKey().charAt(i), c -> new Node());
+        }
+
+        node.value = value;
+
+    }
+
+    private void collect(Node node, List<FacetValue> values) {
+
+        if (null != node.value) {
+            values.add(node.value);
+        }
+
+        node.children.values().forEach(child -> collect(child, values));
+
+    }
+
+    private static class Node {
+
+        private final Map<Character, Node> children = new TreeMap<>();
+        private FacetValue value;
+
+    }
+
+}
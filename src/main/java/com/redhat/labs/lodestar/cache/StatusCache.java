@@ -0,0 +1,170 @@
+package com.redhat.labs.lodestar.cache;
+
+import java.util.Optional;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.redhat.labs.lodestar.model.status.VersionManifest;
+import com.redhat.labs.lodestar.rest.client.LodeStarStatusApiClient;
+
+import io.quarkus.scheduler.Scheduled;
+
+/**
+ * In memory snapshot of the version manifest and component status from the
+ * LodeStar Status API. Both are refreshed on a schedule, and read from the
+ * Status API on the first request or if older than the maximum age requested.
+ * If the Status API cannot be read, the last known value is kept and returned.
+ * Responses include the standard Age header with the number of seconds since
+ * the value was read.
+ */
+@ApplicationScoped
+public class StatusCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatusCache.class);
+
+    private static final String AGE_HEADER = "Age";
+
+    @ConfigProperty(name = "status.cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @Inject
+    @RestClient
+    LodeStarStatusApiClient statusClient;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    private volatile CachedManifest manifest;
+    private volatile CachedResponse componentStatus;
+
+    @Scheduled(every = "{status.cache.refresh}")
+    void refresh() {
+
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            refreshManifest();
+        } catch (RuntimeException e) {
+            LOGGER.warn("failed to refresh version manifest, keeping last known value. {}", e.getMessage());
+        }
+
+        try {
+            refreshComponentStatus();
+        } catch (RuntimeException e) {
+            LOGGER.warn("failed to refresh component status, keeping last known value. {}", e.getMessage());
+        }
+
+    }
+
+    /**
+     * Returns the version manifest, read again if not yet read or older than the
+     * maximum age in seconds.
+     *
+     * @param maxAge
+     * @return
+     */
+    public Response getVersionManifest(Optional<Integer> maxAge) {
+
+        if (!enabled) {
+            return Response.ok(statusClient.getVersionManifest()).build();
+        }
+
+        CachedManifest current = manifest;
+        if (null == current || !isWithinMaxAge(current.loadedAt, maxAge)) {
+            current = refreshOrKeep(current, this::refreshManifest);
+        }
+
+        return withAge(Response.ok(current.manifest), current.loadedAt);
+
+    }
+
+    /**
+     * Returns the component status, read again if not yet read or older than the
+     * maximum age in seconds.
+     *
+     * @param maxAge
+     * @return
+     */
+    public Response getComponentStatus(Optional<Integer> maxAge) {
+
+        if (!enabled) {
+            return statusClient.getComponentStatus();
+        }
+
+        CachedResponse current = componentStatus;
+        if (null == current || !isWithinMaxAge(current.getLoadedAt(), maxAge)) {
+            current = refreshOrKeep(current, this::refreshComponentStatus);
+        }
+
+        return withAge(current.toResponseBuilder(), current.getLoadedAt());
+
+    }
+
+    synchronized CachedManifest refreshManifest() {
+        manifest = new CachedManifest(statusClient.getVersionManifest(), clock.getAsLong());
+        return manifest;
+    }
+
+    synchronized CachedResponse refreshComponentStatus() {
+        componentStatus = CachedResponse.of(statusClient.getComponentStatus(), clock.getAsLong());
+        return componentStatus;
+    }
+
+    /**
+     * Refreshes the value. If the refresh fails, the last known value is
+     * returned. If there is no last known value, the failure is thrown.
+     *
+     * @param <T>
+     * @param current
+     * @param refresher
+     * @return
+     */
+    private <T> T refreshOrKeep(T current, Supplier<T> refresher) {
+
+        try {
+            return refresher.get();
+        } catch (RuntimeException e) {
+
+            if (null == current) {
+                throw e;
+            }
+
+            LOGGER.warn("failed to refresh status, returning last known value. {}", e.getMessage());
+            return current;
+
+        }
+
+    }
+
+    private boolean isWithinMaxAge(long loadedAt, Optional<Integer> maxAge) {
+        return maxAge.map(age -> clock.getAsLong() - loadedAt <= age * 1000L).orElse(true);
+    }
+
+    private Response withAge(ResponseBuilder builder, long loadedAt) {
+        return builder.header(AGE_HEADER, Math.max(0L, (clock.getAsLong() - loadedAt) / 1000L)).build();
+    }
+
+    static class CachedManifest {
+
+        private final VersionManifest manifest;
+        private final long loadedAt;
+
+        CachedManifest(VersionManifest manifest, long loadedAt) {
+            this.manifest = manifest;
+            this.loadedAt = loadedAt;
+        }
+
+    }
+
+}
@@ -0,0 +1,143 @@
+package com.redhat.labs.lodestar.cache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.MongoException;
+import com.redhat.labs.lodestar.model.Engagement;
+import com.redhat.labs.lodestar.repository.EngagementRepository;
+
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+
+/**
+ * In memory registry of the hosting environment subdomains in use, keyed by the
+ * lowercase subdomain with the UUID of the owning {@link Engagement} as the
+ * value. The registry is loaded at startup, kept current by the writes made by
+ * this instance, and reloaded on a schedule to pick up writes made by other
+ * instances. Until loaded, {@link #isInUse(String)} returns an empty
+ * {@link Optional} so callers fall back to the data store.
+ */
+@ApplicationScoped
+public class SubdomainRegistry implements EngagementChangeListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SubdomainRegistry.class);
+
+    @ConfigProperty(name = "engagement.subdomain.registry.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @Inject
+    EngagementRepository repository;
+
+    private final Map<String, String> owners = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+
+    void onStart(@Observes StartupEvent event) {
+        reload();
+    }
+
+    @Scheduled(every = "{engagement.subdomain.registry.refresh}")
+    void refresh() {
+        reload();
+    }
+
+    /**
+     * Replaces the registry contents with the subdomains currently in the data
+     * store. If the data store cannot be read, the registry is marked as not
+     * loaded.
+     */
+    public synchronized void reload() {
+
+        if (!enabled) {
+            return;
+        }
+
+        try {
+
+            List<Engagement> engagements = repository.findAllSubdomains();
+
+            owners.clear();
+            engagements.forEach(this::register);
+            loaded = true;
+
+            LOGGER.debug("subdomain registry loaded with {} subdomains", owners.size());
+
+        } catch (MongoException e) {
+            owners.clear();
+            loaded = false;
+            LOGGER.error("failed to load subdomain registry", e);
+        }
+
+    }
+
+    /**
+     * Returns an {@link Optional} containing true if the subdomain is used by an
+     * {@link Engagement}, ignoring case, or false if it is not. An empty
+     * {@link Optional} is returned if the registry is not loaded.
+     *
+     * @param subdomain
+     * @return
+     */
+    public Optional<Boolean> isInUse(String subdomain) {
+
+        if (!loaded) {
+            return Optional.empty();
+        }
+
+        return Optional.of(owners.containsKey(subdomain.toLowerCase()));
+
+    }
+
+    @Override
+    public synchronized void onUpsert(Engagement engagement) {
+        unregister(engagement.getUuid());
+        register(engagement);
+    }
+
+    @Override
+    public synchronized void onRemove(Engagement engagement) {
+        unregister(engagement.getUuid());
+    }
+
+    @Override
+    public synchronized void onReset() {
+        owners.clear();
+    }
+
+    @Override
+    public void onInvalidate() {
+        reload();
+    }
+
+    private void register(Engagement engagement) {
+
+        if (null == engagement.getUuid()) {
+            return;
+        }
+
+        engagement.updateSubdomains();
+        engagement.getSubdomains().forEach(subdomain -> owners.put(subdomain, engagement.getUuid()));
+
+    }
+
+    private void unregister(String uuid) {
+
+        if (null == uuid) {
+            return;
+        }
+
+        owners.values().removeIf(uuid::equals);
+
+    }
+
+}
@@ -14,4 +14,15 @@ public class JsonConfig implements JsonbConfigCustomizer {
         jsonbConfig.withFormatting(true).withPropertyNamingStrategy(PropertyNamingStrategy.LOWER_CASE_WITH_UNDERSCORES);
     }
 
+    /**
+     * Returns a {@link JsonbConfig} with the same property naming as the REST
+     * responses, but without formatting so that each document is written on a
+     * single line.
+     * 
+     * @return
+     */
+    public static JsonbConfig singleLineConfig() {
+        return new JsonbConfig().withPropertyNamingStrategy(PropertyNamingStrategy.LOWER_CASE_WITH_UNDERSCORES);
+    }
+
 }
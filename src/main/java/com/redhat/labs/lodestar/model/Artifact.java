@@ -1,5 +1,7 @@
 package com.redhat.labs.lodestar.model;
 
+import javax.json.bind.annotation.JsonbTransient;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -18,6 +20,10 @@ public class Artifact extends EngagementAttribute {
     private String title;
     private String description;
     private String type;
+    // lowercase type, used for sorting and grouping
+    @JsonbTransient
+    @EqualsAndHashCode.Exclude
+    private String typeLower;
     private String linkAddress;
 
 }
\ No newline at end of file
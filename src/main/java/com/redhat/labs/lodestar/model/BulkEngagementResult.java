@@ -0,0 +1,21 @@
+package com.redhat.labs.lodestar.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkEngagementResult {
+
+    private Integer index;
+    private String uuid;
+    private String customerName;
+    private String projectName;
+    private Integer status;
+    private String message;
+
+}
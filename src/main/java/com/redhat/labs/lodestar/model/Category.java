@@ -1,5 +1,7 @@
 package com.redhat.labs.lodestar.model;
 
+import javax.json.bind.annotation.JsonbTransient;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -14,6 +16,10 @@ import lombok.experimental.SuperBuilder;
 public class Category extends EngagementAttribute {
 
     private String name;
+    // lowercase name, used for grouping
+    @JsonbTransient
+    @EqualsAndHashCode.Exclude
+    private String nameLower;
     private Integer count;
 
 }
\ No newline at end of file
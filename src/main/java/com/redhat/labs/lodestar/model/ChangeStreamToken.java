@@ -0,0 +1,21 @@
+package com.redhat.labs.lodestar.model;
+
+import java.time.LocalDateTime;
+
+import io.quarkus.mongodb.panache.PanacheMongoEntity;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class ChangeStreamToken extends PanacheMongoEntity {
+
+    private String consumer;
+    private String resumeToken;
+    private LocalDateTime lastUpdated;
+
+}
@@ -1,8 +1,11 @@
 package com.redhat.labs.lodestar.model;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.json.bind.annotation.JsonbProperty;
 import javax.json.bind.annotation.JsonbTransient;
@@ -39,6 +42,13 @@ public class Engagement extends PanacheMongoEntityBase {
     @ValidName
     @JsonbProperty("project_name")
     private String projectName;
+    // lowercase customer and project names, used for sorting and grouping
+    @JsonbTransient
+    @EqualsAndHashCode.Exclude
+    private String customerNameLower;
+    @JsonbTransient
+    @EqualsAndHashCode.Exclude
+    private String projectNameLower;
     @JsonbProperty("project_id")
     private Integer projectId;
     private String description;
@@ -63,6 +73,9 @@ public class Engagement extends PanacheMongoEntityBase {
     private String customerContactEmail;
     @JsonbProperty("hosting_environments")
     private List<HostingEnvironment> hostingEnvironments;
+    // lowercase hosting environment subdomains, used for unique lookups
+    @JsonbTransient
+    private List<String> subdomains;
     @JsonbProperty("public_reference")
     private Boolean publicReference;
     @JsonProperty("additional_details")
@@ -142,6 +155,46 @@ public class Engagement extends PanacheMongoEntityBase {
         return EngagementState.ACTIVE;
     }
 
+    /**
+     * Sets the subdomains to the distinct, lowercase subdomains of the hosting
+     * environments. The subdomains are empty if there are no hosting environments.
+     */
+    public void updateSubdomains() {
+
+        if (null == hostingEnvironments) {
+            subdomains = new ArrayList<>();
+            return;
+        }
+
+        subdomains = hostingEnvironments.stream().filter(Objects::nonNull).map(HostingEnvironment::getOcpSubDomain)
+                .filter(sd -> null != sd && !sd.isBlank()).map(String::toLowerCase).distinct()
+                .collect(Collectors.toList());
+
+    }
+
+    /**
+     * Sets the lowercase customer name, project name, category names, and artifact
+     * types from their current values.
+     */
+    public void updateLowercaseFields() {
+
+        customerNameLower = toLowerCase(customerName);
+        projectNameLower = toLowerCase(projectName);
+
+        if (null != categories) {
+            categories.stream().filter(Objects::nonNull).forEach(c -> c.setNameLower(toLowerCase(c.getName())));
+        }
+
+        if (null != artifacts) {
+            artifacts.stream().filter(Objects::nonNull).forEach(a -> a.setTypeLower(toLowerCase(a.getType())));
+        }
+
+    }
+
+    private static String toLowerCase(String value) {
+        return null == value ? null : value.toLowerCase();
+    }
+
     public enum EngagementState {
         // The state ANY can be in any of the other states
         UPCOMING, PAST, TERMINATING, ACTIVE, ANY;
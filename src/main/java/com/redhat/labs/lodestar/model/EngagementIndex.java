@@ -0,0 +1,30 @@
+package com.redhat.labs.lodestar.model;
+
+import java.util.Map;
+
+import javax.json.bind.annotation.JsonbProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EngagementIndex {
+
+    private String name;
+    private Map<String, Object> keys;
+    private boolean unique;
+    @JsonbProperty("partial_filter_expression")
+    private Map<String, Object> partialFilterExpression;
+    private Map<String, Object> collation;
+    private boolean managed;
+    @JsonbProperty("access_count")
+    private Long accessCount;
+    @JsonbProperty("accessed_since")
+    private String accessedSince;
+
+}
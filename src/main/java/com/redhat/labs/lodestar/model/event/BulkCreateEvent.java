@@ -0,0 +1,29 @@
+package com.redhat.labs.lodestar.model.event;
+
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.redhat.labs.lodestar.model.Engagement;
+
+/**
+ * Queue of created {@link Engagement}s waiting to be sent to git.
+ */
+public class BulkCreateEvent {
+
+    private final Queue<Engagement> engagements;
+
+    public BulkCreateEvent(Collection<Engagement> engagements) {
+        this.engagements = new ConcurrentLinkedQueue<>(engagements);
+    }
+
+    /**
+     * Returns the next {@link Engagement} to send to git, or null if none remain.
+     * 
+     * @return
+     */
+    public Engagement next() {
+        return engagements.poll();
+    }
+
+}
@@ -9,6 +9,7 @@ public class EventType {
     public static final String CREATE_ENGAGEMENT_EVENT_ADDRESS = "create.engagement.event";
     public static final String UPDATE_ENGAGEMENT_EVENT_ADDRESS = "update.engagement.event";
     public static final String DELETE_ENGAGEMENT_EVENT_ADDRESS = "delete.engagement.event";
+    public static final String BULK_CREATE_ENGAGEMENT_EVENT_ADDRESS = "bulk.create.engagement.event";
 
     public static final String SET_UUID_EVENT_ADDRESS = "set.uuid.event";
     public static final String RETRY_CREATE_EVENT_ADDRESS = "retry.create.event";
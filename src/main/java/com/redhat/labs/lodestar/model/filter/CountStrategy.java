@@ -0,0 +1,20 @@
+package com.redhat.labs.lodestar.model.filter;
+
+import java.util.Arrays;
+
+public enum CountStrategy {
+    EXACT, ESTIMATED, NONE;
+
+    /**
+     * Returns the {@link CountStrategy} for the given value ignoring case.
+     * Otherwise, returns null.
+     * 
+     * @param value
+     * @return
+     */
+    public static CountStrategy fromString(String value) {
+        return Arrays.asList(CountStrategy.values()).stream().filter(e -> e.name().equalsIgnoreCase(value)).findAny()
+                .orElse(null);
+    }
+
+}
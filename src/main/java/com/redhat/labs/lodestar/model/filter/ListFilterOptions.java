@@ -50,6 +50,18 @@ public class ListFilterOptions extends FilterOptions {
     @QueryParam("perPage")
     private Integer perPage;
 
+    @Parameter(name = "after", required = false, description = "opaque cursor returned in the x-next-cursor header used to resume paging after the last result.  an empty value starts cursor paging from the first result.")
+    @QueryParam("after")
+    private String after;
+
+    @Parameter(name = "count", required = false, description = "how the total count used for paging headers is computed.  valid values are 'exact', 'estimated' or 'none'.  defaults to 'exact'")
+    @QueryParam("count")
+    private CountStrategy countStrategy;
+
+    @Parameter(name = "view", required = false, description = "named set of engagement fields to return.  valid values are 'card', 'summary' or 'full'.  ignored if include or exclude is provided.  defaults to 'full'")
+    @QueryParam("view")
+    private ResponseView view;
+
     @Builder.Default
     private Optional<String> suggestFieldName = Optional.empty();
     @Builder.Default
@@ -79,6 +91,28 @@ public class ListFilterOptions extends FilterOptions {
         return Optional.ofNullable(perPage);
     }
 
+    public Optional<CountStrategy> getCountStrategy() {
+        return Optional.ofNullable(countStrategy);
+    }
+
+    public Optional<ResponseView> getView() {
+        return Optional.ofNullable(view);
+    }
+
+    public Optional<String> getAfter() {
+        return Optional.ofNullable(after).filter(a -> !a.isBlank());
+    }
+
+    /**
+     * Returns true if results should be paged using a cursor instead of a page
+     * number.
+     * 
+     * @return
+     */
+    public boolean isCursorPaging() {
+        return null != after;
+    }
+
     /**
      * Returns a {@link List} containing the fields specified in sort fields
      * attribute. If not provided, `customer_name,project_name` is used.
@@ -0,0 +1,53 @@
+package com.redhat.labs.lodestar.model.filter;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Server defined sets of engagement fields returned by the list endpoints.
+ * Each view either includes only the listed fields or excludes the listed
+ * fields. {@link #FULL} returns every field.
+ */
+public enum ResponseView {
+
+    CARD(true, List.of("uuid", "customerName", "projectName", "projectId", "type", "region", "description", "location",
+            "startDate", "endDate", "archiveDate", "launch", "status.status", "lastUpdate")),
+    SUMMARY(false, List.of("commits", "engagementUsers", "status.messages", "status.subsystems",
+            "hostingEnvironments", "artifacts", "scores")),
+    FULL(false, List.of());
+
+    private final boolean include;
+    private final List<String> fields;
+
+    ResponseView(boolean include, List<String> fields) {
+        this.include = include;
+        this.fields = fields;
+    }
+
+    /**
+     * Returns true if only the view fields are returned. Returns false if the view
+     * fields are removed.
+     *
+     * @return
+     */
+    public boolean isInclude() {
+        return include;
+    }
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * Returns the {@link ResponseView} for the given value ignoring case.
+     * Otherwise, returns null.
+     *
+     * @param value
+     * @return
+     */
+    public static ResponseView fromString(String value) {
+        return Arrays.asList(ResponseView.values()).stream().filter(e -> e.name().equalsIgnoreCase(value)).findAny()
+                .orElse(null);
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.redhat.labs.lodestar.model.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import javax.ws.rs.WebApplicationException;
+
+import org.bson.Document;
+import org.bson.json.JsonParseException;
+
+import com.redhat.labs.lodestar.util.ClassFieldUtils;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Opaque token containing the sort key values of the last result returned in a
+ * page. The values are in the same order as the sort fields used to create the
+ * page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageCursor {
+
+    private static final String VALUES = "v";
+
+    @Builder.Default
+    private List<Object> values = new ArrayList<>();
+
+    /**
+     * Returns the URL safe Base64 encoded representation of this cursor.
+     *
+     * @return
+     */
+    public String encode() {
+
+        String json = new Document(VALUES, values).toJson();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+
+    }
+
+    /**
+     * Returns the {@link PageCursor} for the given encoded token. A
+     * {@link WebApplicationException} is thrown if the token cannot be decoded.
+     *
+     * @param token
+     * @return
+     */
+    public static PageCursor decode(String token) {
+
+        try {
+
+            String json = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            List<Object> values = Document.parse(json).getList(VALUES, Object.class);
+
+            if (null == values) {
+                throw new WebApplicationException("invalid cursor " + token, 400);
+            }
+
+            return PageCursor.builder().values(values).build();
+
+        } catch (IllegalArgumentException | JsonParseException | ClassCastException e) {
+            throw new WebApplicationException("invalid cursor " + token, 400);
+        }
+
+    }
+
+    /**
+     * Creates a {@link PageCursor} using the values of the given field names from
+     * the result. Only {@link String}, {@link Number}, and {@link Boolean} values
+     * can be used in a cursor.
+     *
+     * @param result
+     * @param fieldNames
+     * @return
+     */
+    public static PageCursor fromResult(Object result, List<String> fieldNames) {
+
+        List<Object> values = new ArrayList<>();
+
+        for (String fieldName : fieldNames) {
+
+            Object value = ClassFieldUtils.getFieldValue(result, fieldName);
+            if (null != value && !(value instanceof String || value instanceof Number || value instanceof Boolean)) {
+                throw new WebApplicationException("cannot use cursor paging when sorting on field " + fieldName, 400);
+            }
+
+            values.add(value);
+
+        }
+
+        return PageCursor.builder().values(values).build();
+
+    }
+
+}
@@ -38,6 +38,9 @@ public class PagedResults<T> {
     private static final String LAST = "last";
     private static final String LAST_PAGE_HEADER = String.format(PAGE_HEADER_FORMAT, LAST);
 
+    private static final String AFTER = "after";
+    private static final String NEXT_CURSOR_HEADER = "x-next-cursor";
+
     @Builder.Default
     private Integer totalCount = 0;
 
@@ -47,7 +50,11 @@ public class PagedResults<T> {
     private Integer perPage = 20;
 
     @Builder.Default
-    private Map<String, Map<String, Integer>> linkHeaders = new HashMap<>();
+    private boolean cursorPaged = false;
+    private String nextCursor;
+
+    @Builder.Default
+    private Map<String, Map<String, Object>> linkHeaders = new HashMap<>();
     @Builder.Default
     private Map<String, Object> headers = new HashMap<>();
     
@@ -84,7 +91,7 @@ public class PagedResults<T> {
         List<Link> links = linkHeaders.entrySet().stream().map(e1 -> {
 
             String rel = e1.getKey();
-            Map<String, Integer> headerMap = e1.getValue();
+            Map<String, Object> headerMap = e1.getValue();
 
             javax.ws.rs.core.Link.Builder builder = Link.fromUriBuilder(uriBuilder).rel(rel);
             headerMap.entrySet().forEach(e2 -> builder.param(e2.getKey(), String.valueOf(e2.getValue())));
@@ -98,7 +105,9 @@ public class PagedResults<T> {
     }
 
     /**
-     * Sets the Headers for the relations CURRENT, FIRST, LAST, and NEXT.
+     * Sets the Headers for the relations CURRENT, FIRST, LAST, and NEXT. If the
+     * results were paged using a cursor, only the NEXT relation is set. If the
+     * total count is unknown, the LAST relation is not set.
      */
     private void setHeadersForRelations() {
 
@@ -106,12 +115,26 @@ public class PagedResults<T> {
             headers = new HashMap<>();
         }
 
+        if (cursorPaged) {
+            setHeadersForCursor();
+            return;
+        }
+
         // current page
         setHeadersForRelation(CURRENT, CURRENT_PAGE_HEADER, currentPage);
 
         // first page set to 1
         setHeadersForRelation(FIRST, FIRST_PAGE_HEADER, 1);
 
+        // total not counted, set next if current page is full
+        if (null == totalCount) {
+            if (null != results && results.size() >= perPage) {
+                setHeadersForRelation(NEXT, NEXT_PAGE_HEADER, currentPage + 1);
+            }
+            headers.put(PER_PAGE_HEADER, perPage);
+            return;
+        }
+
         // last page set to total / per page rounded up
         int totalPages = totalCount == 0 ? 1 : (int) Math.ceil((double) totalCount / perPage);
         setHeadersForRelation(LAST, LAST_PAGE_HEADER, totalPages);
@@ -140,4 +163,19 @@ public class PagedResults<T> {
 
     }
 
+    /**
+     * Sets the per page header and, if more results are available, the next
+     * cursor header and the NEXT relation containing the cursor to resume from.
+     */
+    private void setHeadersForCursor() {
+
+        if (null != nextCursor) {
+            headers.put(NEXT_CURSOR_HEADER, nextCursor);
+            linkHeaders.put(NEXT, Map.of(AFTER, nextCursor, PER_PAGE, perPage));
+        }
+
+        headers.put(PER_PAGE_HEADER, perPage);
+
+    }
+
 }
@@ -0,0 +1,59 @@
+package com.redhat.labs.lodestar.repository;
+
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Updates.combine;
+import static com.mongodb.client.model.Updates.set;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import org.bson.BsonDocument;
+
+import com.mongodb.client.model.UpdateOptions;
+import com.redhat.labs.lodestar.model.ChangeStreamToken;
+
+import io.quarkus.mongodb.panache.PanacheMongoRepository;
+
+@ApplicationScoped
+public class ChangeStreamTokenRepository implements PanacheMongoRepository<ChangeStreamToken> {
+
+    private static final String CONSUMER = "consumer";
+    private static final String RESUME_TOKEN = "resumeToken";
+    private static final String LAST_UPDATED = "lastUpdated";
+
+    /**
+     * Returns an {@link Optional} containing the last resume token saved by the
+     * consumer.
+     * 
+     * @param consumer
+     * @return
+     */
+    public Optional<BsonDocument> findResumeToken(String consumer) {
+        return find(CONSUMER, consumer).firstResultOptional().map(ChangeStreamToken::getResumeToken)
+                .map(BsonDocument::parse);
+    }
+
+    /**
+     * Saves the resume token for the consumer, replacing any saved before.
+     * 
+     * @param consumer
+     * @param resumeToken
+     */
+    public void saveResumeToken(String consumer, BsonDocument resumeToken) {
+        mongoCollection().updateOne(eq(CONSUMER, consumer),
+                combine(set(RESUME_TOKEN, resumeToken.toJson()), set(LAST_UPDATED, LocalDateTime.now())),
+                new UpdateOptions().upsert(true));
+    }
+
+    /**
+     * Removes the resume token saved by the consumer.
+     * 
+     * @param consumer
+     */
+    public void deleteResumeToken(String consumer) {
+        delete(CONSUMER, consumer);
+    }
+
+}
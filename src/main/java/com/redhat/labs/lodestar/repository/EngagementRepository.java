@@ -2,45 +2,72 @@ package com.redhat.labs.lodestar.repository;
 
 import static com.mongodb.client.model.Filters.and;
 import static com.mongodb.client.model.Filters.eq;
-import static com.mongodb.client.model.Filters.regex;
+import static com.mongodb.client.model.Filters.exists;
+import static com.mongodb.client.model.Filters.in;
+import static com.mongodb.client.model.Filters.ne;
+import static com.mongodb.client.model.Filters.or;
 import static com.mongodb.client.model.Projections.exclude;
 import static com.mongodb.client.model.Projections.include;
 import static com.mongodb.client.model.Updates.set;
 import static com.mongodb.client.model.Updates.combine;
 
-import java.util.Arrays;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
+import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.bson.Document;
 import org.bson.conversions.Bson;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.annotation.Gauge;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
 import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.InsertOneModel;
 import com.mongodb.client.model.ReturnDocument;
+import com.redhat.labs.lodestar.cache.EngagementChangeTracker;
+import com.redhat.labs.lodestar.cache.LruCache;
 import com.redhat.labs.lodestar.model.Artifact;
 import com.redhat.labs.lodestar.model.Category;
 import com.redhat.labs.lodestar.model.Commit;
 import com.redhat.labs.lodestar.model.Engagement;
+import com.redhat.labs.lodestar.model.Engagement.EngagementState;
 import com.redhat.labs.lodestar.model.EngagementUserSummary;
 import com.redhat.labs.lodestar.model.HostingEnvironment;
 import com.redhat.labs.lodestar.model.Score;
 import com.redhat.labs.lodestar.model.Status;
 import com.redhat.labs.lodestar.model.UseCase;
+import com.redhat.labs.lodestar.model.filter.CountStrategy;
 import com.redhat.labs.lodestar.model.filter.FilterOptions;
 import com.redhat.labs.lodestar.model.filter.ListFilterOptions;
+import com.redhat.labs.lodestar.model.pagination.PageCursor;
 import com.redhat.labs.lodestar.model.pagination.PagedArtifactResults;
 import com.redhat.labs.lodestar.model.pagination.PagedCategoryResults;
 import com.redhat.labs.lodestar.model.pagination.PagedEngagementResults;
 import com.redhat.labs.lodestar.model.pagination.PagedHostingEnvironmentResults;
+import com.redhat.labs.lodestar.model.pagination.PagedResults;
 import com.redhat.labs.lodestar.model.pagination.PagedScoreResults;
 import com.redhat.labs.lodestar.model.pagination.PagedStringResults;
 import com.redhat.labs.lodestar.model.pagination.PagedUseCaseResults;
@@ -59,10 +86,56 @@ public class EngagementRepository implements PanacheMongoRepository<Engagement>
     private static final String TYPE = "type";
     private static final String ARTIFACTS = "artifacts";
     private static final String ARTIFACTS_TYPE = new StringBuilder(ARTIFACTS).append(".").append(TYPE).toString();
+    private static final String ARTIFACTS_TYPE_LOWER = new StringBuilder(ARTIFACTS_TYPE).append("Lower").toString();
     private static final String COUNT = "count";
+    private static final String MONGO_ID = "_id";
+    private static final String UUID = "uuid";
+    private static final String SUBDOMAINS = "subdomains";
+    private static final String CUSTOMER_NAME_LOWER = "customerNameLower";
+    private static final String PROJECT_NAME_LOWER = "projectNameLower";
+    private static final String HOSTING_ENVIRONMENTS = "hostingEnvironments";
+    private static final String HOSTING_ENVIRONMENTS_SUBDOMAIN = new StringBuilder(HOSTING_ENVIRONMENTS).append(".")
+            .append("ocpSubDomain").toString();
+
+    /*
+     * Fields converted from a Set, whose array order does not identify an element
+     */
+    private static final Set<String> UNORDERED_FIELDS = Stream.of(FieldUtils.getAllFields(Engagement.class))
+            .filter(f -> Set.class.isAssignableFrom(f.getType())).map(Field::getName).collect(Collectors.toSet());
+
+    @ConfigProperty(name = "engagement.count.cache.size", defaultValue = "500")
+    int countCacheSize;
+
+    @ConfigProperty(name = "engagement.search.plan.cache.size", defaultValue = "200")
+    int planCacheSize;
+
+    @ConfigProperty(name = "engagement.export.batch.size", defaultValue = "100")
+    int exportBatchSize;
+
+    @Inject
+    EngagementChangeTracker changeTracker;
 
     private ObjectMapper objectMapper = new ObjectMapper();
 
+    private LruCache<String, Integer> countCache;
+    private LruCache<String, SearchPlan> planCache;
+
+    @PostConstruct
+    void init() {
+        countCache = new LruCache<>(countCacheSize);
+        planCache = new LruCache<>(planCacheSize);
+    }
+
+    @Gauge(name = "search-plan-cache-hits", unit = MetricUnits.NONE, description = "Search plan cache hits")
+    public long getSearchPlanCacheHits() {
+        return planCache.getHits();
+    }
+
+    @Gauge(name = "search-plan-cache-misses", unit = MetricUnits.NONE, description = "Search plan cache misses")
+    public long getSearchPlanCacheMisses() {
+        return planCache.getMisses();
+    }
+
     /*
      * 
      * SET Methods
@@ -88,6 +161,40 @@ public class EngagementRepository implements PanacheMongoRepository<Engagement>
 
     }
 
+    /**
+     * Inserts the {@link Engagement}s with a single unordered bulk write, so that
+     * a failed insert does not stop the others. Returns the {@link BulkWriteError}
+     * for each failed insert, with the index of the {@link Engagement} in the
+     * given {@link List}. An empty {@link List} is returned if all were inserted.
+     * 
+     * @param engagements
+     * @return
+     */
+    public List<BulkWriteError> insertAll(List<Engagement> engagements) {
+
+        if (engagements.isEmpty()) {
+            return List.of();
+        }
+
+        List<InsertOneModel<Engagement>> inserts = engagements.stream().map(InsertOneModel::new)
+                .collect(Collectors.toList());
+
+        try {
+            mongoCollection().bulkWrite(inserts, new BulkWriteOptions().ordered(false));
+            return List.of();
+        } catch (MongoBulkWriteException e) {
+
+            // inserts may not be durable, fail all
+            if (null != e.getWriteConcernError()) {
+                throw e;
+            }
+
+            return e.getWriteErrors();
+
+        }
+
+    }
+
     /**
      * Sets the {@link Status} for the given UUID.
      * 
@@ -133,10 +240,27 @@ public class EngagementRepository implements PanacheMongoRepository<Engagement>
      * @return
      */
     public Optional<Engagement> updateEngagement(Engagement toUpdate, String lastUpdate) {
+        return updateEngagement(toUpdate, null, lastUpdate);
+    }
+
+    /**
+     * Returns an {@link Optional} containing the updated {@link Engagement} where
+     * last update matched. Otherwise, returns an empty {@link Optional}
+     * 
+     * Only the fields that differ from the existing {@link Engagement} are
+     * written. If no existing {@link Engagement} is provided, all fields are
+     * written.
+     * 
+     * @param toUpdate
+     * @param existing   the {@link Engagement} as last read, or null
+     * @param lastUpdate
+     * @return
+     */
+    public Optional<Engagement> updateEngagement(Engagement toUpdate, Engagement existing, String lastUpdate) {
 
         // create the bson for filter and update
         Bson filter = createFilterForEngagement(toUpdate, lastUpdate);
-        Bson update = createUpdateDocument(toUpdate);
+        Bson update = createUpdateDocument(toUpdate, existing);
 
         FindOneAndUpdateOptions optionAfter = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER);
 
@@ -161,19 +285,154 @@ public class EngagementRepository implements PanacheMongoRepository<Engagement>
         return findBySubdomain(subdomain, Optional.empty());
     }
 
+    /**
+     * Returns Optional containing an {@link Engagement} that matches the provided
+     * subdomain, ignoring case. If the engagement UUID is provided, the
+     * {@link Engagement} must also have the UUID.
+     * 
+     * @param subdomain
+     * @param engagementUuid
+     * @return
+     */
     public Optional<Engagement> findBySubdomain(String subdomain, Optional<String> engagementUuid) {
 
-        String regex = new StringBuilder("^").append(subdomain).append("$").toString();
-        Bson filter = regex("hostingEnvironments.ocpSubDomain", regex, "im");
+        Bson filter = eq(SUBDOMAINS, subdomain.toLowerCase());
 
         if (engagementUuid.isPresent()) {
-            filter = and(filter, eq("uuid", engagementUuid.get()));
+            filter = and(filter, eq(UUID, engagementUuid.get()));
         }
 
         return Optional.ofNullable(mongoCollection().find(filter).first());
 
     }
 
+    /**
+     * Returns the {@link Set} of the given subdomains, in lowercase, that are used
+     * by an {@link Engagement}, ignoring case. If the engagement UUID is provided,
+     * subdomains used by the {@link Engagement} with that UUID are ignored. All
+     * subdomains are checked with a single query.
+     * 
+     * @param subdomains
+     * @param engagementUuid
+     * @return
+     */
+    public Set<String> findSubdomainsInUse(Collection<String> subdomains, Optional<String> engagementUuid) {
+
+        Set<String> requested = subdomains.stream().map(String::toLowerCase).collect(Collectors.toSet());
+        if (requested.isEmpty()) {
+            return requested;
+        }
+
+        Bson filter = in(SUBDOMAINS, requested);
+
+        if (engagementUuid.isPresent()) {
+            filter = and(filter, ne(UUID, engagementUuid.get()));
+        }
+
+        Set<String> inUse = new HashSet<>();
+        mongoCollection().find(filter).projection(include(SUBDOMAINS))
+                .forEach(e -> e.getSubdomains().stream().filter(requested::contains).forEach(inUse::add));
+
+        return inUse;
+
+    }
+
+    /**
+     * Returns a {@link List} of all {@link Engagement}s that have a hosting
+     * environment subdomain. Only the UUID and hosting environment subdomains are
+     * returned.
+     * 
+     * @return
+     */
+    public List<Engagement> findAllSubdomains() {
+        return mongoCollection().find(exists(HOSTING_ENVIRONMENTS_SUBDOMAIN))
+                .projection(include(UUID, HOSTING_ENVIRONMENTS_SUBDOMAIN)).into(new ArrayList<>());
+    }
+
+    /**
+     * Returns all {@link Engagement}s with only the document id, UUID, customer
+     * name, and project name populated.
+     *
+     * @return
+     */
+    public List<Engagement> findAllIdentities() {
+        return mongoCollection().find().projection(include(UUID, CUSTOMER_NAME, PROJECT_NAME))
+                .into(new ArrayList<>());
+    }
+
+    /**
+     * Returns all {@link Engagement}s with only the fields used for suggestions
+     * populated.
+     *
+     * @return
+     */
+    public List<Engagement> findAllFacetFields() {
+        return mongoCollection().find()
+                .projection(include(UUID, CUSTOMER_NAME, PROJECT_NAME, CATEGORIES_NAME, ARTIFACTS_TYPE))
+                .into(new ArrayList<>());
+    }
+
+    /**
+     * Sets the lowercase subdomains on each {@link Engagement} persisted before
+     * the subdomains were maintained on write.
+     * 
+     * @return the number of {@link Engagement}s updated
+     */
+    public long setMissingSubdomains() {
+
+        long count = 0;
+
+        for (Engagement engagement : mongoCollection().find(eq(SUBDOMAINS, null))
+                .projection(include(HOSTING_ENVIRONMENTS))) {
+
+            engagement.updateSubdomains();
+            count += mongoCollection()
+                    .updateOne(eq(MONGO_ID, engagement.getMongoId()), set(SUBDOMAINS, engagement.getSubdomains()))
+                    .getModifiedCount();
+
+        }
+
+        return count;
+
+    }
+
+    /**
+     * Sets the lowercase customer name, project name, category names, and artifact
+     * types on each {@link Engagement} persisted before the lowercase fields were
+     * maintained on write.
+     * 
+     * @return the number of {@link Engagement}s updated
+     */
+    public long setMissingLowercaseFields() {
+
+        long count = 0;
+
+        for (Engagement engagement : mongoCollection().find(eq(CUSTOMER_NAME_LOWER, null))
+                .projection(include(CUSTOMER_NAME, PROJECT_NAME, CATEGORIES, ARTIFACTS))) {
+
+            engagement.updateLowercaseFields();
+
+            List<Bson> updates = new ArrayList<>();
+            updates.add(set(CUSTOMER_NAME_LOWER, engagement.getCustomerNameLower()));
+            updates.add(set(PROJECT_NAME_LOWER, engagement.getProjectNameLower()));
+
+            if (null != engagement.getCategories()) {
+                updates.add(set(CATEGORIES, engagement.getCategories()));
+            }
+
+            if (null != engagement.getArtifacts()) {
+                updates.add(set(ARTIFACTS, engagement.getArtifacts()));
+            }
+
+            count += mongoCollection().updateOne(eq(MONGO_ID, engagement.getMongoId()), combine(updates))
+                    .getModifiedCount();
+
+        }
+
+        return count;
+
+    }
+
     /**
      * Returns an {@link Optional} containing the {@link Engagement} with the UUID.
      * Otherwise, an empty {@link Optional} is returned.
@@ -201,6 +460,41 @@ public class EngagementRepository implements PanacheMongoRepository<Engagement>
         return Optional.ofNullable(find(Optional.of(bson), filterOptions).first());
     }
 
+    /**
+     * Returns a {@link List} of the {@link Engagement}s with any of the given
+     * UUIDs using a single query. UUIDs that do not match an {@link Engagement}
+     * are ignored.
+     * 
+     * If FilterOptions is provided, the associated projection will be used. The
+     * UUID is always returned so results can be matched to the request.
+     * 
+     * @param uuids
+     * @param filterOptions
+     * @return
+     */
+    public List<Engagement> findByUuids(Collection<String> uuids, FilterOptions filterOptions) {
+
+        FindIterable<Engagement> iterable = getFindIterable(Optional.of(in(UUID, uuids)));
+
+        Optional<Set<String>> includeSet = filterOptions.getIncludeList();
+        Optional<Set<String>> excludeSet = filterOptions.getExcludeList();
+
+        if (includeSet.isPresent()) {
+            Set<String> fields = new HashSet<>(includeSet.get());
+            fields.add(UUID);
+            iterable.projection(include(List.copyOf(fields)));
+        } else if (excludeSet.isPresent()) {
+            Set<String> fields = new HashSet<>(excludeSet.get());
+            fields.remove(UUID);
+            if (!fields.isEmpty()) {
+                iterable.projection(exclude(List.copyOf(fields)));
+            }
+        }
+
+        return iterable.into(new ArrayList<>());
+
+    }
+
     /**
      * Returns an {@link Optional} containing the {@link Engagement} with the
      * customer and project names. Otherwise, an empty {@link Optional} is returned.
@@ -231,6 +525,90 @@ public class EngagementRepository implements PanacheMongoRepository<Engagement>
         return Optional.ofNullable(find(Optional.of(bson), filterOptions).first());
     }
 
+    /**
+     * Returns a {@link List} of the {@link Engagement}s with the customer and
+     * project names of any of the given {@link Engagement}s using a single query.
+     * Only the customer and project names are returned.
+     * 
+     * @param engagements
+     * @return
+     */
+    public List<Engagement> findByCustomerAndProjectNames(Collection<Engagement> engagements) {
+
+        List<Bson> names = engagements.stream().map(e -> List.of(e.getCustomerName(), e.getProjectName()))
+                .distinct().map(n -> and(eq(CUSTOMER_NAME, n.get(0)), eq(PROJECT_NAME, n.get(1))))
+                .collect(Collectors.toList());
+
+        if (names.isEmpty()) {
+            return List.of();
+        }
+
+        return mongoCollection().find(or(names)).projection(include(CUSTOMER_NAME, PROJECT_NAME))
+                .into(new ArrayList<>());
+
+    }
+
+    /**
+     * Returns the {@link EngagementStateCounts} at the given time, formatted as
+     * stored. The {@link EngagementState#ANY} count is the total number of
+     * engagements. States without any engagements are not included.
+     * 
+     * @param time
+     * @return
+     */
+    public EngagementStateCounts findEngagementStateCounts(String time) {
+
+        Map<EngagementState, Integer> counts = new EnumMap<>(EngagementState.class);
+        List<String> lowerBoundaries = new ArrayList<>();
+        List<String> upperBoundaries = new ArrayList<>();
+        int total = 0;
+
+        for (Document result : mongoCollection()
+                .aggregate(MongoAggregationHelper.generateEngagementStatePipeline(time), Document.class)) {
+
+            int count = result.getInteger(COUNT);
+            counts.put(EngagementState.valueOf(result.getString(MONGO_ID)), count);
+            total += count;
+
+            lowerBoundaries.add(result.getString(MongoAggregationHelper.STATE_LOWER_END_DATE));
+            lowerBoundaries.add(result.getString(MongoAggregationHelper.STATE_LOWER_ARCHIVE_DATE));
+            upperBoundaries.add(result.getString(MongoAggregationHelper.STATE_UPPER_END_DATE));
+            upperBoundaries.add(result.getString(MongoAggregationHelper.STATE_UPPER_ARCHIVE_DATE));
+
+        }
+
+        counts.put(EngagementState.ANY, total);
+
+        return EngagementStateCounts.builder().time(time).counts(counts)
+                .lowerBoundary(lowerBoundaries.stream().filter(Objects::nonNull).max(String::compareTo).orElse(null))
+                .upperBoundary(upperBoundaries.stream().filter(Objects::nonNull).min(String::compareTo).orElse(null))
+                .build();
+
+    }
+
+    /**
+     * Passes each {@link Engagement} matching the search in the
+     * {@link ListFilterOptions} to the consumer as it is read from the data store.
+     * The include, exclude, view, and sort options are applied. Paging options are
+     * ignored. The cursor is closed if the consumer throws an exception.
+     * 
+     * @param filterOptions
+     * @param consumer
+     */
+    public void streamEngagements(ListFilterOptions filterOptions, Consumer<Engagement> consumer) {
+
+        Optional<Bson> filter = MongoAggregationHelper.getSearchFilter(filterOptions.getSearch());
+        FindIterable<Engagement> iterable = getFindIterable(filter).sort(MongoAggregationHelper.getSort(filterOptions))
+                .batchSize(exportBatchSize);
+
+        MongoAggregationHelper.fieldProjection(filterOptions).ifPresent(iterable::projection);
+
+        try (MongoCursor<Engagement> cursor = iterable.iterator()) {
+            cursor.forEachRemaining(consumer);
+        }
+
+    }
+
     /*
      * 
      * GET List<Engagement> Methods
@@ -246,13 +624,13 @@ public class EngagementRepository implements PanacheMongoRepository<Engagement>
      */
     public PagedEngagementResults findPagedEngagements(ListFilterOptions filterOptions) {
 
-        List<Bson> pipeline = MongoAggregationHelper.generatePagedAggregationPipeline(filterOptions);
-        Optional<PagedEngagementResults> optional = findFirstFromIterable(
-                mongoCollection().aggregate(pipeline, PagedEngagementResults.class));
-        PagedEngagementResults page = optional.orElse(PagedEngagementResults.builder().build());
+        SearchPlan plan = getSearchPlan(filterOptions);
 
-        page.setCurrentPage(filterOptions.getPage().orElse(1));
-        page.setPerPage(filterOptions.getPerPage().orElse(20));
+        PagedEngagementResults page = PagedEngagementResults.builder()
+                .results(findResults(plan.getQuery(), filterOptions, Engagement.class))
+                .totalCount(countResults(plan, filterOptions)).build();
+
+        setPaging(page, filterOptions);
 
         return page;
 
@@ -275,24 +653,18 @@ public class EngagementRepository implements PanacheMongoRepository<Engagement>
         // set options for group by and sort
         filterOptions.setInclude(CUSTOMER_NAME);
         filterOptions.setGroupByFieldName(Optional.of(CUSTOMER_NAME));
-        filterOptions.setSortFields(MongoAggregationHelper.getLowercaseFieldName("customer_name"));
+        filterOptions.setSortFields(MongoAggregationHelper.getPersistedLowercaseFieldName(CUSTOMER_NAME));
 
-        List<Bson> pipeline = MongoAggregationHelper.generatePagedAggregationPipeline(filterOptions);
-
-        Optional<PagedEngagementResults> optional = findFirstFromIterable(
-                mongoCollection().aggregate(pipeline, PagedEngagementResults.class));
-        PagedEngagementResults engagementResults = optional
-                .orElse(PagedEngagementResults.builder().results(Arrays.asList()).build());
+        SearchPlan plan = getSearchPlan(filterOptions);
 
         // get customer names from results
-        List<String> customerNames = engagementResults.getResults().stream().map(Engagement::getCustomerName)
-                .collect(Collectors.toList());
+        List<String> customerNames = findResults(plan.getQuery(), filterOptions, Engagement.class).stream()
+                .map(Engagement::getCustomerName).collect(Collectors.toList());
 
-        PagedStringResults results = PagedStringResults.builder().totalCount(engagementResults.getTotalCount())
+        PagedStringResults results = PagedStringResults.builder().totalCount(countResults(plan, filterOptions))
                 .results(customerNames).build();
 
-        results.setCurrentPage(filterOptions.getPage().orElse(1));
-        results.setPerPage(filterOptions.getPerPage().orElse(20));
+        setPaging(results, filterOptions);
 
         return results;
 
@@ -311,14 +683,13 @@ public class EngagementRepository implements PanacheMongoRepository<Engagement>
         filterOptions.setGroupByFieldName(Optional.of(CATEGORIES_NAME));
         filterOptions.setSortFields(COUNT);
 
-        List<Bson> pipeline = MongoAggregationHelper.generatePagedAggregationPipeline(filterOptions);
+        SearchPlan plan = getSearchPlan(filterOptions);
 
-        Optional<PagedCategoryResults> optional = findFirstFromIterable(
-                mongoCollection().aggregate(pipeline, PagedCategoryResults.class));
-        PagedCategoryResults page = optional.orElse(PagedCategoryResults.builder().results(Arrays.asList()).build());
+        PagedCategoryResults page = PagedCategoryResults.builder()
+                .results(findResults(plan.getQuery(), filterOptions, Category.class))
+                .totalCount(countResults(plan, filterOptions)).build();
 
-        page.setCurrentPage(filterOptions.getPage().orElse(1));
-        page.setPerPage(filterOptions.getPerPage().orElse(20));
+        setPaging(page, filterOptions);
 
         return page;
 
@@ -337,14 +708,13 @@ public class EngagementRepository implements PanacheMongoRepository<Engagement>
         filterOptions.setUnwindProjectFieldNames(Optional
                 .of(ClassFieldUtils.classFieldNamesAsCommaSeparatedString(Artifact.class, Optional.of(ARTIFACTS))));
 
-        List<Bson> pipeline = MongoAggregationHelper.generatePagedAggregationPipeline(filterOptions);
-        Optional<PagedArtifactResults> optional = findFirstFromIterable(
-                mongoCollection().aggregate(pipeline, PagedArtifactResults.class));
+        SearchPlan plan = getSearchPlan(filterOptions);
 
-        PagedArtifactResults results = optional.orElse(PagedArtifactResults.builder().results(Arrays.asList()).build());
+        PagedArtifactResults results = PagedArtifactResults.builder()
+                .results(findResults(plan.getQuery(), filterOptions, Artifact.class))
+                .totalCount(countResults(plan, filterOptions)).build();
 
-        results.setCurrentPage(filterOptions.getPage().orElse(1));
-        results.setPerPage(filterOptions.getPerPage().orElse(20));
+        setPaging(results, filterOptions);
 
         return results;
 
@@ -360,9 +730,9 @@ public class EngagementRepository implements PanacheMongoRepository<Engagement>
     public PagedStringResults findArtifactTypes(ListFilterOptions filterOptions) {
 
         filterOptions.setUnwindFieldName(Optional.of(ARTIFACTS));
-        filterOptions.setUnwindProjectFieldNames(Optional.of(ARTIFACTS_TYPE));
+        filterOptions.setUnwindProjectFieldNames(Optional.of(String.join(",", ARTIFACTS_TYPE, ARTIFACTS_TYPE_LOWER)));
         filterOptions.setGroupByFieldName(Optional.of(TYPE));
-        filterOptions.setSortFields(TYPE);
+        filterOptions.setSortFields(MongoAggregationHelper.getPersistedLowercaseFieldName(TYPE));
 
         // get paged artifact results
         PagedArtifactResults artifactResults = findArtifacts(filterOptions);
@@ -375,8 +745,7 @@ public class EngagementRepository implements PanacheMongoRepository<Engagement>
         PagedStringResults results = PagedStringResults.builder().totalCount(artifactResults.getTotalCount())
                 .results(customerNames).build();
 
-        results.setCurrentPage(filterOptions.getPage().orElse(1));
-        results.setPerPage(filterOptions.getPerPage().orElse(20));
+        setPaging(results, filterOptions);
 
         return results;
 
@@ -395,14 +764,13 @@ public class EngagementRepository implements PanacheMongoRepository<Engagement>
         filterOptions.setUnwindProjectFieldNames(
                 Optional.of(ClassFieldUtils.classFieldNamesAsCommaSeparatedString(Score.class, Optional.of("scores"))));
 
-        List<Bson> pipeline = MongoAggregationHelper.generatePagedAggregationPipeline(filterOptions);
-        Optional<PagedScoreResults> optional = findFirstFromIterable(
-                mongoCollection().aggregate(pipeline, PagedScoreResults.class));
+        SearchPlan plan = getSearchPlan(filterOptions);
 
-        PagedScoreResults results = optional.orElse(PagedScoreResults.builder().results(Arrays.asList()).build());
+        PagedScoreResults results = PagedScoreResults.builder()
+                .results(findResults(plan.getQuery(), filterOptions, Score.class))
+                .totalCount(countResults(plan, filterOptions)).build();
 
-        results.setCurrentPage(filterOptions.getPage().orElse(1));
-        results.setPerPage(filterOptions.getPerPage().orElse(20));
+        setPaging(results, filterOptions);
 
         return results;
 
@@ -421,15 +789,13 @@ public class EngagementRepository implements PanacheMongoRepository<Engagement>
         filterOptions.setUnwindProjectFieldNames(Optional.of(ClassFieldUtils
                 .classFieldNamesAsCommaSeparatedString(HostingEnvironment.class, Optional.of("hostingEnvironments"))));
 
-        List<Bson> pipeline = MongoAggregationHelper.generatePagedAggregationPipeline(filterOptions);
-        Optional<PagedHostingEnvironmentResults> optional = findFirstFromIterable(
-                mongoCollection().aggregate(pipeline, PagedHostingEnvironmentResults.class));
+        SearchPlan plan = getSearchPlan(filterOptions);
 
-        PagedHostingEnvironmentResults results = optional
-                .orElse(PagedHostingEnvironmentResults.builder().results(Arrays.asList()).build());
+        PagedHostingEnvironmentResults results = PagedHostingEnvironmentResults.builder()
+                .results(findResults(plan.getQuery(), filterOptions, HostingEnvironment.class))
+                .totalCount(countResults(plan, filterOptions)).build();
 
-        results.setCurrentPage(filterOptions.getPage().orElse(1));
-        results.setPerPage(filterOptions.getPerPage().orElse(20));
+        setPaging(results, filterOptions);
 
         return results;
 
@@ -448,14 +814,13 @@ public class EngagementRepository implements PanacheMongoRepository<Engagement>
         filterOptions.setUnwindProjectFieldNames(Optional
                 .of(ClassFieldUtils.classFieldNamesAsCommaSeparatedString(UseCase.class, Optional.of("useCases"))));
 
-        List<Bson> pipeline = MongoAggregationHelper.generatePagedAggregationPipeline(filterOptions);
-        Optional<PagedUseCaseResults> optional = findFirstFromIterable(
-                mongoCollection().aggregate(pipeline, PagedUseCaseResults.class));
+        SearchPlan plan = getSearchPlan(filterOptions);
 
-        PagedUseCaseResults results = optional.orElse(PagedUseCaseResults.builder().results(Arrays.asList()).build());
+        PagedUseCaseResults results = PagedUseCaseResults.builder()
+                .results(findResults(plan.getQuery(), filterOptions, UseCase.class))
+                .totalCount(countResults(plan, filterOptions)).build();
 
-        results.setCurrentPage(filterOptions.getPage().orElse(1));
-        results.setPerPage(filterOptions.getPerPage().orElse(20));
+        setPaging(results, filterOptions);
 
         return results;
 
@@ -503,34 +868,29 @@ public class EngagementRepository implements PanacheMongoRepository<Engagement>
 
     /**
      * Returns a {@link Bson} containing the fields to be updated for a given
-     * {@link Engagement}.
+     * {@link Engagement}. Only the fields that differ from the existing
+     * {@link Engagement} are included. Set fields are written as a whole.
      * 
      * @param engagement
+     * @param existing
      * @return
      */
-    private Bson createUpdateDocument(Engagement engagement) {
-
-        Bson updates = null;
+    private Bson createUpdateDocument(Engagement engagement, Engagement existing) {
 
         // convert to map
         TypeReference<Map<String, Object>> typeRef = new TypeReference<Map<String, Object>>() {
         };
         Map<String, Object> fieldMap = objectMapper.convertValue(engagement, typeRef);
+        Map<String, Object> existingFieldMap = null == existing ? null : objectMapper.convertValue(existing, typeRef);
 
-        // add a set for each field in the update
-        for (Entry<String, Object> entry : fieldMap.entrySet()) {
-
-            Bson update = set(entry.getKey(), entry.getValue());
-
-            if (null == updates) {
-                updates = update;
-            } else {
-                updates = combine(updates, update);
-            }
+        List<Bson> updates = MongoUpdateHelper.generateUpdates(existingFieldMap, fieldMap, UNORDERED_FIELDS);
 
+        // an update requires at least one operation
+        if (updates.isEmpty()) {
+            return set("lastUpdate", engagement.getLastUpdate());
         }
 
-        return updates;
+        return combine(updates);
 
     }
 
@@ -584,6 +944,109 @@ public class EngagementRepository implements PanacheMongoRepository<Engagement>
      * Helper Methods
      */
 
+    /**
+     * Sets the current page and per page values on the {@link PagedResults}. If
+     * cursor paging was requested and a full page was returned, the cursor for the
+     * next page is created from the last result.
+     * 
+     * @param <T>
+     * @param page
+     * @param filterOptions
+     */
+    private <T> void setPaging(PagedResults<T> page, ListFilterOptions filterOptions) {
+
+        page.setCurrentPage(filterOptions.getPage().orElse(1));
+        page.setPerPage(filterOptions.getPerPage().orElse(20));
+
+        if (!filterOptions.isCursorPaging()) {
+            return;
+        }
+
+        page.setCursorPaged(true);
+
+        List<T> results = page.getResults();
+        if (null != results && !results.isEmpty() && results.size() >= page.getPerPage()) {
+            T last = results.get(results.size() - 1);
+            page.setNextCursor(
+                    PageCursor.fromResult(last, MongoAggregationHelper.getSortFields(filterOptions)).encode());
+        }
+
+    }
+
+    /**
+     * Returns the {@link List} of results for the page requested in the
+     * {@link ListFilterOptions} from the documents matched by the query pipeline.
+     * 
+     * @param <T>
+     * @param query
+     * @param filterOptions
+     * @param resultClass
+     * @return
+     */
+    private <T> List<T> findResults(List<Bson> query, ListFilterOptions filterOptions, Class<T> resultClass) {
+
+        List<Bson> pipeline = MongoAggregationHelper.generatePagedAggregationPipeline(query, filterOptions);
+        return mongoCollection().aggregate(pipeline, resultClass).into(new ArrayList<>());
+
+    }
+
+    /**
+     * Returns the {@link SearchPlan} for the given {@link ListFilterOptions},
+     * compiling and caching it if not already cached. Plans do not depend on the
+     * data, so they remain valid across writes to the collection.
+     * 
+     * @param filterOptions
+     * @return
+     */
+    SearchPlan getSearchPlan(ListFilterOptions filterOptions) {
+        return planCache.computeIfAbsent(SearchPlan.getKey(filterOptions),
+                k -> SearchPlan.compile(filterOptions, mongoCollection().getCodecRegistry()));
+    }
+
+    /**
+     * Returns the total count of documents matched by the query pipeline using the
+     * {@link CountStrategy} in the {@link ListFilterOptions}. Exact counts are
+     * cached until the next write by this instance or the end of the entity tag
+     * window, so that writes by other instances are counted. Estimated counts use
+     * the collection metadata if the query does not filter any documents.
+     * Otherwise, the exact count is used. Null is returned if no count is requested.
+     * 
+     * @param plan
+     * @param filterOptions
+     * @return
+     */
+    private Integer countResults(SearchPlan plan, ListFilterOptions filterOptions) {
+
+        CountStrategy strategy = filterOptions.getCountStrategy().orElse(CountStrategy.EXACT);
+
+        if (CountStrategy.NONE.equals(strategy)) {
+            return null;
+        }
+
+        if (CountStrategy.ESTIMATED.equals(strategy) && plan.getQuery().isEmpty()) {
+            return (int) mongoCollection().estimatedDocumentCount();
+        }
+
+        return countCache.computeIfAbsent(changeTracker.getCacheKey(plan.getSignature()),
+                k -> countDocuments(plan.getQuery()));
+
+    }
+
+    /**
+     * Returns the number of documents matched by the query pipeline.
+     * 
+     * @param query
+     * @return
+     */
+    private Integer countDocuments(List<Bson> query) {
+
+        Document result = mongoCollection()
+                .aggregate(MongoAggregationHelper.generateCountPipeline(query), Document.class).first();
+
+        return null == result ? 0 : result.getInteger(COUNT);
+
+    }
+
     private <T> Optional<T> findFirstFromIterable(Iterable<T> iterable) {
         return StreamSupport.stream(iterable.spliterator(), false).findFirst();
     }
@@ -0,0 +1,60 @@
+package com.redhat.labs.lodestar.repository;
+
+import java.util.Map;
+
+import com.redhat.labs.lodestar.model.Engagement.EngagementState;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * The number of engagements in each {@link EngagementState} at a point in
+ * time. The counts remain valid for any time after the lower boundary and
+ * before the upper boundary, as long as no engagement has been modified since
+ * the counts were taken.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class EngagementStateCounts {
+
+    private long version;
+    // epoch millis when the counts were read
+    private long loadedAt;
+    private String time;
+    private Map<EngagementState, Integer> counts;
+    // latest end or archive date at or before the time, null if none
+    private String lowerBoundary;
+    // earliest end or archive date after the time, null if none
+    private String upperBoundary;
+
+    /**
+     * Returns true if the counts apply at the given time for the given change
+     * version. Otherwise, false.
+     *
+     * @param version
+     * @param time
+     * @return
+     */
+    public boolean isValidAt(long version, String time) {
+
+        if (this.version != version) {
+            return false;
+        }
+
+        if (this.time.equals(time)) {
+            return true;
+        }
+
+        // a date equal to the counted time changes state on either side of it
+        if (null != lowerBoundary && lowerBoundary.compareTo(this.time) >= 0) {
+            return false;
+        }
+
+        boolean afterLower = null == lowerBoundary || lowerBoundary.compareTo(time) < 0;
+        boolean beforeUpper = null == upperBoundary || time.compareTo(upperBoundary) < 0;
+
+        return afterLower && beforeUpper;
+
+    }
+
+}
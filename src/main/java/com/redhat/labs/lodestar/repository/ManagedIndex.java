@@ -0,0 +1,97 @@
+package com.redhat.labs.lodestar.repository;
+
+import java.util.Objects;
+
+import org.bson.Document;
+
+import com.mongodb.client.model.IndexOptions;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Declaration of an index that is created and maintained by the application.
+ * The name of every managed index starts with {@link #PREFIX} so that indexes
+ * created outside of the application are never modified.
+ */
+@Getter
+@Builder
+public class ManagedIndex {
+
+    public static final String PREFIX = "lodestar_";
+
+    private static final String NAME = "name";
+    private static final String KEY = "key";
+    private static final String UNIQUE = "unique";
+    private static final String PARTIAL_FILTER_EXPRESSION = "partialFilterExpression";
+    private static final String COLLATION = "collation";
+
+    private String name;
+    private Document keys;
+    private boolean unique;
+    private Document partialFilterExpression;
+
+    /**
+     * Returns the full name of the index, including the managed prefix.
+     *
+     * @return
+     */
+    public String getIndexName() {
+        return PREFIX + name;
+    }
+
+    /**
+     * Returns the {@link IndexOptions} used to create the index.
+     *
+     * @return
+     */
+    public IndexOptions toIndexOptions() {
+
+        IndexOptions options = new IndexOptions().name(getIndexName()).unique(unique).background(true);
+
+        if (null != partialFilterExpression) {
+            options.partialFilterExpression(partialFilterExpression);
+        }
+
+        return options;
+
+    }
+
+    /**
+     * Returns true if the given index specification, as returned by
+     * listIndexes, has the same keys and options as this declaration.
+     * Otherwise, false.
+     *
+     * @param existing
+     * @return
+     */
+    public boolean matches(Document existing) {
+
+        if (!getIndexName().equals(existing.getString(NAME)) || !keys.equals(existing.get(KEY, Document.class))) {
+            return false;
+        }
+
+        if (unique != existing.getBoolean(UNIQUE, false)) {
+            return false;
+        }
+
+        if (!Objects.equals(partialFilterExpression, existing.get(PARTIAL_FILTER_EXPRESSION, Document.class))) {
+            return false;
+        }
+
+        // managed indexes use the simple collation
+        return null == existing.get(COLLATION, Document.class);
+
+    }
+
+    /**
+     * Returns true if the index name has the managed prefix. Otherwise, false.
+     *
+     * @param indexName
+     * @return
+     */
+    public static boolean isManaged(String indexName) {
+        return null != indexName && indexName.startsWith(PREFIX);
+    }
+
+}
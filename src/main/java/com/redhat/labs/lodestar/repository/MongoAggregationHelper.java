@@ -17,7 +17,9 @@ import static com.mongodb.client.model.Projections.include;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Stream;
@@ -34,9 +36,13 @@ import com.mongodb.client.model.Aggregates;
 import com.mongodb.client.model.BsonField;
 import com.mongodb.client.model.Facet;
 import com.mongodb.client.model.Field;
+import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.Sorts;
+import com.redhat.labs.lodestar.model.Engagement.EngagementState;
 import com.redhat.labs.lodestar.model.filter.ListFilterOptions;
+import com.redhat.labs.lodestar.model.filter.ResponseView;
 import com.redhat.labs.lodestar.model.filter.SortOrder;
+import com.redhat.labs.lodestar.model.pagination.PageCursor;
 import com.redhat.labs.lodestar.model.search.BsonSearch;
 
 public class MongoAggregationHelper {
@@ -45,22 +51,127 @@ public class MongoAggregationHelper {
     private static final String TOTAL_COUNT = "totalCount";
     private static final String TO_LOWER_QUERY = "$toLower";
     private static final String ARRAY_ELEMENT_AT = "$arrayElemAt";
+    private static final String UUID = "uuid";
+    // unique together, see the customer_project index
+    private static final List<String> UNIQUE_NAME_FIELDS = List.of("customerName", "projectName");
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
+    static final String STATE = "state";
+    static final String STATE_END_DATE = "endDate";
+    static final String STATE_ARCHIVE_DATE = "archiveDate";
+    static final String STATE_LOWER_END_DATE = "lowerEndDate";
+    static final String STATE_UPPER_END_DATE = "upperEndDate";
+    static final String STATE_LOWER_ARCHIVE_DATE = "lowerArchiveDate";
+    static final String STATE_UPPER_ARCHIVE_DATE = "upperArchiveDate";
+
+    /*
+     * Map of group by field names to the lowercase copies of the field persisted
+     * on each engagement.
+     */
+    private static final Map<String, String> PERSISTED_LOWERCASE_FIELDS = Map.of("customerName",
+            "customerNameLower", "projectName", "projectNameLower", "categories.name", "categories.nameLower", "type",
+            "typeLower");
 
     private MongoAggregationHelper() {
         throw new IllegalStateException("Utility class");
     }
 
-    public static List<Bson> generatePagedAggregationPipeline(ListFilterOptions filterOptions) {
+    /**
+     * Returns the pipeline to retrieve one page of results from the documents
+     * matched by the given query pipeline.
+     * 
+     * @param query
+     * @param filterOptions
+     * @return
+     */
+    public static List<Bson> generatePagedAggregationPipeline(List<Bson> query, ListFilterOptions filterOptions) {
+
+        List<Bson> pipeline = new ArrayList<>(query);
 
-        List<Bson> pipeline = new ArrayList<>();
-        pipeline.addAll(queryPipeline(filterOptions));
+        // sort results
+        sortStage(pipeline, filterOptions);
+
+        pipeline.addAll(cursorPipeline(filterOptions));
         pipeline.addAll(pagingAndLimitPipeline(filterOptions));
-        pipeline.addAll(pagingProjectionPipeline());
 
         return pipeline;
 
     }
 
+    /**
+     * Returns the pipeline to count the documents matched by the given query
+     * pipeline.
+     * 
+     * @param query
+     * @return
+     */
+    public static List<Bson> generateCountPipeline(List<Bson> query) {
+
+        List<Bson> pipeline = new ArrayList<>(query);
+        pipeline.add(count(COUNT));
+
+        return pipeline;
+
+    }
+
+    /**
+     * Returns the pipeline counting engagements by {@link EngagementState} at the
+     * given time. Only the launch and date fields are read. Dates are compared as
+     * strings, which sort chronologically in the stored date format. Each result
+     * has the state as the id, the count, and the closest end and archive dates at
+     * or before and after the given time. The counts do not change between those
+     * dates.
+     * 
+     * @param time
+     * @return
+     */
+    public static List<Bson> generateEngagementStatePipeline(String time) {
+
+        String endDate = getVariableName(STATE_END_DATE);
+        String archiveDate = getVariableName(STATE_ARCHIVE_DATE);
+
+        Document upcoming = new Document("$or",
+                Arrays.asList(isNotSet("$launch"), isNotSet("$startDate"), isNotSet(endDate)));
+        Document ended = new Document("$lt", Arrays.asList(endDate, time));
+        Document archived = new Document("$gt", Arrays.asList(archiveDate, time));
+
+        Document terminatingOrPast = new Document("$cond",
+                Arrays.asList(archived, EngagementState.TERMINATING.name(), EngagementState.PAST.name()));
+        List<Document> branches = Arrays.asList(
+                new Document("case", upcoming).append("then", EngagementState.UPCOMING.name()),
+                new Document("case", ended).append("then", terminatingOrPast));
+        Document state = new Document("$switch",
+                new Document("branches", branches).append("default", EngagementState.ACTIVE.name()));
+
+        // only launched engagements change state over time
+        Document stateFields = new Document(STATE, state)
+                .append(STATE_END_DATE, new Document("$cond", Arrays.asList(upcoming, null, endDate)))
+                .append(STATE_ARCHIVE_DATE, new Document("$cond", Arrays.asList(upcoming, null, archiveDate)));
+
+        Bson group = group(getVariableName(STATE), Accumulators.sum(COUNT, 1),
+                Accumulators.max(STATE_LOWER_END_DATE, atOrBefore(endDate, time)),
+                Accumulators.min(STATE_UPPER_END_DATE, after(endDate, time)),
+                Accumulators.max(STATE_LOWER_ARCHIVE_DATE, atOrBefore(archiveDate, time)),
+                Accumulators.min(STATE_UPPER_ARCHIVE_DATE, after(archiveDate, time)));
+
+        return Arrays.asList(project(stateFields), group);
+
+    }
+
+    private static Document isNotSet(String variableName) {
+        return new Document("$not", Arrays.asList(new Document("$gt", Arrays.asList(variableName, null))));
+    }
+
+    private static Document atOrBefore(String variableName, String time) {
+        return new Document("$cond", Arrays.asList(new Document("$lte", Arrays.asList(variableName, time)),
+                variableName, null));
+    }
+
+    private static Document after(String variableName, String time) {
+        return new Document("$cond", Arrays.asList(new Document("$gt", Arrays.asList(variableName, time)),
+                variableName, null));
+    }
+
     public static List<Bson> generatePagedAggregationPipelineForUserSummary(ListFilterOptions filterOptions) {
 
         List<Bson> pipeline = new ArrayList<>();
@@ -73,9 +184,18 @@ public class MongoAggregationHelper {
 
     }
 
-    static List<Bson> queryPipeline(ListFilterOptions filterOptions) {
+    /**
+     * Returns the pipeline matching, unwinding, and grouping documents for the
+     * given {@link ListFilterOptions}. The returned pipeline can be shared by the
+     * paged results and count pipelines. The pipeline depends only on the search,
+     * unwind, and group by options, which are not modified.
+     * 
+     * @param filterOptions
+     * @return
+     */
+    public static List<Bson> queryPipeline(ListFilterOptions filterOptions) {
 
-        // Create pipeline for search and sorting
+        // Create pipeline for search
         List<Bson> pipeline = new ArrayList<>();
 
         // set match criteria
@@ -87,13 +207,33 @@ public class MongoAggregationHelper {
         // add lowercase field and group/count
         addLowercaseFieldAndGroupStage(pipeline, filterOptions);
 
-        // sort results
-        sortStage(pipeline, filterOptions);
-
         return pipeline;
 
     }
 
+    static List<Bson> cursorPipeline(ListFilterOptions filterOptions) {
+
+        // create pipeline to resume after the cursor
+        List<Bson> cursor = new ArrayList<>();
+
+        if (!filterOptions.isCursorPaging()) {
+            return cursor;
+        }
+
+        if (filterOptions.getGroupByFieldName().isPresent()) {
+            throw new WebApplicationException("cursor paging is not supported for grouped results", 400);
+        }
+
+        // match results after the cursor
+        keysetStage(cursor, filterOptions);
+
+        // limit to page size
+        cursor.add(limit(filterOptions.getPerPage().orElse(DEFAULT_PAGE_SIZE)));
+
+        return cursor;
+
+    }
+
     static List<Bson> pagingAndLimitPipeline(ListFilterOptions filterOptions) {
 
         // create pipeline for paging and limits
@@ -105,12 +245,7 @@ public class MongoAggregationHelper {
         // add projection
         projectionStage(paging, filterOptions);
 
-        // Create facets for engagements and total count
-        Facet engagements = new Facet("results", paging);
-        Facet count = new Facet(TOTAL_COUNT, count());
-        Bson facetStage = facet(engagements, count);
-
-        return Arrays.asList(facetStage);
+        return paging;
 
     }
 
@@ -150,20 +285,6 @@ public class MongoAggregationHelper {
 
     }
 
-    static List<Bson> pagingProjectionPipeline() {
-
-        // create documents for paging fields (engagements and totalEngagements)
-        Document d = new Document(ARRAY_ELEMENT_AT, Arrays.asList("$totalCount.count", 0));
-        Document countField = new Document(TOTAL_COUNT, d);
-        Document engagementsField = new Document("results", "$results");
-
-        // projection for paging fields
-        Bson pageProjection = project(fields(engagementsField, countField));
-
-        return Arrays.asList(pageProjection);
-
-    }
-
     /*
      * Stages
      */
@@ -178,14 +299,8 @@ public class MongoAggregationHelper {
         // unwind based on field name
         pipeline.add(unwind(getVariableName(unwindFieldName.get())));
 
-        // get unwind field search string
-        Optional<String> search = filterOptions.getSearchStringByField(unwindFieldName.get());
-        if (search.isPresent()) {
-            // reset search string
-            filterOptions.setSearch(search.get());
-            // match on unwind search string
-            matchStage(pipeline, filterOptions);
-        }
+        // match on unwind field search string
+        matchStage(pipeline, filterOptions.getSearchStringByField(unwindFieldName.get()));
 
         Optional<String> projectFields = filterOptions.getUnwindProjectFieldNames();
         if (projectFields.isEmpty()) {
@@ -205,16 +320,28 @@ public class MongoAggregationHelper {
     }
 
     static void matchStage(List<Bson> pipeline, ListFilterOptions filterOptions) {
+        matchStage(pipeline, filterOptions.getSearch());
+    }
 
-        Optional<String> searchString = filterOptions.getSearch();
-        if (searchString.isPresent()) {
-            BsonSearch search = BsonSearch.builder().searchString(searchString.get()).build();
-            Optional<Bson> bson = search.createBsonForSearch();
-            if (bson.isPresent()) {
-                pipeline.add(match(bson.get()));
-            }
+    static void matchStage(List<Bson> pipeline, Optional<String> searchString) {
+        getSearchFilter(searchString).ifPresent(bson -> pipeline.add(match(bson)));
+    }
+
+    /**
+     * Returns an {@link Optional} containing the filter for the given search
+     * string. An empty {@link Optional} is returned if there is nothing to match.
+     * 
+     * @param searchString
+     * @return
+     */
+    public static Optional<Bson> getSearchFilter(Optional<String> searchString) {
+
+        if (searchString.isEmpty()) {
+            return Optional.empty();
         }
 
+        return BsonSearch.builder().searchString(searchString.get()).build().createBsonForSearch();
+
     }
 
     // requires groupbyfield
@@ -224,13 +351,16 @@ public class MongoAggregationHelper {
         if (groupByFieldName.isPresent()) {
 
             String fieldName = groupByFieldName.get();
-            String fieldNameVar = getVariableName(fieldName);
+            String toLowerFieldName = PERSISTED_LOWERCASE_FIELDS.get(fieldName);
 
-            String toLowerFieldName = getLowercaseFieldName(fieldName);
-            String toLowerFieldNameVar = getVariableName(toLowerFieldName);
+            // add lowercase field if not persisted
+            if (null == toLowerFieldName) {
+                toLowerFieldName = getLowercaseFieldName(fieldName);
+                Document toLowerDocument = new Document(TO_LOWER_QUERY, getVariableName(fieldName));
+                pipeline.add(addFields(new Field<>(toLowerFieldName, toLowerDocument)));
+            }
 
-            Document toLowerDocument = new Document(TO_LOWER_QUERY, fieldNameVar);
-            pipeline.add(addFields(new Field<>(toLowerFieldName, toLowerDocument)));
+            String toLowerFieldNameVar = getVariableName(toLowerFieldName);
 
             // Group by lowercase field and count
             BsonField[] fields = new BsonField[] { // Accumulators.addToSet(getNestedFieldName(fieldName),
@@ -246,22 +376,82 @@ public class MongoAggregationHelper {
     }
 
     static void sortStage(List<Bson> pipeline, ListFilterOptions filterOptions) {
+        pipeline.add(sort(getSort(filterOptions)));
+    }
+
+    /**
+     * Returns the sort for the sort order and fields in the
+     * {@link ListFilterOptions}.
+     * 
+     * @param filterOptions
+     * @return
+     */
+    public static Bson getSort(ListFilterOptions filterOptions) {
+
+        List<String> sortFields = getSortFields(filterOptions);
+        return determineSort(filterOptions.getSortOrder().orElse(SortOrder.ASC),
+                sortFields.toArray(new String[sortFields.size()]));
 
-        List<String> sortFields = filterOptions.getSortFieldsAsList();
-        Bson sort = sort(determineSort(filterOptions.getSortOrder().orElse(SortOrder.ASC),
-                sortFields.toArray(new String[sortFields.size()])));
-        pipeline.add(sort);
+    }
+
+    static void keysetStage(List<Bson> pipeline, ListFilterOptions filterOptions) {
+
+        Optional<String> after = filterOptions.getAfter();
+        if (after.isEmpty()) {
+            return;
+        }
+
+        List<String> sortFields = getSortFields(filterOptions);
+        List<Object> values = PageCursor.decode(after.get()).getValues();
+
+        if (sortFields.size() != values.size()) {
+            throw new WebApplicationException("cursor does not match the requested sort fields", 400);
+        }
+
+        boolean ascending = SortOrder.ASC.equals(filterOptions.getSortOrder().orElse(SortOrder.ASC));
+
+        // (f1 > v1) or (f1 = v1 and f2 > v2) or ... for each sort field
+        List<Bson> conditions = new ArrayList<>();
+        for (int i = 0; i < sortFields.size(); i++) {
+
+            Optional<Bson> afterCondition = afterValue(sortFields.get(i), values.get(i), ascending);
+            if (afterCondition.isEmpty()) {
+                continue;
+            }
+
+            List<Bson> equals = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                equals.add(Filters.eq(sortFields.get(j), values.get(j)));
+            }
+            equals.add(afterCondition.get());
+
+            conditions.add(Filters.and(equals));
+
+        }
+
+        // nothing can sort after the cursor
+        if (conditions.isEmpty()) {
+            pipeline.add(match(Filters.in(UUID, new ArrayList<>())));
+            return;
+        }
+
+        pipeline.add(match(Filters.or(conditions)));
 
     }
 
     static void skipAndLimitStages(List<Bson> pipeline, ListFilterOptions filterOptions) {
 
+        // cursor already limited results
+        if (filterOptions.isCursorPaging()) {
+            return;
+        }
+
         Optional<Integer> page = filterOptions.getPage();
         Optional<Integer> perPage = filterOptions.getPerPage();
 
         if (page.isPresent()) {
             Integer pageNumber = page.get();
-            Integer pageSize = perPage.isPresent() ? perPage.get() : 20;
+            Integer pageSize = perPage.isPresent() ? perPage.get() : DEFAULT_PAGE_SIZE;
             pipeline.add(skip(pageSize * (pageNumber - 1)));
             pipeline.add(limit(pageSize));
         }
@@ -270,16 +460,11 @@ public class MongoAggregationHelper {
 
     static void projectionStage(List<Bson> pipeline, ListFilterOptions filterOptions) {
 
+        Optional<Bson> projection = fieldProjection(filterOptions);
         Optional<String> groupByField = filterOptions.getGroupByFieldName();
-        Optional<Set<String>> include = filterOptions.getIncludeList();
-        Optional<Set<String>> exclude = filterOptions.getExcludeList();
 
-        if (include.isPresent() && exclude.isPresent()) {
-            throw new WebApplicationException("cannot provide both include and exclude parameters", 400);
-        } else if (include.isPresent()) {
-            pipeline.add(project(fields(excludeId(), include(List.copyOf(include.get())))));
-        } else if (exclude.isPresent()) {
-            pipeline.add(project(fields(excludeId(), exclude(List.copyOf(exclude.get())))));
+        if (projection.isPresent()) {
+            pipeline.add(project(projection.get()));
         } else if (groupByField.isPresent()) {
             String fieldName = getNestedFieldName(groupByField.get());
             pipeline.add(project(fields(excludeId(),
@@ -290,6 +475,115 @@ public class MongoAggregationHelper {
 
     }
 
+    /**
+     * Returns an {@link Optional} containing the projected fields for the include,
+     * exclude, or view fields in the {@link ListFilterOptions}. An empty
+     * {@link Optional} is returned if no fields are specified.
+     * 
+     * @param filterOptions
+     * @return
+     */
+    public static Optional<Bson> fieldProjection(ListFilterOptions filterOptions) {
+
+        Optional<Set<String>> include = filterOptions.getIncludeList();
+        Optional<Set<String>> exclude = filterOptions.getExcludeList();
+
+        // use the view fields if include and exclude are not provided
+        Optional<ResponseView> view = getView(filterOptions);
+        if (view.isPresent() && view.get().isInclude()) {
+            include = Optional.of(Set.copyOf(view.get().getFields()));
+        } else if (view.isPresent()) {
+            exclude = Optional.of(Set.copyOf(view.get().getFields()));
+        }
+
+        // sort fields are required to create the next cursor
+        if (filterOptions.isCursorPaging()) {
+            List<String> sortFields = getSortFields(filterOptions);
+            include = include.map(i -> {
+                Set<String> fields = new HashSet<>(i);
+                fields.addAll(sortFields);
+                return fields;
+            });
+            exclude = exclude.map(e -> {
+                Set<String> fields = new HashSet<>(e);
+                fields.removeAll(sortFields);
+                return fields;
+            });
+        }
+
+        if (include.isPresent() && exclude.isPresent()) {
+            throw new WebApplicationException("cannot provide both include and exclude parameters", 400);
+        } else if (include.isPresent()) {
+            return Optional.of(fields(excludeId(), include(List.copyOf(include.get()))));
+        } else if (exclude.isPresent()) {
+            return Optional.of(fields(excludeId(), exclude(List.copyOf(exclude.get()))));
+        }
+
+        return Optional.empty();
+
+    }
+
+    /**
+     * Returns an {@link Optional} containing the {@link ResponseView} to project.
+     * An empty {@link Optional} is returned for the full view, if include or
+     * exclude is provided, or if results are unwound or grouped.
+     * 
+     * @param filterOptions
+     * @return
+     */
+    static Optional<ResponseView> getView(ListFilterOptions filterOptions) {
+
+        if (null != filterOptions.getInclude() || null != filterOptions.getExclude()
+                || filterOptions.getUnwindFieldName().isPresent() || filterOptions.getGroupByFieldName().isPresent()) {
+            return Optional.empty();
+        }
+
+        return filterOptions.getView().filter(v -> !ResponseView.FULL.equals(v));
+
+    }
+
+    /**
+     * Returns the fields used to sort results. When paging with a cursor, the
+     * uuid is added as the last sort field so that the sort key is unique, unless
+     * the sort fields already include the unique customer and project names.
+     * 
+     * @param filterOptions
+     * @return
+     */
+    static List<String> getSortFields(ListFilterOptions filterOptions) {
+
+        List<String> sortFields = new ArrayList<>(filterOptions.getSortFieldsAsList());
+
+        if (filterOptions.isCursorPaging() && !sortFields.contains(UUID)
+                && !sortFields.containsAll(UNIQUE_NAME_FIELDS)) {
+            sortFields.add(UUID);
+        }
+
+        return sortFields;
+
+    }
+
+    /**
+     * Returns a filter matching values of the field that sort after the given
+     * value. Null values sort before all other values, so nothing sorts before a
+     * null value when descending.
+     * 
+     * @param fieldName
+     * @param value
+     * @param ascending
+     * @return
+     */
+    static Optional<Bson> afterValue(String fieldName, Object value, boolean ascending) {
+
+        if (null == value) {
+            return ascending ? Optional.of(Filters.ne(fieldName, null)) : Optional.empty();
+        }
+
+        return ascending ? Optional.of(Filters.gt(fieldName, value))
+                : Optional.of(Filters.or(Filters.lt(fieldName, value), Filters.eq(fieldName, null)));
+
+    }
+
     /**
      * 
      * Returns a sort {@link Bson} for the given {@link SortOrder} and sort fields.
@@ -317,6 +611,17 @@ public class MongoAggregationHelper {
 
     }
 
+    /**
+     * Returns the name of the persisted lowercase copy of the given field name if
+     * one exists. Otherwise, the field name with '-lower' appended.
+     * 
+     * @param fieldName
+     * @return
+     */
+    static String getPersistedLowercaseFieldName(String fieldName) {
+        return PERSISTED_LOWERCASE_FIELDS.getOrDefault(fieldName, getLowercaseFieldName(fieldName));
+    }
+
     /**
      * Appends '-lower' to the given field name.
      * 
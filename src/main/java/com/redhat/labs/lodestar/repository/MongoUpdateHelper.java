@@ -0,0 +1,152 @@
+package com.redhat.labs.lodestar.repository;
+
+import static com.mongodb.client.model.Updates.set;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.bson.conversions.Bson;
+
+public class MongoUpdateHelper {
+
+    private static final String PATH_SEPARATOR = ".";
+    private static final String OPERATOR_PREFIX = "$";
+
+    private MongoUpdateHelper() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Returns the {@link List} of updates that change the existing document into
+     * the updated document. Only changed fields are included. Nested documents
+     * are compared field by field, and arrays of the same length are compared
+     * element by element, so that only the changed values are set. Arrays that
+     * changed length and nested documents that lost fields are set as a whole.
+     * Fields that become null are set to null. Top level fields missing from the
+     * updated document are not changed.
+     *
+     * Both documents are expected to be converted from the same type, so that
+     * unchanged values are equal.
+     *
+     * @param existing
+     * @param updated
+     * @return
+     */
+    public static List<Bson> generateUpdates(Map<String, Object> existing, Map<String, Object> updated) {
+        return generateUpdates(existing, updated, Collections.emptySet());
+    }
+
+    /**
+     * Returns the {@link List} of updates that change the existing document into
+     * the updated document, as {@link #generateUpdates(Map, Map)}. Arrays at the
+     * given unordered paths were converted from a {@link Set}, so the position of
+     * an element does not identify it. These arrays are compared regardless of
+     * order and are set as a whole if changed.
+     *
+     * @param existing
+     * @param updated
+     * @param unorderedPaths
+     * @return
+     */
+    public static List<Bson> generateUpdates(Map<String, Object> existing, Map<String, Object> updated,
+            Set<String> unorderedPaths) {
+
+        List<Bson> updates = new ArrayList<>();
+        addDocumentUpdates(null, null == existing ? Collections.emptyMap() : existing, updated, unorderedPaths,
+                updates);
+        return updates;
+
+    }
+
+    private static void addDocumentUpdates(String path, Map<?, ?> existing, Map<?, ?> updated,
+            Set<String> unorderedPaths, List<Bson> updates) {
+
+        for (Map.Entry<?, ?> entry : updated.entrySet()) {
+
+            String fieldPath = appendPath(path, String.valueOf(entry.getKey()));
+            Object value = entry.getValue();
+
+            if (null == value) {
+                if (null != existing.get(entry.getKey())) {
+                    updates.add(set(fieldPath, null));
+                }
+            } else {
+                addValueUpdates(fieldPath, existing.get(entry.getKey()), value, unorderedPaths, updates);
+            }
+
+        }
+
+    }
+
+    private static void addValueUpdates(String path, Object existing, Object updated, Set<String> unorderedPaths,
+            List<Bson> updates) {
+
+        if (Objects.equals(existing, updated)) {
+            return;
+        }
+
+        if (existing instanceof Map && updated instanceof Map
+                && ((Map<?, ?>) updated).keySet().containsAll(((Map<?, ?>) existing).keySet())
+                && hasFieldNames((Map<?, ?>) existing) && hasFieldNames((Map<?, ?>) updated)) {
+            addDocumentUpdates(path, (Map<?, ?>) existing, (Map<?, ?>) updated, unorderedPaths, updates);
+            return;
+        }
+
+        if (existing instanceof List && updated instanceof List && unorderedPaths.contains(path)) {
+            if (!new HashSet<>((List<?>) existing).equals(new HashSet<>((List<?>) updated))) {
+                updates.add(set(path, updated));
+            }
+            return;
+        }
+
+        if (existing instanceof List && updated instanceof List
+                && ((List<?>) existing).size() == ((List<?>) updated).size()) {
+            addArrayUpdates(path, (List<?>) existing, (List<?>) updated, unorderedPaths, updates);
+            return;
+        }
+
+        updates.add(set(path, updated));
+
+    }
+
+    private static void addArrayUpdates(String path, List<?> existing, List<?> updated, Set<String> unorderedPaths,
+            List<Bson> updates) {
+
+        for (int i = 0; i < updated.size(); i++) {
+
+            String elementPath = appendPath(path, String.valueOf(i));
+            Object value = updated.get(i);
+
+            if (null == value || null == existing.get(i)) {
+                if (!Objects.equals(existing.get(i), value)) {
+                    updates.add(set(elementPath, value));
+                }
+            } else {
+                addValueUpdates(elementPath, existing.get(i), value, unorderedPaths, updates);
+            }
+
+        }
+
+    }
+
+    /**
+     * Returns true if all keys can be used in a dotted field path.
+     *
+     * @param document
+     * @return
+     */
+    private static boolean hasFieldNames(Map<?, ?> document) {
+        return document.keySet().stream().map(String::valueOf)
+                .noneMatch(key -> key.isEmpty() || key.contains(PATH_SEPARATOR) || key.startsWith(OPERATOR_PREFIX));
+    }
+
+    private static String appendPath(String path, String field) {
+        return null == path ? field : new StringBuilder(path).append(PATH_SEPARATOR).append(field).toString();
+    }
+
+}
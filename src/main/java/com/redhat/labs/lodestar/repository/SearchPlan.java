@@ -0,0 +1,60 @@
+package com.redhat.labs.lodestar.repository;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.bson.BsonDocument;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+
+import com.redhat.labs.lodestar.model.filter.ListFilterOptions;
+
+import lombok.Getter;
+
+/**
+ * The compiled match, unwind, and group stages for the search options of a
+ * {@link ListFilterOptions}. A plan is immutable so it can be shared by
+ * concurrent requests, and carries a signature of its pipeline for use as a
+ * cache key.
+ */
+@Getter
+public class SearchPlan {
+
+    private static final String SEPARATOR = "|";
+
+    private final List<Bson> query;
+    private final String signature;
+
+    SearchPlan(List<Bson> query, CodecRegistry registry) {
+        this.query = Collections.unmodifiableList(query);
+        this.signature = query.stream().map(b -> b.toBsonDocument(BsonDocument.class, registry).toJson())
+                .collect(Collectors.joining(","));
+    }
+
+    /**
+     * Creates the {@link SearchPlan} for the given {@link ListFilterOptions}.
+     *
+     * @param filterOptions
+     * @param registry
+     * @return
+     */
+    public static SearchPlan compile(ListFilterOptions filterOptions, CodecRegistry registry) {
+        return new SearchPlan(MongoAggregationHelper.queryPipeline(filterOptions), registry);
+    }
+
+    /**
+     * Returns a key identifying the options used to compile a plan. Options that
+     * do not change the plan, such as sorting and paging, are not included.
+     *
+     * @param filterOptions
+     * @return
+     */
+    public static String getKey(ListFilterOptions filterOptions) {
+        return new StringBuilder().append(filterOptions.getSearch().orElse("")).append(SEPARATOR)
+                .append(filterOptions.getUnwindFieldName().orElse("")).append(SEPARATOR)
+                .append(filterOptions.getUnwindProjectFieldNames().orElse("")).append(SEPARATOR)
+                .append(filterOptions.getGroupByFieldName().orElse("")).toString();
+    }
+
+}
@@ -18,12 +18,11 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirement;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
-import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.redhat.labs.lodestar.model.event.EventType;
-import com.redhat.labs.lodestar.rest.client.LodeStarActivityApiClient;
+import com.redhat.labs.lodestar.service.ActivityService;
 
 import io.vertx.mutiny.core.eventbus.EventBus;
 
@@ -36,8 +35,7 @@ public class ActivityResource {
     private static final Logger LOGGER = LoggerFactory.getLogger(ActivityResource.class);
 
     @Inject
-    @RestClient
-    LodeStarActivityApiClient activityClient;
+    ActivityService activityService;
     
     @Inject
     EventBus eventBus;
@@ -53,7 +51,7 @@ public class ActivityResource {
             return Response.status(Status.BAD_REQUEST).entity("{ \"error\": \"Invalid pagination\"}").build();
         }
         
-        return activityClient.getPaginatedActivity(page, pageSize);
+        return activityService.getActivity(page, pageSize);
     }
     
     @GET
@@ -67,12 +65,12 @@ public class ActivityResource {
         LOGGER.trace("uuid {}", uuid);
         
         if(page == null || pageSize == null) {
-            return activityClient.getActivityForUuid(uuid);
+            return activityService.getActivityForUuid(uuid);
         } else if(page < 0 || pageSize < 1) {
             return Response.status(Status.BAD_REQUEST).entity("{ \"error\": \"Invalid pagination\"}").build();
         } 
             
-        return activityClient.getPaginatedActivityForUuid(uuid, page, pageSize);
+        return activityService.getActivityForUuid(uuid, page, pageSize);
     }
     
     @PUT
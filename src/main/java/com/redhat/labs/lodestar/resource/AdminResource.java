@@ -0,0 +1,44 @@
+package com.redhat.labs.lodestar.resource;
+
+import java.util.List;
+
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import org.eclipse.microprofile.metrics.annotation.Counted;
+import org.eclipse.microprofile.metrics.annotation.Timed;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirement;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+
+import com.redhat.labs.lodestar.model.EngagementIndex;
+import com.redhat.labs.lodestar.service.EngagementIndexService;
+
+@RequestScoped
+@Path("/admin")
+@Produces(MediaType.APPLICATION_JSON)
+@Tag(name = "Admin", description = "Administrative details about the backend")
+public class AdminResource {
+
+    @Inject
+    EngagementIndexService indexService;
+
+    @GET
+    @Path("/indexes")
+    @SecurityRequirement(name = "jwt", scopes = {})
+    @APIResponses(value = { @APIResponse(responseCode = "401", description = "Missing or Invalid JWT"),
+            @APIResponse(responseCode = "200", description = "Engagement indexes and usage returned.") })
+    @Operation(summary = "Returns the indexes on the engagement collection and their usage statistics.")
+    @Timed(name = "getIndexesTimer")
+    @Counted(name = "getIndexesCounter")
+    public List<EngagementIndex> getIndexes() {
+        return indexService.getIndexes();
+    }
+
+}
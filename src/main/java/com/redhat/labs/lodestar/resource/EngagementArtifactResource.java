@@ -11,7 +11,9 @@ import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.UriInfo;
@@ -32,6 +34,7 @@ import com.redhat.labs.lodestar.model.filter.ListFilterOptions;
 import com.redhat.labs.lodestar.model.pagination.PagedArtifactResults;
 import com.redhat.labs.lodestar.model.pagination.PagedStringResults;
 import com.redhat.labs.lodestar.service.EngagementService;
+import com.redhat.labs.lodestar.util.EntityTagUtils;
 
 @RequestScoped
 @Path("/engagements")
@@ -50,20 +53,29 @@ public class EngagementArtifactResource {
     @Path("/artifacts")
     @SecurityRequirement(name = "jwt", scopes = {})
     @APIResponses(value = { @APIResponse(responseCode = "401", description = "Missing or Invalid JWT"),
+            @APIResponse(responseCode = "304", description = "Results have not changed since the entity tag in If-None-Match"),
             @APIResponse(responseCode = "200", description = "Artifacts have been returned.") })
     @Operation(summary = "Returns artifact list")
     @Counted(name = "engagement-get-all-artifacts-counted")
     @Timed(name = "engagement-get-all-artifacts-timer", unit = MetricUnits.MILLISECONDS)
     public Response getArtifacts(@Context UriInfo uriInfo,
             @Parameter(name = "suggest", deprecated = true, required = false, description = "uses suggestion as case insensitive search string") @QueryParam("suggest") Optional<String> suggest,
-            @BeanParam ListFilterOptions filterOptions) {
+            @BeanParam ListFilterOptions filterOptions, @Context Request request) {
+
+        EntityTag entityTag = new EntityTag(engagementService
+                .getCollectionEntityTag(EntityTagUtils.getRequestSignature(uriInfo, filterOptions.getApiVersion())));
+        ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+        if (null != notModified) {
+            return notModified.build();
+        }
 
         if (suggest.isPresent()) {
             filterOptions.addLikeSearchCriteria("artifacts.type", suggest.get());
         }
 
         PagedArtifactResults page = engagementService.getArtifacts(filterOptions);
-        ResponseBuilder builder = Response.ok(page.getResults()).links(page.getLinks(uriInfo.getAbsolutePathBuilder()));
+        ResponseBuilder builder = Response.ok(page.getResults()).links(page.getLinks(uriInfo.getAbsolutePathBuilder()))
+                .tag(entityTag);
         page.getHeaders().entrySet().stream().forEach(e -> builder.header(e.getKey(), e.getValue()));
         return builder.build();
 
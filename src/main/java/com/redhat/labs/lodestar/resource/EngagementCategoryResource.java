@@ -11,7 +11,9 @@ import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 import javax.ws.rs.core.Response.ResponseBuilder;
@@ -31,6 +33,7 @@ import org.eclipse.microprofile.openapi.annotations.security.SecurityScheme;
 import com.redhat.labs.lodestar.model.filter.ListFilterOptions;
 import com.redhat.labs.lodestar.model.pagination.PagedCategoryResults;
 import com.redhat.labs.lodestar.service.EngagementService;
+import com.redhat.labs.lodestar.util.EntityTagUtils;
 
 @RequestScoped
 @Path("/engagements")
@@ -49,20 +52,29 @@ public class EngagementCategoryResource {
     @Path("/categories")
     @SecurityRequirement(name = "jwt", scopes = {})
     @APIResponses(value = { @APIResponse(responseCode = "401", description = "Missing or Invalid JWT"),
+            @APIResponse(responseCode = "304", description = "Results have not changed since the entity tag in If-None-Match"),
             @APIResponse(responseCode = "200", description = "Customer data has been returned.") })
     @Operation(summary = "Returns customers list")
     @Counted(name = "engagement-get-all-categories-counted")
     @Timed(name = "engagement-get-all-categories-timer", unit = MetricUnits.MILLISECONDS)
     public Response getAllCategories(@Context UriInfo uriInfo,
             @Parameter(name = "suggest", deprecated = true, required = false, description = "uses suggestion as case insensitive search string") @QueryParam("suggest") Optional<String> suggest,
-            @BeanParam ListFilterOptions filterOptions) {
+            @BeanParam ListFilterOptions filterOptions, @Context Request request) {
+
+        EntityTag entityTag = new EntityTag(engagementService
+                .getCollectionEntityTag(EntityTagUtils.getRequestSignature(uriInfo, filterOptions.getApiVersion())));
+        ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+        if (null != notModified) {
+            return notModified.build();
+        }
 
         if (suggest.isPresent()) {
             filterOptions.addLikeSearchCriteria("categories.name", suggest.get());
         }
 
         PagedCategoryResults page = engagementService.getCategories(filterOptions);
-        ResponseBuilder builder = Response.ok(page.getResults()).links(page.getLinks(uriInfo.getAbsolutePathBuilder()));
+        ResponseBuilder builder = Response.ok(page.getResults()).links(page.getLinks(uriInfo.getAbsolutePathBuilder()))
+                .tag(entityTag);
         page.getHeaders().entrySet().stream().forEach(e -> builder.header(e.getKey(), e.getValue()));
         return builder.build();
 
@@ -1,11 +1,21 @@
 package com.redhat.labs.lodestar.resource;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
 import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
 import javax.ws.rs.BeanParam;
@@ -13,6 +23,7 @@ import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.HEAD;
+import javax.ws.rs.PATCH;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
@@ -20,9 +31,13 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
@@ -39,6 +54,10 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirement;
 import org.eclipse.microprofile.openapi.annotations.security.SecurityScheme;
 
+import com.redhat.labs.lodestar.cache.CachedEngagement;
+import com.redhat.labs.lodestar.cache.JsonResponseCache;
+import com.redhat.labs.lodestar.config.JsonConfig;
+import com.redhat.labs.lodestar.model.BulkEngagementResult;
 import com.redhat.labs.lodestar.model.Engagement;
 import com.redhat.labs.lodestar.model.Engagement.EngagementState;
 import com.redhat.labs.lodestar.model.EngagementUserSummary;
@@ -48,6 +67,7 @@ import com.redhat.labs.lodestar.model.pagination.PagedEngagementResults;
 import com.redhat.labs.lodestar.model.pagination.PagedStringResults;
 import com.redhat.labs.lodestar.service.EngagementService;
 import com.redhat.labs.lodestar.util.DateFormatter;
+import com.redhat.labs.lodestar.util.EntityTagUtils;
 
 @RequestScoped
 @Path("/engagements")
@@ -67,13 +87,21 @@ public class EngagementResource {
 
     public static final String ACCESS_CONTROL_EXPOSE_HEADER = "Access-Control-Expose-Headers";
     public static final String LAST_UPDATE_HEADER = "last-update";
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final String FULL_PROJECTION = "full";
 
     @Inject
     JsonWebToken jwt;
 
+    private static final Jsonb SINGLE_LINE_JSONB = JsonbBuilder.create(JsonConfig.singleLineConfig());
+
     @Inject
     EngagementService engagementService;
 
+    @Inject
+    JsonResponseCache jsonCache;
+
     /*
      * GET LIST
      */
@@ -81,13 +109,21 @@ public class EngagementResource {
     @GET
     @SecurityRequirement(name = "jwt", scopes = {})
     @APIResponses(value = { @APIResponse(responseCode = "401", description = "Missing or Invalid JWT"),
+            @APIResponse(responseCode = "304", description = "Results have not changed since the entity tag in If-None-Match"),
             @APIResponse(responseCode = "200", description = "A list or empty list of engagement resources returned") })
     @Operation(summary = "Returns all engagement resources from the database.  Can be empty list if none found.")
     @Counted(name = "engagement-get-all-counted")
     @Timed(name = "engagement-get-all-timer", unit = MetricUnits.MILLISECONDS)
     public Response getAll(@Context UriInfo uriInfo,
             @Parameter(name = "categories", deprecated = true, required = false, description = "filter based on category names.  Use search instead.") @QueryParam("categories") Optional<String> categories,
-            @BeanParam ListFilterOptions filterOptions) {
+            @BeanParam ListFilterOptions filterOptions, @Context Request request) {
+
+        EntityTag entityTag = new EntityTag(engagementService
+                .getCollectionEntityTag(EntityTagUtils.getRequestSignature(uriInfo, filterOptions.getApiVersion())));
+        ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+        if (null != notModified) {
+            return notModified.build();
+        }
 
         // add categories filter if deprecated param used
         if (categories.isPresent()) {
@@ -98,25 +134,81 @@ public class EngagementResource {
         setDefaultPagingFilterOptions(filterOptions);
 
         PagedEngagementResults page = engagementService.getEngagementsPaged(filterOptions);
-        ResponseBuilder builder = Response.ok(page.getResults()).links(page.getLinks(uriInfo.getAbsolutePathBuilder()));
+        ResponseBuilder builder = Response.ok(page.getResults()).links(page.getLinks(uriInfo.getAbsolutePathBuilder()))
+                .tag(entityTag);
         page.getHeaders().entrySet().stream().forEach(e -> builder.header(e.getKey(), e.getValue()));
         return builder.build();
 
     }
+
+    @GET
+    @Path("/export")
+    @Produces(NDJSON)
+    @SecurityRequirement(name = "jwt", scopes = {})
+    @APIResponses(value = { @APIResponse(responseCode = "401", description = "Missing or Invalid JWT"),
+            @APIResponse(responseCode = "200", description = "Engagement resources streamed, one JSON document per line") })
+    @Operation(summary = "Streams all engagement resources matching the search as newline delimited JSON.")
+    @Counted(name = "engagement-export-counted")
+    @Timed(name = "engagement-export-timer", unit = MetricUnits.MILLISECONDS)
+    public Response export(@BeanParam ListFilterOptions filterOptions) {
+
+        StreamingOutput stream = output -> {
+
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+
+            try {
+                engagementService.exportEngagements(filterOptions, engagement -> writeLine(writer, engagement));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            writer.flush();
+
+        };
+
+        return Response.ok(stream).build();
+
+    }
+
+    private void writeLine(Writer writer, Engagement engagement) {
+
+        try {
+            writer.write(SINGLE_LINE_JSONB.toJson(engagement));
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+    }
     
     @GET
     @Path("/count")
     @SecurityRequirement(name = "jwt", scopes = {})
     @APIResponses(value = { @APIResponse(responseCode = "401", description = "Missing or Invalid JWT"),
+            @APIResponse(responseCode = "304", description = "Results have not changed since the entity tag in If-None-Match"),
             @APIResponse(responseCode = "200", description = "Engagement counts computed.") })
     @Operation(summary = "Gets a map of engagement counts by status")
     @Counted(name = "engagement-total-by-status-count")
     @Timed(name = "engagement-total-by-status-timer", unit = MetricUnits.MILLISECONDS)
-    public Map<EngagementState, Integer> countByStatus(@QueryParam(value = "localTime") String localTime) {
+    public Response countByStatus(@QueryParam(value = "localTime") String localTime, @Context Request request) {
         
         LocalDateTime currentTime = localTime == null ? LocalDateTime.now() : DateFormatter.getInstance().getDateTime(localTime);
 
-        return engagementService.getEngagementCountByStatus(currentTime);
+        // only cached counts can be checked without running the aggregation
+        Optional<EntityTag> cachedTag = engagementService.getEngagementCountEntityTag(currentTime).map(EntityTag::new);
+        if (cachedTag.isPresent()) {
+            ResponseBuilder notModified = request.evaluatePreconditions(cachedTag.get());
+            if (null != notModified) {
+                return notModified.build();
+            }
+        }
+
+        Map<EngagementState, Integer> counts = engagementService.getEngagementCountByStatus(currentTime);
+
+        ResponseBuilder builder = Response.ok(counts);
+        engagementService.getEngagementCountEntityTag(currentTime).map(EntityTag::new).ifPresent(builder::tag);
+        return builder.build();
+
     }
 
     @GET
@@ -150,13 +242,19 @@ public class EngagementResource {
     @SecurityRequirement(name = "jwt", scopes = {})
     @Path("/customers/{customerName}/projects/{projectName}")
     @APIResponses(value = { @APIResponse(responseCode = "401", description = "Missing or Invalid JWT"),
+            @APIResponse(responseCode = "304", description = "Engagement resource has not changed since the entity tag in If-None-Match"),
             @APIResponse(responseCode = "404", description = "Engagement resource with customer and project names does not exist"),
             @APIResponse(responseCode = "200", description = "Engagement resource found and returned") })
     @Operation(summary = "Returns the engagement resource for the given customer and project names.")
     @Counted(name = "engagement-get-counted")
     @Timed(name = "enagement-get-timer", unit = MetricUnits.MILLISECONDS)
     public Response get(@PathParam("customerName") String customerName, @PathParam("projectName") String projectName,
-            @BeanParam FilterOptions filterOptions) {
+            @BeanParam FilterOptions filterOptions, @Context Request request) {
+
+        if (isFullEngagement(filterOptions)) {
+            return conditionalResponse(request,
+                    engagementService.getCachedByCustomerAndProjectName(customerName, projectName), true);
+        }
 
         Engagement engagement = engagementService.getByCustomerAndProjectName(customerName, projectName, filterOptions);
         return Response.ok(engagement).header(LAST_UPDATE_HEADER, engagement.getLastUpdate())
@@ -168,12 +266,18 @@ public class EngagementResource {
     @SecurityRequirement(name = "jwt", scopes = {})
     @Path("/{id}")
     @APIResponses(value = { @APIResponse(responseCode = "401", description = "Missing or Invalid JWT"),
+            @APIResponse(responseCode = "304", description = "Engagement resource has not changed since the entity tag in If-None-Match"),
             @APIResponse(responseCode = "404", description = "Engagement resource with id does not exist"),
             @APIResponse(responseCode = "200", description = "Engagement resource found and returned") })
     @Operation(summary = "Returns the engagement resource for the given id.")
     @Counted(name = "engagement-get-by-uuid-counted")
     @Timed(name = "engagement-get-by-uuid-timer", unit = MetricUnits.MILLISECONDS)
-    public Response get(@PathParam("id") String uuid, @BeanParam FilterOptions filterOptions) {
+    public Response get(@PathParam("id") String uuid, @BeanParam FilterOptions filterOptions,
+            @Context Request request) {
+
+        if (isFullEngagement(filterOptions)) {
+            return conditionalResponse(request, engagementService.getCachedByUuid(uuid), true);
+        }
 
         Engagement engagement = engagementService.getByUuid(uuid, filterOptions);
         return Response.ok(engagement).header(LAST_UPDATE_HEADER, engagement.getLastUpdate())
@@ -181,6 +285,19 @@ public class EngagementResource {
 
     }
 
+    @POST
+    @Path("/batch-get")
+    @SecurityRequirement(name = "jwt", scopes = {})
+    @APIResponses(value = { @APIResponse(responseCode = "401", description = "Missing or Invalid JWT"),
+            @APIResponse(responseCode = "400", description = "Too many engagement ids requested"),
+            @APIResponse(responseCode = "200", description = "Engagement resources found returned keyed by id") })
+    @Operation(summary = "Returns the engagement resources for the given list of ids keyed by id.  Ids not found are omitted.")
+    @Counted(name = "engagement-batch-get-counted")
+    @Timed(name = "engagement-batch-get-timer", unit = MetricUnits.MILLISECONDS)
+    public Map<String, Engagement> batchGet(List<String> uuids, @BeanParam FilterOptions filterOptions) {
+        return engagementService.getByUuids(uuids, filterOptions);
+    }
+
     /*
      * GET - Queries
      */
@@ -239,35 +356,30 @@ public class EngagementResource {
     @SecurityRequirement(name = "jwt", scopes = {})
     @Path("/customers/{customerName}/projects/{projectName}")
     @APIResponses(value = { @APIResponse(responseCode = "401", description = "Missing or Invalid JWT"),
+            @APIResponse(responseCode = "304", description = "Engagement resource has not changed since the entity tag in If-None-Match"),
             @APIResponse(responseCode = "404", description = "Engagement resource with customer and project names does not exist"),
             @APIResponse(responseCode = "200", description = "Engagement resource found and metadata returned in headers") })
     @Operation(deprecated = true, summary = "Returns metadata regarding the engagement resource for the given customer and project names.")
     @Counted(name = "engagement-head-dep-counted")
     @Timed(name = "engagement-head-dep-timer", unit = MetricUnits.MILLISECONDS)
-    public Response head(@PathParam("customerName") String customerName, @PathParam("projectName") String projectName) {
-
-        Engagement engagement = engagementService.getByCustomerAndProjectName(customerName, projectName,
-                new FilterOptions());
-        return Response.ok().header(LAST_UPDATE_HEADER, engagement.getLastUpdate())
-                .header(ACCESS_CONTROL_EXPOSE_HEADER, LAST_UPDATE_HEADER).build();
-
+    public Response head(@PathParam("customerName") String customerName, @PathParam("projectName") String projectName,
+            @Context Request request) {
+        return conditionalResponse(request,
+                engagementService.getCachedByCustomerAndProjectName(customerName, projectName), false);
     }
 
     @HEAD
     @SecurityRequirement(name = "jwt", scopes = {})
     @Path("/{id}")
     @APIResponses(value = { @APIResponse(responseCode = "401", description = "Missing or Invalid JWT"),
+            @APIResponse(responseCode = "304", description = "Engagement resource has not changed since the entity tag in If-None-Match"),
             @APIResponse(responseCode = "404", description = "Engagement resource with customer and project names does not exist"),
             @APIResponse(responseCode = "200", description = "Engagement resource found and metadata returned in headers") })
     @Operation(summary = "Returns metadata regarding the engagement resource for the given customer and project names.")
     @Counted(name = "engagement-head-by-uuid-counted")
     @Timed(name = "engagement-head-by-uuid-timer", unit = MetricUnits.MILLISECONDS)
-    public Response head(@PathParam("id") String uuid) {
-
-        Engagement engagement = engagementService.getByUuid(uuid, new FilterOptions());
-        return Response.ok().header(LAST_UPDATE_HEADER, engagement.getLastUpdate())
-                .header(ACCESS_CONTROL_EXPOSE_HEADER, LAST_UPDATE_HEADER).build();
-
+    public Response head(@PathParam("id") String uuid, @Context Request request) {
+        return conditionalResponse(request, engagementService.getCachedByUuid(uuid), false);
     }
 
     @HEAD
@@ -279,8 +391,7 @@ public class EngagementResource {
     @Counted(name = "engagement-head-unq-subdomain-counted")
     @Timed(name = "engagement-head-unq-subdomain-timer", unit = MetricUnits.MILLISECONDS)
     public Response uniqueSubdomain(@PathParam("subdomain") String subdomain) {
-        int status = engagementService.getBySubdomain(subdomain).isPresent() ? HttpStatus.SC_CONFLICT
-                : HttpStatus.SC_OK;
+        int status = engagementService.isSubdomainInUse(subdomain) ? HttpStatus.SC_CONFLICT : HttpStatus.SC_OK;
         return Response.status(status).build();
     }
 
@@ -312,6 +423,31 @@ public class EngagementResource {
 
     }
 
+    @POST
+    @Path("/bulk")
+    @SecurityRequirement(name = "jwt", scopes = {})
+    @APIResponses(value = { @APIResponse(responseCode = "401", description = "Missing or Invalid JWT"),
+            @APIResponse(responseCode = "400", description = "Too many engagements in the request"),
+            @APIResponse(responseCode = "200", description = "Result of creating each engagement returned in request order") })
+    @Operation(summary = "Creates the engagement resources in the database with a single bulk write.  Each engagement is created or fails independently.")
+    @Counted(name = "engagement-bulk-post-counted")
+    @Timed(name = "engagement-bulk-post-timer", unit = MetricUnits.MILLISECONDS)
+    public List<BulkEngagementResult> bulkPost(List<Engagement> engagements) {
+
+        // pull user info from token
+        if (null != engagements) {
+            String username = getUsernameFromToken();
+            String email = getUserEmailFromToken();
+            engagements.stream().filter(Objects::nonNull).forEach(engagement -> {
+                engagement.setLastUpdateByName(username);
+                engagement.setLastUpdateByEmail(email);
+            });
+        }
+
+        return engagementService.bulkCreate(engagements);
+
+    }
+
     /*
      * PUT
      */
@@ -408,6 +544,29 @@ public class EngagementResource {
 
     }
 
+    /*
+     * PATCH
+     */
+
+    @PATCH
+    @SecurityRequirement(name = "jwt", scopes = {})
+    @Path("/{id}")
+    @Consumes({ EngagementService.MERGE_PATCH_JSON, EngagementService.JSON_PATCH_JSON })
+    @APIResponses(value = { @APIResponse(responseCode = "401", description = "Missing or Invalid JWT"),
+            @APIResponse(responseCode = "400", description = "Invalid patch or patched engagement"),
+            @APIResponse(responseCode = "404", description = "Engagement resource not found to update"),
+            @APIResponse(responseCode = "409", description = "Patch could not be applied or engagement changed since last update"),
+            @APIResponse(responseCode = "412", description = "Engagement changed since the entity tag in If-Match"),
+            @APIResponse(responseCode = "428", description = "Patch did not set last_update and If-Match was missing"),
+            @APIResponse(responseCode = "200", description = "Engagement updated in the database") })
+    @Operation(summary = "Applies a JSON Merge Patch or JSON Patch to the engagement resource in the database.")
+    @Counted(name = "engagement-patch-by-uuid-counted")
+    @Timed(name = "engagement-patch-by-uuid-timer", unit = MetricUnits.MILLISECONDS)
+    public Engagement patch(@PathParam("id") String uuid, @Context HttpHeaders headers, String patch) {
+        return engagementService.patch(uuid, headers.getMediaType(), patch,
+                headers.getHeaderString(HttpHeaders.IF_MATCH), getUsernameFromToken(), getUserEmailFromToken());
+    }
+
     /*
      * DELETE
      */
@@ -511,4 +670,35 @@ public class EngagementResource {
         return isV1 ? 500 : 20;
     }
 
+    private boolean isFullEngagement(FilterOptions filterOptions) {
+        return null == filterOptions.getInclude() && null == filterOptions.getExclude();
+    }
+
+    /**
+     * Returns a 304 if the request is conditional and the entity tag of the
+     * {@link CachedEngagement} matches. Otherwise, returns a 200 with the
+     * engagement in the body if requested. The serialized body is cached by UUID
+     * and entity tag.
+     * 
+     * @param request
+     * @param cached
+     * @param includeBody
+     * @return
+     */
+    private Response conditionalResponse(Request request, CachedEngagement cached, boolean includeBody) {
+
+        EntityTag entityTag = new EntityTag(cached.getEntityTag());
+        ResponseBuilder builder = request.evaluatePreconditions(entityTag);
+
+        if (null == builder) {
+            builder = includeBody ? Response.ok(jsonCache.toJson(cached.getEngagement().getUuid(),
+                    cached.getEntityTag(), FULL_PROJECTION, cached.getEngagement()), MediaType.APPLICATION_JSON)
+                    : Response.ok();
+        }
+
+        return builder.tag(entityTag).header(LAST_UPDATE_HEADER, cached.getEngagement().getLastUpdate())
+                .header(ACCESS_CONTROL_EXPOSE_HEADER, LAST_UPDATE_HEADER).build();
+
+    }
+
 }
\ No newline at end of file
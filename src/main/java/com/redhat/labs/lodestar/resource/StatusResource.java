@@ -1,5 +1,7 @@
 package com.redhat.labs.lodestar.resource;
 
+import java.util.Optional;
+
 import javax.annotation.security.PermitAll;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
@@ -9,12 +11,14 @@ import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
@@ -23,9 +27,9 @@ import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.redhat.labs.lodestar.cache.StatusCache;
 import com.redhat.labs.lodestar.model.Hook;
 import com.redhat.labs.lodestar.rest.client.LodeStarActivityApiClient;
-import com.redhat.labs.lodestar.rest.client.LodeStarStatusApiClient;
 import com.redhat.labs.lodestar.service.EngagementService;
 
 @RequestScoped
@@ -50,8 +54,7 @@ public class StatusResource {
     LodeStarActivityApiClient activityApi;
 
     @Inject
-    @RestClient
-    LodeStarStatusApiClient statusClient;
+    StatusCache statusCache;
     
     @Inject
     EngagementService engagementService;
@@ -109,8 +112,9 @@ public class StatusResource {
     @APIResponses(value = { 
             @APIResponse(responseCode = "200", description = "Component Status has been returned.") })
     @Operation(summary = "Returns status of all configured components.")
-    public Response getComponentStatus() {
-        return statusClient.getComponentStatus();
+    public Response getComponentStatus(
+            @Parameter(name = "maxAge", required = false, description = "maximum age in seconds of the status returned.  defaults to the last known status") @QueryParam("maxAge") Optional<Integer> maxAge) {
+        return statusCache.getComponentStatus(maxAge);
     }
 
 }
@@ -1,5 +1,7 @@
 package com.redhat.labs.lodestar.resource;
 
+import java.util.Optional;
+
 import javax.annotation.security.PermitAll;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
@@ -7,14 +9,15 @@ import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import org.eclipse.microprofile.metrics.annotation.Counted;
 import org.eclipse.microprofile.metrics.annotation.Timed;
 import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 
-import com.redhat.labs.lodestar.model.status.VersionManifest;
 import com.redhat.labs.lodestar.service.VersionService;
 
 /**
@@ -49,8 +52,9 @@ public class VersionResource {
     @Timed(name = "versionManifestResourceTimer")
     @Counted(name = "versionManifestResourceCounter")
     @Operation(summary = "Returns the Version Manifest from LodeStar Status")
-    public VersionManifest getStatusVersionManifest() {
-        return versionService.getVersionManifest();
+    public Response getStatusVersionManifest(
+            @Parameter(name = "maxAge", required = false, description = "maximum age in seconds of the manifest returned.  defaults to the last known manifest") @QueryParam("maxAge") Optional<Integer> maxAge) {
+        return versionService.getVersionManifest(maxAge);
     }
 
 }
@@ -0,0 +1,160 @@
+package com.redhat.labs.lodestar.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.core.Response;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.annotation.Gauge;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+import com.redhat.labs.lodestar.cache.CachedResponse;
+import com.redhat.labs.lodestar.rest.client.LodeStarActivityApiClient;
+
+/**
+ * Caches activity pages from the LodeStar Activity API. Pages for an
+ * engagement are kept until a hook for the engagement is received, and all
+ * pages are kept until the activity is refreshed, so the Activity API is only
+ * called when the activity has changed. Pages also expire after the configured
+ * time to live to pick up hooks received by other instances.
+ */
+@ApplicationScoped
+public class ActivityService {
+
+    private static final String ALL_ENGAGEMENTS = "";
+    private static final String ALL_PAGES = "all";
+
+    @ConfigProperty(name = "activity.cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "activity.cache.ttl", defaultValue = "10m")
+    Duration ttl;
+
+    @Inject
+    @RestClient
+    LodeStarActivityApiClient activityApi;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    private final Map<String, Map<String, CachedResponse>> pagesByUuid = new ConcurrentHashMap<>();
+
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Gauge(name = "activity-cache-hits", unit = MetricUnits.NONE, description = "Activity cache hits")
+    public long getHits() {
+        return hits.get();
+    }
+
+    @Gauge(name = "activity-cache-misses", unit = MetricUnits.NONE, description = "Activity cache misses")
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the page of activity across all engagements.
+     *
+     * @param page
+     * @param pageSize
+     * @return
+     */
+    public Response getActivity(int page, int pageSize) {
+        return get(ALL_ENGAGEMENTS, pageKey(page, pageSize), () -> activityApi.getPaginatedActivity(page, pageSize));
+    }
+
+    /**
+     * Returns all activity for the engagement with the UUID.
+     *
+     * @param uuid
+     * @return
+     */
+    public Response getActivityForUuid(String uuid) {
+        return get(uuid, ALL_PAGES, () -> activityApi.getActivityForUuid(uuid));
+    }
+
+    /**
+     * Returns the page of activity for the engagement with the UUID.
+     *
+     * @param uuid
+     * @param page
+     * @param pageSize
+     * @return
+     */
+    public Response getActivityForUuid(String uuid, int page, int pageSize) {
+        return get(uuid, pageKey(page, pageSize), () -> activityApi.getPaginatedActivityForUuid(uuid, page, pageSize));
+    }
+
+    /**
+     * Removes the cached activity for the engagement with the UUID, along with
+     * the pages across all engagements, and returns the current activity for the
+     * engagement from the Activity API. Used when a hook is received for the
+     * engagement.
+     *
+     * @param uuid
+     * @return
+     */
+    public Response reloadActivityForUuid(String uuid) {
+
+        invalidations.incrementAndGet();
+        pagesByUuid.remove(uuid);
+        pagesByUuid.remove(ALL_ENGAGEMENTS);
+
+        return activityApi.getActivityForUuid(uuid);
+
+    }
+
+    /**
+     * Refreshes all activity in the Activity API and removes all cached activity.
+     */
+    public void refresh() {
+
+        try {
+            activityApi.refresh();
+        } finally {
+            invalidations.incrementAndGet();
+            pagesByUuid.clear();
+        }
+
+    }
+
+    private Response get(String uuid, String pageKey, Supplier<Response> loader) {
+
+        if (!enabled) {
+            return loader.get();
+        }
+
+        Map<String, CachedResponse> pages = pagesByUuid.computeIfAbsent(uuid, k -> new ConcurrentHashMap<>());
+
+        CachedResponse cached = pages.get(pageKey);
+        if (null != cached && clock.getAsLong() - cached.getLoadedAt() < ttl.toMillis()) {
+            hits.incrementAndGet();
+            return cached.toResponse();
+        }
+
+        misses.incrementAndGet();
+        long invalidation = invalidations.get();
+        CachedResponse loaded = CachedResponse.of(loader.get(), clock.getAsLong());
+
+        // not cached if invalidated while loading, the page may already be stale
+        if (loaded.isSuccessful() && invalidation == invalidations.get()) {
+            pages.put(pageKey, loaded);
+        }
+
+        return loaded.toResponse();
+
+    }
+
+    private String pageKey(int page, int pageSize) {
+        return new StringBuilder().append(page).append(':').append(pageSize).toString();
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.redhat.labs.lodestar.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.core.Response;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.annotation.Gauge;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.redhat.labs.lodestar.cache.CachedResponse;
+import com.redhat.labs.lodestar.rest.client.LodeStarConfigApiClient;
+
+/**
+ * Caches runtime configuration from the LodeStar Config API by type. A cached
+ * configuration is returned until the time to live passes. After that, the
+ * stale configuration is still returned while it is refreshed in the
+ * background, for up to the maximum stale time. If the Config API cannot be
+ * reached, the stale configuration continues to be returned until the maximum
+ * stale time passes.
+ */
+@ApplicationScoped
+public class ConfigService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigService.class);
+
+    private static final String DEFAULT_TYPE = "";
+
+    @ConfigProperty(name = "config.cache.ttl", defaultValue = "300s")
+    Duration ttl;
+
+    @ConfigProperty(name = "config.cache.max.stale", defaultValue = "24h")
+    Duration maxStale;
+
+    @Inject
+    @RestClient
+    LodeStarConfigApiClient configApi;
+
+    Executor refreshExecutor = ForkJoinPool.commonPool();
+    LongSupplier clock = System::currentTimeMillis;
+
+    private final Map<String, CachedResponse> configs = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+
+    @Gauge(name = "config-cache-hits", unit = MetricUnits.NONE, description = "Runtime config cache hits")
+    public long getHits() {
+        return hits.get();
+    }
+
+    @Gauge(name = "config-cache-misses", unit = MetricUnits.NONE, description = "Runtime config cache misses")
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Gauge(name = "config-cache-refreshes", unit = MetricUnits.NONE, description = "Runtime config background refreshes")
+    public long getRefreshes() {
+        return refreshes.get();
+    }
+
+    @Gauge(name = "config-cache-refresh-failures", unit = MetricUnits.NONE, description = "Runtime config background refresh failures")
+    public long getRefreshFailures() {
+        return refreshFailures.get();
+    }
+
+    /**
+     * Returns the runtime configuration for the type, or the default runtime
+     * configuration if no type is provided. Caching is disabled if the time to
+     * live is zero.
+     *
+     * @param type
+     * @return
+     */
+    public Response getRuntimeConfig(Optional<String> type) {
+
+        if (ttl.isZero() || ttl.isNegative()) {
+            return configApi.getRuntimeConfig(type.orElse(null));
+        }
+
+        String key = type.orElse(DEFAULT_TYPE);
+        CachedResponse cached = configs.get(key);
+        long age = null == cached ? Long.MAX_VALUE : clock.getAsLong() - cached.getLoadedAt();
+
+        if (age < ttl.toMillis()) {
+            hits.incrementAndGet();
+            return cached.toResponse();
+        }
+
+        if (age < ttl.plus(maxStale).toMillis()) {
+            hits.incrementAndGet();
+            refreshInBackground(key);
+            return cached.toResponse();
+        }
+
+        misses.incrementAndGet();
+        return load(key).toResponse();
+
+    }
+
+    /**
+     * Starts a refresh of the type unless one is already running. Failures are
+     * logged and the stale configuration is kept.
+     *
+     * @param key
+     */
+    private void refreshInBackground(String key) {
+
+        if (!refreshing.add(key)) {
+            return;
+        }
+
+        refreshExecutor.execute(() -> {
+
+            try {
+                load(key);
+                refreshes.incrementAndGet();
+            } catch (RuntimeException e) {
+                refreshFailures.incrementAndGet();
+                LOGGER.warn("failed to refresh runtime configuration type '{}', serving stale configuration. {}",
+                        key, e.getMessage());
+            } finally {
+                refreshing.remove(key);
+            }
+
+        });
+
+    }
+
+    /**
+     * Reads the configuration for the type from the Config API, caching it if
+     * successful.
+     *
+     * @param key
+     * @return
+     */
+    private CachedResponse load(String key) {
+
+        CachedResponse loaded = CachedResponse
+                .of(configApi.getRuntimeConfig(DEFAULT_TYPE.equals(key) ? null : key), clock.getAsLong());
+
+        if (loaded.isSuccessful()) {
+            configs.put(key, loaded);
+        }
+
+        return loaded;
+
+    }
+
+}
@@ -0,0 +1,243 @@
+package com.redhat.labs.lodestar.service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.bson.Document;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.redhat.labs.lodestar.model.Engagement;
+import com.redhat.labs.lodestar.model.EngagementIndex;
+import com.redhat.labs.lodestar.repository.EngagementRepository;
+import com.redhat.labs.lodestar.repository.ManagedIndex;
+
+import io.quarkus.runtime.StartupEvent;
+
+/**
+ * Declares the indexes required by the {@link Engagement} queries and
+ * reconciles them with the indexes in the data store on startup. Only indexes
+ * with the {@link ManagedIndex#PREFIX} are created, replaced, or dropped.
+ */
+@ApplicationScoped
+public class EngagementIndexService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EngagementIndexService.class);
+
+    private static final String NAME = "name";
+    private static final String KEY = "key";
+    private static final String UNIQUE = "unique";
+    private static final String PARTIAL_FILTER_EXPRESSION = "partialFilterExpression";
+    private static final String COLLATION = "collation";
+    private static final String ACCESSES = "accesses";
+    private static final String OPS = "ops";
+    private static final String SINCE = "since";
+    private static final String CREATE_INDEXES = "createIndexes";
+    private static final String INDEXES = "indexes";
+    private static final String NAMESPACE = "ns";
+    private static final String TEMPORARY_SUFFIX = "_replacement";
+
+    private static final int INDEX_OPTIONS_CONFLICT = 85;
+    private static final int INDEX_KEY_SPECS_CONFLICT = 86;
+
+    static final List<ManagedIndex> MANAGED_INDEXES = List.of(
+            ManagedIndex.builder().name("uuid").keys(new Document("uuid", 1)).unique(true)
+                    .partialFilterExpression(new Document("uuid", new Document("$type", "string"))).build(),
+            ManagedIndex.builder().name("customer_project")
+                    .keys(new Document("customerName", 1).append("projectName", 1)).unique(true).build(),
+            ManagedIndex.builder().name("customer_project_lower")
+                    .keys(new Document("customerNameLower", 1).append("projectNameLower", 1)).build(),
+            ManagedIndex.builder().name("category_name_lower").keys(new Document("categories.nameLower", 1))
+                    .build(),
+            ManagedIndex.builder().name("artifact_type_lower").keys(new Document("artifacts.typeLower", 1))
+                    .build(),
+            ManagedIndex.builder().name("subdomains").keys(new Document("subdomains", 1)).unique(true)
+                    .partialFilterExpression(new Document("subdomains", new Document("$type", "string"))).build(),
+            ManagedIndex.builder().name("launched_date_time").keys(new Document("launch.launchedDateTime", 1))
+                    .build(),
+            ManagedIndex.builder().name("end_date").keys(new Document("endDate", 1)).build(),
+            ManagedIndex.builder().name("archive_date").keys(new Document("archiveDate", 1)).build(),
+            ManagedIndex.builder().name("user_email").keys(new Document("engagementUsers.email", 1)).build());
+
+    @ConfigProperty(name = "engagement.index.reconcile", defaultValue = "true")
+    boolean reconcileOnStartup;
+
+    @Inject
+    EngagementRepository repository;
+
+    void onStart(@Observes StartupEvent event) {
+
+        if (!reconcileOnStartup) {
+            LOGGER.debug("index reconciliation disabled");
+            return;
+        }
+
+        try {
+            // unique subdomain index requires subdomains on existing engagements
+            long updated = repository.setMissingSubdomains();
+            LOGGER.debug("set subdomains on {} engagements", updated);
+            // sort and group stages require lowercase fields on existing engagements
+            updated = repository.setMissingLowercaseFields();
+            LOGGER.debug("set lowercase fields on {} engagements", updated);
+            reconcile();
+        } catch (MongoException e) {
+            LOGGER.error("failed to reconcile engagement indexes", e);
+        }
+
+    }
+
+    /**
+     * Creates any managed index that is missing, replaces any managed index whose
+     * keys or options have changed, and drops any managed index that is no longer
+     * declared. A failure to create an index is logged and does not prevent the
+     * remaining indexes from being reconciled. A changed index is only dropped
+     * once its replacement could be built, so a failed replacement keeps the
+     * existing index.
+     */
+    public void reconcile() {
+
+        MongoCollection<Engagement> collection = repository.mongoCollection();
+
+        Map<String, Document> existing = new HashMap<>();
+        collection.listIndexes().forEach(d -> existing.put(d.getString(NAME), d));
+
+        // drop managed indexes that are no longer declared
+        Set<String> declared = MANAGED_INDEXES.stream().map(ManagedIndex::getIndexName).collect(Collectors.toSet());
+        existing.keySet().stream().filter(ManagedIndex::isManaged).filter(name -> !declared.contains(name))
+                .forEach(name -> {
+                    LOGGER.info("dropping undeclared index {}", name);
+                    collection.dropIndex(name);
+                });
+
+        for (ManagedIndex index : MANAGED_INDEXES) {
+
+            Document current = existing.get(index.getIndexName());
+
+            if (null != current && index.matches(current)) {
+                LOGGER.trace("index {} is up to date", index.getIndexName());
+                continue;
+            }
+
+            try {
+
+                if (null == current) {
+                    LOGGER.info("creating index {}", index.getIndexName());
+                    collection.createIndex(index.getKeys(), index.toIndexOptions());
+                } else {
+                    LOGGER.info("replacing modified index {}", index.getIndexName());
+                    replace(collection, index, current);
+                }
+
+            } catch (MongoException e) {
+                LOGGER.error("failed to create index {}", index.getIndexName(), e);
+            }
+
+        }
+
+    }
+
+    /**
+     * Replaces the existing index with the declared index. The declared index is
+     * first built under a temporary name, so that the existing index is kept if
+     * the build fails, for example because of duplicates for a new unique index.
+     * If the data store does not allow both indexes at once, because they have
+     * the same keys, the existing index is dropped first and recreated from its
+     * specification if the declared index cannot be built.
+     *
+     * @param collection
+     * @param index
+     * @param current    the specification of the existing index
+     */
+    void replace(MongoCollection<Engagement> collection, ManagedIndex index, Document current) {
+
+        String temporaryName = index.getIndexName() + TEMPORARY_SUFFIX;
+
+        try {
+            collection.createIndex(index.getKeys(), index.toIndexOptions().name(temporaryName));
+        } catch (MongoException e) {
+
+            if (INDEX_OPTIONS_CONFLICT != e.getCode() && INDEX_KEY_SPECS_CONFLICT != e.getCode()) {
+                throw e;
+            }
+
+            collection.dropIndex(index.getIndexName());
+
+            try {
+                collection.createIndex(index.getKeys(), index.toIndexOptions());
+            } catch (MongoException createFailure) {
+                LOGGER.warn("restoring index {}", index.getIndexName());
+                Document spec = new Document(current);
+                spec.remove(NAMESPACE);
+                repository.mongoDatabase().runCommand(new Document(CREATE_INDEXES,
+                        collection.getNamespace().getCollectionName()).append(INDEXES, List.of(spec)));
+                throw createFailure;
+            }
+
+            return;
+
+        }
+
+        // the temporary index is kept if the final index cannot be built, it is
+        // dropped as undeclared by the next reconcile
+        collection.dropIndex(index.getIndexName());
+        collection.createIndex(index.getKeys(), index.toIndexOptions());
+        collection.dropIndex(temporaryName);
+
+    }
+
+    /**
+     * Returns a {@link List} of {@link EngagementIndex} describing each index on
+     * the engagement collection and how many times it has been used since the
+     * data store started.
+     *
+     * @return
+     */
+    public List<EngagementIndex> getIndexes() {
+
+        MongoCollection<Engagement> collection = repository.mongoCollection();
+
+        Map<String, Document> stats = new HashMap<>();
+        collection.aggregate(List.of(new Document("$indexStats", new Document())), Document.class)
+                .forEach(d -> stats.put(d.getString(NAME), d));
+
+        List<EngagementIndex> indexes = new ArrayList<>();
+        collection.listIndexes().forEach(spec -> {
+
+            String name = spec.getString(NAME);
+            EngagementIndex index = EngagementIndex.builder().name(name).keys(spec.get(KEY, Document.class))
+                    .unique(spec.getBoolean(UNIQUE, false))
+                    .partialFilterExpression(spec.get(PARTIAL_FILTER_EXPRESSION, Document.class))
+                    .collation(spec.get(COLLATION, Document.class)).managed(ManagedIndex.isManaged(name)).build();
+
+            Document accesses = null == stats.get(name) ? null : stats.get(name).get(ACCESSES, Document.class);
+            if (null != accesses) {
+
+                Object ops = accesses.get(OPS);
+                index.setAccessCount(ops instanceof Number ? ((Number) ops).longValue() : null);
+
+                Date since = accesses.getDate(SINCE);
+                index.setAccessedSince(null == since ? null : since.toInstant().toString());
+
+            }
+
+            indexes.add(index);
+
+        });
+
+        return indexes;
+
+    }
+
+}
@@ -1,20 +1,42 @@
 package com.redhat.labs.lodestar.service;
 
+import java.io.StringReader;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
 import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbException;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
 
 import org.apache.http.HttpStatus;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
@@ -23,7 +45,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoException;
+import com.mongodb.bulk.BulkWriteError;
+import com.redhat.labs.lodestar.cache.CachedEngagement;
+import com.redhat.labs.lodestar.cache.EngagementCache;
+import com.redhat.labs.lodestar.cache.EngagementChangeTracker;
+import com.redhat.labs.lodestar.cache.Facet;
+import com.redhat.labs.lodestar.cache.FacetCache;
+import com.redhat.labs.lodestar.cache.FacetValue;
+import com.redhat.labs.lodestar.cache.SubdomainRegistry;
 import com.redhat.labs.lodestar.model.Artifact;
+import com.redhat.labs.lodestar.model.BulkEngagementResult;
 import com.redhat.labs.lodestar.model.Category;
 import com.redhat.labs.lodestar.model.Commit;
 import com.redhat.labs.lodestar.model.CreationDetails;
@@ -38,7 +71,9 @@ import com.redhat.labs.lodestar.model.Launch;
 import com.redhat.labs.lodestar.model.Score;
 import com.redhat.labs.lodestar.model.Status;
 import com.redhat.labs.lodestar.model.UseCase;
+import com.redhat.labs.lodestar.model.event.BulkCreateEvent;
 import com.redhat.labs.lodestar.model.event.EventType;
+import com.redhat.labs.lodestar.model.filter.CountStrategy;
 import com.redhat.labs.lodestar.model.filter.FilterOptions;
 import com.redhat.labs.lodestar.model.filter.ListFilterOptions;
 import com.redhat.labs.lodestar.model.pagination.PagedArtifactResults;
@@ -49,7 +84,10 @@ import com.redhat.labs.lodestar.model.pagination.PagedScoreResults;
 import com.redhat.labs.lodestar.model.pagination.PagedStringResults;
 import com.redhat.labs.lodestar.model.pagination.PagedUseCaseResults;
 import com.redhat.labs.lodestar.repository.EngagementRepository;
+import com.redhat.labs.lodestar.repository.EngagementStateCounts;
 import com.redhat.labs.lodestar.rest.client.LodeStarGitApiClient;
+import com.redhat.labs.lodestar.util.DateFormatter;
+import com.redhat.labs.lodestar.util.DeepCopyUtils;
 
 import io.vertx.mutiny.core.eventbus.EventBus;
 
@@ -60,6 +98,13 @@ public class EngagementService {
 
     private static final String BACKEND_BOT = "lodestar-backend-bot";
     private static final String BACKEND_BOT_EMAIL = "lodestar-backend-bot@bot.com";
+    private static final String COUNT_SIGNATURE = "count|";
+    private static final int DEFAULT_PER_PAGE = 20;
+    private static final int PRECONDITION_REQUIRED = 428;
+    private static final String LAST_UPDATE_FIELD = "last_update";
+
+    public static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+    public static final String JSON_PATCH_JSON = "application/json-patch+json";
 
     @ConfigProperty(name = "status.file")
     String statusFile;
@@ -67,21 +112,50 @@ public class EngagementService {
     @ConfigProperty(name = "commit.msg.filter.list", defaultValue = "not.set")
     List<String> commitFilteredMessages;
 
+    @ConfigProperty(name = "engagement.state.count.cache.enabled", defaultValue = "true")
+    boolean stateCountCacheEnabled;
+
+    @ConfigProperty(name = "engagement.state.count.cache.ttl", defaultValue = "60s")
+    Duration stateCountCacheTtl;
+
+    @ConfigProperty(name = "engagement.batch.get.max.size", defaultValue = "100")
+    int batchGetMaxSize;
+
+    @ConfigProperty(name = "engagement.bulk.max.size", defaultValue = "500")
+    int bulkMaxSize;
+
+    @Inject
+    EngagementRepository repository;
+
     @Inject
     Jsonb jsonb;
 
     @Inject
-    EngagementRepository repository;
+    Validator validator;
 
     @Inject
     EventBus eventBus;
 
+    @Inject
+    EngagementChangeTracker changeTracker;
+
+    @Inject
+    SubdomainRegistry subdomainRegistry;
+
+    @Inject
+    EngagementCache engagementCache;
+
+    @Inject
+    FacetCache facetCache;
+
     @Inject
     @RestClient
     LodeStarGitApiClient gitApi;
 
     ObjectMapper objectMapper = new ObjectMapper();
 
+    private final AtomicReference<EngagementStateCounts> stateCounts = new AtomicReference<>();
+
     /**
      * Creates a new {@link Engagement} resource in the data store and marks if for
      * asynchronous processing by the {@link GitSyncService}.
@@ -109,7 +183,12 @@ public class EngagementService {
         engagement.setCommitMessage(null);
 
         // save to database
-        repository.persist(engagement);
+        try {
+            repository.persist(engagement);
+        } catch (MongoException e) {
+            throw conflictIfDuplicateKey(e);
+        }
+        changeTracker.upserted(engagement);
 
         // send create engagement event after save to database
         eventBus.sendAndForget(EventType.CREATE_ENGAGEMENT_EVENT_ADDRESS, copy);
@@ -118,6 +197,221 @@ public class EngagementService {
 
     }
 
+    /**
+     * Creates the {@link Engagement}s in the data store with a single bulk write
+     * and marks the created {@link Engagement}s for asynchronous processing by
+     * the {@link GitSyncService}. Returns a {@link BulkEngagementResult} for each
+     * {@link Engagement} in the same order. Invalid or conflicting
+     * {@link Engagement}s are reported in their result and do not stop the
+     * others from being created.
+     * 
+     * @param engagements
+     * @return
+     */
+    public List<BulkEngagementResult> bulkCreate(List<Engagement> engagements) {
+
+        if (null == engagements || engagements.isEmpty()) {
+            return List.of();
+        }
+
+        if (engagements.size() > bulkMaxSize) {
+            throw new WebApplicationException("a maximum of " + bulkMaxSize + " engagements can be created at once",
+                    HttpStatus.SC_BAD_REQUEST);
+        }
+
+        BulkEngagementResult[] results = new BulkEngagementResult[engagements.size()];
+        List<Integer> valid = new ArrayList<>();
+
+        for (int i = 0; i < engagements.size(); i++) {
+
+            Engagement engagement = engagements.get(i);
+
+            try {
+
+                if (null == engagement) {
+                    throw new WebApplicationException("engagement is required.", HttpStatus.SC_BAD_REQUEST);
+                }
+
+                validate(engagement);
+                cleanEngagement(engagement);
+                validateHostingEnvironments(engagement.getHostingEnvironments());
+                valid.add(i);
+
+            } catch (WebApplicationException e) {
+                results[i] = bulkResult(i, engagement, e.getResponse().getStatus(), e.getMessage());
+            }
+
+        }
+
+        // existing uuids, names, and subdomains of the whole batch are each checked
+        // with a single query
+        List<Engagement> validEngagements = valid.stream().map(engagements::get).collect(Collectors.toList());
+
+        Set<String> uuids = validEngagements.stream().map(Engagement::getUuid).filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> existingUuids = uuids.isEmpty() ? Set.of()
+                : repository.findByUuids(uuids, new FilterOptions()).stream().map(Engagement::getUuid)
+                        .collect(Collectors.toSet());
+
+        Set<String> existingNames = repository.findByCustomerAndProjectNames(validEngagements).stream()
+                .map(this::getNameKey).collect(Collectors.toSet());
+
+        List<String> subdomains = validEngagements.stream()
+                .flatMap(e -> getSubdomains(e.getHostingEnvironments()).stream()).collect(Collectors.toList());
+        Set<String> subdomainsInUse = subdomains.isEmpty() ? Set.of()
+                : repository.findSubdomainsInUse(subdomains, Optional.empty());
+
+        List<Integer> indexes = new ArrayList<>();
+        List<Engagement> toInsert = new ArrayList<>();
+
+        // names and subdomains used by earlier engagements in the batch
+        Set<String> batchNames = new HashSet<>();
+        Set<String> batchSubdomains = new HashSet<>();
+
+        for (Integer i : valid) {
+
+            Engagement engagement = engagements.get(i);
+            List<String> engagementSubdomains = getSubdomains(engagement.getHostingEnvironments());
+            List<String> conflicts = engagementSubdomains.stream()
+                    .filter(subdomain -> subdomainsInUse.contains(subdomain.toLowerCase()))
+                    .collect(Collectors.toList());
+            List<String> duplicates = engagementSubdomains.stream()
+                    .filter(subdomain -> batchSubdomains.contains(subdomain.toLowerCase()))
+                    .collect(Collectors.toList());
+            String nameKey = getNameKey(engagement);
+
+            if ((null != engagement.getUuid() && existingUuids.contains(engagement.getUuid()))
+                    || existingNames.contains(nameKey)) {
+                results[i] = bulkResult(i, engagement, HttpStatus.SC_CONFLICT,
+                        "engagement already exists, use PUT to update resource");
+            } else if (!conflicts.isEmpty()) {
+                results[i] = bulkResult(i, engagement, HttpStatus.SC_CONFLICT,
+                        String.format("The following subdomains are already in use: %s", conflicts));
+            } else if (batchNames.contains(nameKey)) {
+                results[i] = bulkResult(i, engagement, HttpStatus.SC_CONFLICT,
+                        "engagement customer and project names are used by another engagement in the request");
+            } else if (!duplicates.isEmpty()) {
+                results[i] = bulkResult(i, engagement, HttpStatus.SC_CONFLICT, String.format(
+                        "The following subdomains are used by another engagement in the request: %s", duplicates));
+            } else {
+                batchNames.add(nameKey);
+                engagementSubdomains.stream().map(String::toLowerCase).forEach(batchSubdomains::add);
+                setBeforeInsert(engagement);
+                indexes.add(i);
+                toInsert.add(engagement);
+            }
+
+        }
+
+        // create copies to send to git api, then reset commit messages
+        List<Engagement> copies = toInsert.stream().map(this::clone).collect(Collectors.toList());
+        toInsert.stream().forEach(e -> e.setCommitMessage(null));
+
+        Map<Integer, BulkWriteError> errors = repository.insertAll(toInsert).stream()
+                .collect(Collectors.toMap(BulkWriteError::getIndex, Function.identity()));
+
+        List<Engagement> created = new ArrayList<>();
+
+        for (int j = 0; j < toInsert.size(); j++) {
+
+            Engagement engagement = toInsert.get(j);
+            BulkWriteError error = errors.get(j);
+
+            if (null == error) {
+                changeTracker.upserted(engagement);
+                created.add(copies.get(j));
+                results[indexes.get(j)] = bulkResult(indexes.get(j), engagement, HttpStatus.SC_CREATED, null);
+            } else if (ErrorCategory.DUPLICATE_KEY.equals(error.getCategory())) {
+                results[indexes.get(j)] = bulkResult(indexes.get(j), engagement, HttpStatus.SC_CONFLICT,
+                        "engagement subdomain or names are already in use.");
+            } else {
+                results[indexes.get(j)] = bulkResult(indexes.get(j), engagement, HttpStatus.SC_INTERNAL_SERVER_ERROR,
+                        error.getMessage());
+            }
+
+        }
+
+        // send created engagements to git
+        if (!created.isEmpty()) {
+            eventBus.sendAndForget(EventType.BULK_CREATE_ENGAGEMENT_EVENT_ADDRESS, new BulkCreateEvent(created));
+        }
+
+        return Arrays.asList(results);
+
+    }
+
+    /**
+     * Returns the non blank subdomains of the {@link HostingEnvironment}s.
+     * 
+     * @param environments
+     * @return
+     */
+    private List<String> getSubdomains(List<HostingEnvironment> environments) {
+
+        if (null == environments) {
+            return List.of();
+        }
+
+        return environments.stream().map(HostingEnvironment::getOcpSubDomain)
+                .filter(subdomain -> null != subdomain && !subdomain.isBlank()).collect(Collectors.toList());
+
+    }
+
+    /**
+     * Returns a key identifying the customer and project names of the
+     * {@link Engagement}.
+     * 
+     * @param engagement
+     * @return
+     */
+    private String getNameKey(Engagement engagement) {
+        return new StringBuilder().append(engagement.getCustomerName()).append('\u0000')
+                .append(engagement.getProjectName()).toString();
+    }
+
+    /**
+     * Returns the {@link BulkEngagementResult} for the {@link Engagement} at the
+     * index of the bulk request. The UUID and names are included if the
+     * {@link Engagement} was provided.
+     * 
+     * @param index
+     * @param engagement
+     * @param status
+     * @param message
+     * @return
+     */
+    private BulkEngagementResult bulkResult(int index, Engagement engagement, int status, String message) {
+
+        BulkEngagementResult result = BulkEngagementResult.builder().index(index).status(status).message(message)
+                .build();
+
+        if (null != engagement) {
+            result.setUuid(engagement.getUuid());
+            result.setCustomerName(engagement.getCustomerName());
+            result.setProjectName(engagement.getProjectName());
+        }
+
+        return result;
+
+    }
+
+    /**
+     * Throws a {@link WebApplicationException} listing the constraint violations
+     * of the {@link Engagement}, if any.
+     * 
+     * @param engagement
+     */
+    void validate(Engagement engagement) {
+
+        Set<ConstraintViolation<Engagement>> violations = validator.validate(engagement);
+        if (!violations.isEmpty()) {
+            throw new WebApplicationException(violations.stream()
+                    .map(v -> v.getPropertyPath() + " " + v.getMessage()).collect(Collectors.joining(", ")),
+                    HttpStatus.SC_BAD_REQUEST);
+        }
+
+    }
+
     /**
      * Sets required {@link Engagement} attributes required before the initial
      * insert in to the data store.
@@ -135,6 +429,10 @@ public class EngagementService {
         // set creation details
         setCreationDetails(engagement);
 
+        // set lowercase subdomains and sort/group fields
+        engagement.updateSubdomains();
+        engagement.updateLowercaseFields();
+
     }
 
     /**
@@ -200,10 +498,189 @@ public class EngagementService {
         Engagement existing = getByIdOrName(engagement).orElseThrow(
                 () -> new WebApplicationException("no engagement found, use POST to create", HttpStatus.SC_NOT_FOUND));
 
+        validateHostingEnvironments(engagement.getHostingEnvironments());
+        validateSubdomainOnUpdate(engagement, existing);
+
+        return update(engagement, existing);
+
+    }
+
+    /**
+     * Applies the JSON Merge Patch (RFC 7396) or JSON Patch (RFC 6902) to the
+     * {@link Engagement} with the given UUID, then updates the patched
+     * {@link Engagement} in the data store and marks it for asynchronous
+     * processing by the {@link GitSyncService}.
+     * 
+     * The patch must be conditional. Either the patch sets the last update the
+     * client read, which is used for the concurrency check, or the If-Match
+     * header contains the current entity tag of the {@link Engagement}. A 428 is
+     * thrown if neither is provided and a 412 if the entity tag does not match.
+     * Hosting environments are only validated if the patch changed them.
+     * 
+     * @param uuid
+     * @param mediaType
+     * @param patch
+     * @param ifMatch
+     * @param lastUpdateByName
+     * @param lastUpdateByEmail
+     * @return
+     */
+    public Engagement patch(String uuid, MediaType mediaType, String patch, String ifMatch, String lastUpdateByName,
+            String lastUpdateByEmail) {
+
+        Engagement existing = repository.findByUuid(uuid).orElseThrow(
+                () -> new WebApplicationException("no engagement found with id " + uuid, HttpStatus.SC_NOT_FOUND));
+
+        JsonValue patchValue = readJson(patch);
+
+        if (null != ifMatch) {
+            if (!matchesEntityTag(ifMatch, CachedEngagement.of(existing).getEntityTag())) {
+                throw new WebApplicationException("engagement has changed since the entity tag in If-Match.",
+                        HttpStatus.SC_PRECONDITION_FAILED);
+            }
+        } else if (!setsLastUpdate(patchValue)) {
+            throw new WebApplicationException("patch must set last_update or include an If-Match header.",
+                    PRECONDITION_REQUIRED);
+        }
+
+        // commit message of the existing engagement is aggregated on update
+        JsonObject target = readJson(jsonb.toJson(existing.toBuilder().commitMessage(null).build()))
+                .asJsonObject();
+        Engagement engagement = toEngagement(applyPatch(target, mediaType, patchValue));
+
+        if (!uuid.equals(engagement.getUuid())) {
+            throw new WebApplicationException("engagement uuid cannot be patched.", HttpStatus.SC_BAD_REQUEST);
+        }
+
+        validate(engagement);
+
+        engagement.setLastUpdateByName(lastUpdateByName);
+        engagement.setLastUpdateByEmail(lastUpdateByEmail);
+
+        if (!Objects.equals(engagement.getHostingEnvironments(), existing.getHostingEnvironments())) {
+            validateHostingEnvironments(engagement.getHostingEnvironments());
+            validateSubdomainOnUpdate(engagement, existing);
+        }
+
+        return update(engagement, existing);
+
+    }
+
+    /**
+     * Returns the result of applying the patch to the target. The media type
+     * determines if the patch is a JSON Merge Patch or a JSON Patch.
+     * 
+     * @param target
+     * @param mediaType
+     * @param patch
+     * @return
+     */
+    JsonValue applyPatch(JsonObject target, MediaType mediaType, JsonValue patch) {
+
+        try {
+
+            if (MediaType.valueOf(MERGE_PATCH_JSON).isCompatible(mediaType)) {
+                return Json.createMergePatch(patch).apply(target);
+            }
+
+            if (MediaType.valueOf(JSON_PATCH_JSON).isCompatible(mediaType)) {
+
+                if (!(patch instanceof JsonArray)) {
+                    throw new WebApplicationException("json patch must be an array of operations.",
+                            HttpStatus.SC_BAD_REQUEST);
+                }
+
+                return Json.createPatch(patch.asJsonArray()).apply(target);
+
+            }
+
+        } catch (JsonException e) {
+            // failed test operations and missing paths
+            throw new WebApplicationException("failed to apply patch: " + e.getMessage(), HttpStatus.SC_CONFLICT);
+        }
+
+        throw new WebApplicationException("unsupported patch media type " + mediaType,
+                HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE);
+
+    }
+
+    /**
+     * Returns true if one of the entity tags in the If-Match header value is the
+     * given strong entity tag.
+     * 
+     * @param ifMatch
+     * @param entityTag
+     * @return
+     */
+    boolean matchesEntityTag(String ifMatch, String entityTag) {
+
+        String quoted = new StringBuilder("\"").append(entityTag).append("\"").toString();
+        return Arrays.stream(ifMatch.split(",")).map(String::trim).anyMatch(quoted::equals);
+
+    }
+
+    /**
+     * Returns true if the JSON Merge Patch or JSON Patch sets the last update of
+     * the {@link Engagement}.
+     * 
+     * @param patch
+     * @return
+     */
+    boolean setsLastUpdate(JsonValue patch) {
+
+        if (patch instanceof JsonObject) {
+            JsonValue lastUpdate = patch.asJsonObject().get(LAST_UPDATE_FIELD);
+            return null != lastUpdate && JsonValue.ValueType.NULL != lastUpdate.getValueType();
+        }
+
+        if (patch instanceof JsonArray) {
+            return patch.asJsonArray().stream().filter(JsonObject.class::isInstance).map(JsonValue::asJsonObject)
+                    .anyMatch(operation -> ("/" + LAST_UPDATE_FIELD).equals(operation.getString("path", null))
+                            && !"remove".equals(operation.getString("op", null)));
+        }
+
+        return false;
+
+    }
+
+    private JsonValue readJson(String json) {
+
+        try (JsonReader reader = Json.createReader(new StringReader(json))) {
+            return reader.readValue();
+        } catch (JsonException e) {
+            throw new WebApplicationException("invalid json: " + e.getMessage(), HttpStatus.SC_BAD_REQUEST);
+        }
+
+    }
+
+    private Engagement toEngagement(JsonValue value) {
+
+        if (!(value instanceof JsonObject)) {
+            throw new WebApplicationException("patched engagement must be a json object.", HttpStatus.SC_BAD_REQUEST);
+        }
+
+        try {
+            return jsonb.fromJson(value.toString(), Engagement.class);
+        } catch (JsonbException e) {
+            throw new WebApplicationException("invalid patched engagement: " + e.getMessage(),
+                    HttpStatus.SC_BAD_REQUEST);
+        }
+
+    }
+
+    /**
+     * Updates the validated {@link Engagement} in the data store if the existing
+     * {@link Engagement} has not been modified since the last update of the given
+     * {@link Engagement}, then sends the update engagement event.
+     * 
+     * @param engagement
+     * @param existing
+     * @return
+     */
+    Engagement update(Engagement engagement, Engagement existing) {
+
         String currentLastUpdated = engagement.getLastUpdate();
 
-        validateHostingEnvironments(engagement.getHostingEnvironments());
-        validateSubdomainOnUpdate(engagement);
         validateCustomerAndProjectNames(engagement, existing);
         setBeforeUpdate(engagement, existing);
 
@@ -216,10 +693,17 @@ public class EngagementService {
             engagement.getEngagementUsers().stream().forEach(u -> u.setReset(false));
         }
 
-        Engagement updated = repository.updateEngagement(engagement, currentLastUpdated)
-                .orElseThrow(() -> new WebApplicationException(
-                        "Failed to modify engagement because request contained stale data.  Please refresh and try again.",
-                        HttpStatus.SC_CONFLICT));
+        Optional<Engagement> optional;
+        try {
+            optional = repository.updateEngagement(engagement, existing, currentLastUpdated);
+        } catch (MongoException e) {
+            throw conflictIfDuplicateKey(e);
+        }
+
+        Engagement updated = optional.orElseThrow(() -> new WebApplicationException(
+                "Failed to modify engagement because request contained stale data.  Please refresh and try again.",
+                HttpStatus.SC_CONFLICT));
+        changeTracker.upserted(updated);
 
         // send update engagement event once saved
         eventBus.sendAndForget(EventType.UPDATE_ENGAGEMENT_EVENT_ADDRESS, copy);
@@ -309,53 +793,86 @@ public class EngagementService {
      * @param engagement
      */
     void validateSubdomainOnCreate(Engagement engagement) {
+        validateSubdomainsNotInUse(engagement.getHostingEnvironments(), Optional.empty());
+    }
 
-        if (null != engagement.getHostingEnvironments()) {
+    /**
+     * Throws {@link WebApplicationException} if the supplied subdomain is different
+     * from the persisted domain and another {@link Engagement} is already using it.
+     * 
+     * @param toUpdate
+     * @param existing
+     */
+    void validateSubdomainOnUpdate(Engagement toUpdate, Engagement existing) {
+        validateSubdomainsNotInUse(toUpdate.getHostingEnvironments(), Optional.ofNullable(existing.getUuid()));
+    }
 
-            // validate each subdomain
-            List<String> subdomainsInUse = engagement.getHostingEnvironments().stream()
-                    .filter(env -> null != env.getOcpSubDomain())
-                    .filter(env -> doesSubdomainExist(env.getOcpSubDomain())).map(HostingEnvironment::getOcpSubDomain)
-                    .collect(Collectors.toList());
+    /**
+     * Throws {@link WebApplicationException} listing every subdomain of the
+     * {@link HostingEnvironment}s that is used by an {@link Engagement} other than
+     * the one with the given UUID. All subdomains are checked with a single query.
+     * 
+     * @param environments
+     * @param engagementUuid
+     */
+    void validateSubdomainsNotInUse(List<HostingEnvironment> environments, Optional<String> engagementUuid) {
 
-            if (!subdomainsInUse.isEmpty()) {
-                throw new WebApplicationException(
-                        String.format("The following subdomains are already in use: %s", subdomainsInUse),
-                        HttpStatus.SC_CONFLICT);
-            }
+        List<String> subdomains = getSubdomains(environments);
 
+        if (subdomains.isEmpty()) {
+            return;
+        }
+
+        Set<String> inUse = repository.findSubdomainsInUse(subdomains, engagementUuid);
+        List<String> subdomainsInUse = subdomains.stream().filter(subdomain -> inUse.contains(subdomain.toLowerCase()))
+                .collect(Collectors.toList());
+
+        LOGGER.debug("subdomains in use: {}", subdomainsInUse);
+
+        if (!subdomainsInUse.isEmpty()) {
+            throw new WebApplicationException(
+                    String.format("The following subdomains are already in use: %s", subdomainsInUse),
+                    HttpStatus.SC_CONFLICT);
         }
 
     }
 
     /**
-     * Throws {@link WebApplicationException} if the supplied subdomain is different
-     * from the persisted domain and another {@link Engagement} is already using it.
-     * 
-     * @param toUpdate
+     * Returns a CONFLICT {@link WebApplicationException} if the
+     * {@link MongoException} was caused by a duplicate key. This happens when
+     * another request used the same subdomain or names after validation.
+     * Otherwise, the {@link MongoException} is returned.
      * 
+     * @param e
+     * @return
      */
-    void validateSubdomainOnUpdate(Engagement toUpdate) {
+    RuntimeException conflictIfDuplicateKey(MongoException e) {
 
-        if (null != toUpdate.getHostingEnvironments()) {
+        if (ErrorCategory.DUPLICATE_KEY.equals(ErrorCategory.fromErrorCode(e.getCode()))) {
+            return new WebApplicationException("engagement subdomain or names are already in use.",
+                    HttpStatus.SC_CONFLICT);
+        }
 
-            List<String> subdomainsInUse = toUpdate.getHostingEnvironments().stream()
-                    .filter(he -> null != he.getOcpSubDomain())
-                    .filter(he -> repository
-                            .findBySubdomain(he.getOcpSubDomain(), Optional.ofNullable(toUpdate.getUuid())).isEmpty())
-                    .filter(he -> repository.findBySubdomain(he.getOcpSubDomain()).isPresent())
-                    .map(HostingEnvironment::getOcpSubDomain).collect(Collectors.toList());
+        return e;
 
-            LOGGER.debug("subdomains in use: {}", subdomainsInUse);
+    }
 
-            if (!subdomainsInUse.isEmpty()) {
-                throw new WebApplicationException(
-                        String.format("The following subdomains are already in use: %s", subdomainsInUse),
-                        HttpStatus.SC_CONFLICT);
-            }
+    /**
+     * Returns true if the subdomain is used by an {@link Engagement}. The
+     * {@link SubdomainRegistry} is used if loaded. Otherwise, the data store is
+     * checked.
+     * 
+     * @param subdomain
+     * @return
+     */
+    public boolean isSubdomainInUse(String subdomain) {
 
+        if (null == subdomain || subdomain.isBlank()) {
+            return false;
         }
 
+        return subdomainRegistry.isInUse(subdomain).orElseGet(() -> doesSubdomainExist(subdomain));
+
     }
 
     /**
@@ -413,6 +930,10 @@ public class EngagementService {
         // set ids and/or time stamps for modified attributes
         setIdsAndTimestamps(engagement, existing);
 
+        // set lowercase subdomains and sort/group fields
+        engagement.updateSubdomains();
+        engagement.updateLowercaseFields();
+
     }
 
     /**
@@ -477,6 +998,9 @@ public class EngagementService {
      * attribute exists in the {@link List} of existing, the updated timestamp will
      * be updated in it has been modified. Otherwise, nothing will be updated.
      * 
+     * Existing attributes are indexed by UUID, so the time taken grows linearly
+     * with the size of the lists.
+     * 
      * @param incoming
      * @param existing
      */
@@ -494,17 +1018,19 @@ public class EngagementService {
             return;
         }
 
+        Map<String, EngagementAttribute> existingByUuid = new HashMap<>(existing.size() * 2);
+        existing.stream().filter(ea -> null != ea.getUuid())
+                .forEach(ea -> existingByUuid.putIfAbsent(ea.getUuid(), ea));
+
         // check if each attribute in incoming already exists, if true, and modified,
         // set updated ts
         incoming.stream().forEach(ia -> {
 
-            // need list of new and already exists
-            Optional<? extends EngagementAttribute> optional = existing.stream()
-                    .filter(ea -> null != ia.getUuid() && ia.getUuid().equals(ea.getUuid())).findAny();
-            if (optional.isPresent()) {
+            EngagementAttribute match = (null == ia.getUuid()) ? null : existingByUuid.get(ia.getUuid());
+            if (null != match) {
 
                 // set updated ts if modified
-                if (!ia.equals(optional.get())) {
+                if (!ia.equals(match)) {
                     ia.setUpdated();
                 }
 
@@ -520,7 +1046,8 @@ public class EngagementService {
 
     /**
      * Sets a {@link UUID} for new {@link EngagementUser} or uses existing
-     * {@link UUID} for existing {@link EngagementUser}s.
+     * {@link UUID} for existing {@link EngagementUser}s. Existing users are
+     * indexed by email.
      * 
      * @param engagement
      * @param existing
@@ -535,15 +1062,16 @@ public class EngagementService {
             return;
         }
 
-        incomingUsers.stream().forEach(user -> {
+        Map<String, String> uuidsByEmail = new HashMap<>();
+        if (null != existingUsers) {
+            existingUsers.stream().forEach(eUser -> uuidsByEmail.putIfAbsent(eUser.getEmail(), eUser.getUuid()));
+        }
 
-            // find existing user with matching email
-            Optional<EngagementUser> optionalUser = (null == existingUsers) ? Optional.empty()
-                    : existingUsers.stream().filter(eUser -> eUser.getEmail().equals(user.getEmail())).findFirst();
+        incomingUsers.stream().forEach(user -> {
 
-            if (optionalUser.isPresent()) {
+            if (uuidsByEmail.containsKey(user.getEmail())) {
                 // set uuid to that of existing user
-                user.setUuid(optionalUser.get().getUuid());
+                user.setUuid(uuidsByEmail.get(user.getEmail()));
             } else {
                 // set uuid to new uuid for new users
                 user.setUuid(UUID.randomUUID().toString());
@@ -571,7 +1099,7 @@ public class EngagementService {
      * @param projectId
      */
     public void setProjectId(String uuid, Integer projectId) {
-        repository.setProjectId(uuid, projectId);
+        repository.setProjectId(uuid, projectId).ifPresent(changeTracker::upserted);
     }
 
     /**
@@ -616,7 +1144,7 @@ public class EngagementService {
      */
     public void setStatus(String uuid, Status status) {
         LOGGER.trace("\tupdating {} with status {}", uuid, status);
-        repository.setStatus(uuid, status);
+        repository.setStatus(uuid, status).ifPresent(changeTracker::upserted);
     }
 
     /**
@@ -628,7 +1156,7 @@ public class EngagementService {
      */
     public void setCommits(String uuid, List<Commit> commits) {
         LOGGER.trace("\tupdating {} with {} commits.", uuid, commits.size());
-        repository.setCommits(uuid, commits);
+        repository.setCommits(uuid, commits).ifPresent(changeTracker::upserted);
     }
 
     /**
@@ -661,21 +1189,105 @@ public class EngagementService {
                         HttpStatus.SC_NOT_FOUND));
     }
 
+    /**
+     * Returns the {@link CachedEngagement} for the customer and project names,
+     * reading from the data store only if it is not cached. Otherwise, throws a
+     * Not Found {@link WebApplicationException}.
+     * 
+     * @param customerName
+     * @param projectName
+     * @return
+     */
+    public CachedEngagement getCachedByCustomerAndProjectName(String customerName, String projectName) {
+        return engagementCache
+                .getByCustomerAndProjectName(customerName, projectName,
+                        () -> repository.findByCustomerNameAndProjectName(customerName, projectName,
+                                new FilterOptions()))
+                .orElseThrow(() -> new WebApplicationException(
+                        "no engagement found with customer:project " + customerName + ":" + projectName,
+                        HttpStatus.SC_NOT_FOUND));
+    }
+
+    /**
+     * Returns the number of {@link Engagement}s in each {@link EngagementState} at
+     * the given time. The counts are cached until the next write, until the time
+     * passes an end or archive date that changes the state of an
+     * {@link Engagement}, or until the cache TTL expires, so that writes made by
+     * other instances are picked up.
+     * 
+     * @param currentTime
+     * @return
+     */
     public Map<EngagementState, Integer> getEngagementCountByStatus(LocalDateTime currentTime) {
 
-        List<Engagement> engagementList = repository.listAll();
-        Map<EngagementState, Integer> statusCounts = new EnumMap<>(EngagementState.class);
+        String time = DateFormatter.getInstance().getDateFormat().format(currentTime);
+        long version = changeTracker.getVersion();
+
+        EngagementStateCounts cached = stateCounts.get();
+        if (isStateCountCached(cached, version, time)) {
+            return copyOf(cached.getCounts());
+        }
+
+        EngagementStateCounts counts = repository.findEngagementStateCounts(time).toBuilder().version(version)
+                .loadedAt(System.currentTimeMillis()).build();
+        stateCounts.set(counts);
+
+        return copyOf(counts.getCounts());
+
+    }
+
+    /**
+     * Returns an {@link Optional} containing an entity tag for the number of
+     * {@link Engagement}s in each {@link EngagementState} at the given time if the
+     * counts are cached. Otherwise, an empty {@link Optional}.
+     * 
+     * @param currentTime
+     * @return
+     */
+    public Optional<String> getEngagementCountEntityTag(LocalDateTime currentTime) {
 
-        for (Engagement engagement : engagementList) {
-            EngagementState state = engagement.getEngagementCurrentState(currentTime);
+        String time = DateFormatter.getInstance().getDateFormat().format(currentTime);
 
-            int count = statusCounts.containsKey(state) ? statusCounts.get(state) + 1 : 1;
-            statusCounts.put(state, count);
+        EngagementStateCounts cached = stateCounts.get();
+        if (!isStateCountCached(cached, changeTracker.getVersion(), time)) {
+            return Optional.empty();
         }
 
-        statusCounts.put(EngagementState.ANY, engagementList.size());
+        // counts are the same for any time the snapshot is valid
+        return Optional.of(changeTracker.getEntityTag(COUNT_SIGNATURE + cached.getTime()));
+
+    }
+
+    /**
+     * Returns an entity tag for a list response identified by the given
+     * signature. The tag changes whenever the engagement collection is modified.
+     * 
+     * @param signature
+     * @return
+     */
+    public String getCollectionEntityTag(String signature) {
+        return changeTracker.getEntityTag(signature);
+    }
+
+    /**
+     * Returns true if the cached {@link EngagementStateCounts} apply at the given
+     * time for the given change version and were loaded within the TTL.
+     * Otherwise, false.
+     * 
+     * @param cached
+     * @param version
+     * @param time
+     * @return
+     */
+    private boolean isStateCountCached(EngagementStateCounts cached, long version, String time) {
+        return stateCountCacheEnabled && null != cached && cached.isValidAt(version, time)
+                && System.currentTimeMillis() - cached.getLoadedAt() < stateCountCacheTtl.toMillis();
+    }
 
-        return statusCounts;
+    private Map<EngagementState, Integer> copyOf(Map<EngagementState, Integer> counts) {
+        Map<EngagementState, Integer> copy = new EnumMap<>(EngagementState.class);
+        copy.putAll(counts);
+        return copy;
     }
 
     /**
@@ -690,6 +1302,65 @@ public class EngagementService {
                 () -> new WebApplicationException("no engagement found with id " + uuid, HttpStatus.SC_NOT_FOUND));
     }
 
+    /**
+     * Returns the {@link CachedEngagement} for the UUID, reading from the data
+     * store only if it is not cached. Otherwise, throws a Not Found
+     * {@link WebApplicationException}.
+     * 
+     * @param uuid
+     * @return
+     */
+    public CachedEngagement getCachedByUuid(String uuid) {
+        return engagementCache.getByUuid(uuid, () -> repository.findByUuid(uuid, new FilterOptions())).orElseThrow(
+                () -> new WebApplicationException("no engagement found with id " + uuid, HttpStatus.SC_NOT_FOUND));
+    }
+
+    /**
+     * Returns a {@link Map} of the {@link Engagement}s with the given UUIDs keyed
+     * by UUID, in the order requested. UUIDs that do not match an
+     * {@link Engagement} are not included. A 400 is thrown if more UUIDs are
+     * requested than the configured maximum.
+     * 
+     * @param uuids
+     * @param options
+     * @return
+     */
+    public Map<String, Engagement> getByUuids(List<String> uuids, FilterOptions options) {
+
+        if (null == uuids || uuids.isEmpty()) {
+            return Map.of();
+        }
+
+        Set<String> unique = uuids.stream().filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        if (unique.size() > batchGetMaxSize) {
+            throw new WebApplicationException(
+                    "a maximum of " + batchGetMaxSize + " engagements can be requested at once",
+                    HttpStatus.SC_BAD_REQUEST);
+        }
+
+        Map<String, Engagement> found = repository.findByUuids(unique, options).stream()
+                .collect(Collectors.toMap(Engagement::getUuid, Function.identity()));
+
+        Map<String, Engagement> results = new LinkedHashMap<>();
+        unique.stream().filter(found::containsKey).forEach(uuid -> results.put(uuid, found.get(uuid)));
+
+        return results;
+
+    }
+
+    /**
+     * Passes each {@link Engagement} that matches the {@link ListFilterOptions} to
+     * the consumer without loading all results into memory.
+     * 
+     * @param listFilterOptions
+     * @param consumer
+     */
+    public void exportEngagements(ListFilterOptions listFilterOptions, Consumer<Engagement> consumer) {
+        repository.streamEngagements(listFilterOptions, consumer);
+    }
+
     /**
      * Returns a {@link PagedEngagementResults} of {@link Engagement} that matches
      * the {@link ListFilterOptions}.
@@ -722,7 +1393,8 @@ public class EngagementService {
      *         input
      */
     public PagedStringResults getSuggestions(ListFilterOptions filterOptions) {
-        return repository.findCustomerSuggestions(filterOptions);
+        return getFacetNames(Facet.CUSTOMER_NAME, filterOptions)
+                .orElseGet(() -> repository.findCustomerSuggestions(filterOptions));
     }
 
     /**
@@ -731,6 +1403,7 @@ public class EngagementService {
      */
     public void deleteAll() {
         repository.deleteAll();
+        changeTracker.cleared();
     }
 
     /**
@@ -742,7 +1415,9 @@ public class EngagementService {
      * @param projectName
      */
     public void deleteByCustomerAndProjectName(String customerName, String projectName) {
-        repository.delete(getByCustomerAndProjectName(customerName, projectName, new FilterOptions()));
+        Engagement engagement = getByCustomerAndProjectName(customerName, projectName, new FilterOptions());
+        repository.delete(engagement);
+        changeTracker.removed(engagement);
     }
 
     /**
@@ -752,7 +1427,9 @@ public class EngagementService {
      * @param uuid
      */
     public void deleteByUuid(String uuid) {
-        repository.delete(getByUuid(uuid, new FilterOptions()));
+        Engagement engagement = getByUuid(uuid, new FilterOptions());
+        repository.delete(engagement);
+        changeTracker.removed(engagement);
     }
 
     /**
@@ -774,6 +1451,7 @@ public class EngagementService {
 
         // delete from db
         repository.delete(engagement);
+        changeTracker.removed(engagement);
 
         // send delete event
         eventBus.sendAndForget(EventType.DELETE_ENGAGEMENT_EVENT_ADDRESS, engagement);
@@ -789,7 +1467,20 @@ public class EngagementService {
      * @return
      */
     public PagedCategoryResults getCategories(ListFilterOptions options) {
-        return repository.findCategories(options);
+
+        Optional<List<FacetValue>> values = facetCache.find(Facet.CATEGORY_NAME, options);
+        if (values.isEmpty()) {
+            return repository.findCategories(options);
+        }
+
+        List<Category> categories = getFacetPage(values.get(), options).stream()
+                .map(v -> Category.builder().name(v.getName()).count(v.getCount()).build())
+                .collect(Collectors.toList());
+
+        return PagedCategoryResults.builder().results(categories).totalCount(getFacetCount(values.get(), options))
+                .currentPage(options.getPage().orElse(1)).perPage(options.getPerPage().orElse(DEFAULT_PER_PAGE))
+                .build();
+
     }
 
     /**
@@ -800,7 +1491,54 @@ public class EngagementService {
      * @return
      */
     public PagedStringResults getArtifactTypes(ListFilterOptions filterOptions) {
-        return repository.findArtifactTypes(filterOptions);
+        return getFacetNames(Facet.ARTIFACT_TYPE, filterOptions)
+                .orElseGet(() -> repository.findArtifactTypes(filterOptions));
+    }
+
+    /**
+     * Returns an {@link Optional} containing the page of {@link Facet} values
+     * requested by the {@link ListFilterOptions}, read from the
+     * {@link FacetCache}. An empty {@link Optional} is returned if the request
+     * cannot be answered from the cache.
+     *
+     * @param facet
+     * @param filterOptions
+     * @return
+     */
+    private Optional<PagedStringResults> getFacetNames(Facet facet, ListFilterOptions filterOptions) {
+
+        return facetCache.find(facet, filterOptions).map(values -> PagedStringResults.builder()
+                .results(getFacetPage(values, filterOptions).stream().map(FacetValue::getName)
+                        .collect(Collectors.toList()))
+                .totalCount(getFacetCount(values, filterOptions)).currentPage(filterOptions.getPage().orElse(1))
+                .perPage(filterOptions.getPerPage().orElse(DEFAULT_PER_PAGE)).build());
+
+    }
+
+    /**
+     * Returns the {@link FacetValue}s on the requested page. As with the data
+     * store, all values are returned unless a page is requested.
+     *
+     * @param values
+     * @param filterOptions
+     * @return
+     */
+    private List<FacetValue> getFacetPage(List<FacetValue> values, ListFilterOptions filterOptions) {
+
+        if (filterOptions.getPage().isEmpty()) {
+            return values;
+        }
+
+        int perPage = filterOptions.getPerPage().orElse(DEFAULT_PER_PAGE);
+        long skip = Math.max(0L, (long) (filterOptions.getPage().get() - 1) * perPage);
+
+        return values.stream().skip(skip).limit(perPage).collect(Collectors.toList());
+
+    }
+
+    private Integer getFacetCount(List<FacetValue> values, ListFilterOptions filterOptions) {
+        return CountStrategy.NONE.equals(filterOptions.getCountStrategy().orElse(CountStrategy.EXACT)) ? null
+                : values.size();
     }
 
     /**
@@ -848,6 +1586,7 @@ public class EngagementService {
         long count = updated.size();
 
         repository.update(updated);
+        updated.forEach(changeTracker::upserted);
 
         return count;
 
@@ -1040,7 +1779,10 @@ public class EngagementService {
                     engagement.getProjectName());
 
             engagement.setLastUpdate(getZuluTimeAsString());
+            engagement.updateSubdomains();
+            engagement.updateLowercaseFields();
             repository.persist(engagement);
+            changeTracker.upserted(engagement);
 
             return true;
 
@@ -1103,14 +1845,14 @@ public class EngagementService {
     }
 
     /**
-     * Uses {@link ObjectMapper} to create a deep copy of the given
+     * Uses {@link DeepCopyUtils} to create a deep copy of the given
      * {@link Engagement}.
      * 
      * @param toClone
      * @return
      */
     Engagement clone(Engagement toClone) {
-        return jsonb.fromJson(jsonb.toJson(toClone), Engagement.class);
+        return DeepCopyUtils.copy(toClone);
     }
 
 }
\ No newline at end of file
@@ -2,9 +2,13 @@ package com.redhat.labs.lodestar.service;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.json.bind.Jsonb;
 import javax.ws.rs.WebApplicationException;
@@ -20,11 +24,11 @@ import com.redhat.labs.lodestar.model.Commit;
 import com.redhat.labs.lodestar.model.Engagement;
 import com.redhat.labs.lodestar.model.EngagementUser;
 import com.redhat.labs.lodestar.model.Status;
+import com.redhat.labs.lodestar.model.event.BulkCreateEvent;
 import com.redhat.labs.lodestar.model.event.EventType;
 import com.redhat.labs.lodestar.model.event.RetriableEvent;
 import com.redhat.labs.lodestar.model.event.RetriableEvent.RetriableEventBuilder;
 import com.redhat.labs.lodestar.model.filter.FilterOptions;
-import com.redhat.labs.lodestar.rest.client.LodeStarActivityApiClient;
 import com.redhat.labs.lodestar.rest.client.LodeStarGitApiClient;
 
 import io.quarkus.vertx.ConsumeEvent;
@@ -48,13 +52,15 @@ public class EventService {
     @ConfigProperty(name = "get.engagement.per.page", defaultValue = "20")
     Integer engagementPerPage;
 
+    @ConfigProperty(name = "engagement.bulk.event.concurrency", defaultValue = "4")
+    int bulkEventConcurrency;
+
     @Inject
     @RestClient
     LodeStarGitApiClient gitApiClient;
     
     @Inject
-    @RestClient
-    LodeStarActivityApiClient activityApiClient;
+    ActivityService activityService;
 
     @Inject
     EngagementService engagementService;
@@ -65,6 +71,18 @@ public class EventService {
     @Inject
     Jsonb jsonb;
 
+    ExecutorService bulkExecutor;
+
+    @PostConstruct
+    void createBulkExecutor() {
+        bulkExecutor = Executors.newFixedThreadPool(bulkEventConcurrency);
+    }
+
+    @PreDestroy
+    void shutdownBulkExecutor() {
+        bulkExecutor.shutdownNow();
+    }
+
     /**
      * Wraps the {@link Engagement} in a {@link RetriableEvent} and starts
      * processing create API call.
@@ -77,6 +95,24 @@ public class EventService {
         createOrUpdateEngagement(event, true);
     }
 
+    /**
+     * Submits the create API call for each {@link Engagement} in the
+     * {@link BulkCreateEvent} to the bulk executor, which runs at most
+     * bulkEventConcurrency calls at the same time.
+     * 
+     * @param event
+     */
+    @ConsumeEvent(EventType.BULK_CREATE_ENGAGEMENT_EVENT_ADDRESS)
+    void consumeBulkCreateEngagementEvent(BulkCreateEvent event) {
+
+        Engagement engagement;
+        while (null != (engagement = event.next())) {
+            RetriableEvent retriableEvent = buildRetriableEvent(engagement);
+            bulkExecutor.execute(() -> createOrUpdateEngagement(retriableEvent, true));
+        }
+
+    }
+
     /**
      * Wraps the {@link Engagement} in a {@link RetriableEvent} and starts
      * processing update API call.
@@ -499,14 +535,15 @@ public class EventService {
 
     /**
      * Retrieves the {@link List} of {@link Commit}s for the given
-     * {@link Engagement} from the Activity API and then updates the database.
+     * {@link Engagement} from the Activity API and then updates the database. The
+     * cached activity for the engagement is removed, as it has changed.
      * 
      * @param engagement
      */
     @ConsumeEvent(value = EventType.UPDATE_COMMITS_EVENT_ADDRESS, blocking = true)
     void consumeUpdateCommitsEvent(Engagement engagement) {
 
-        Response response = activityApiClient.getActivityForUuid(engagement.getUuid());
+        Response response = activityService.reloadActivityForUuid(engagement.getUuid());
         engagementService.setCommits(engagement.getUuid(), response.readEntity(new GenericType<List<Commit>>() {
         }));
     }
@@ -532,7 +569,7 @@ public class EventService {
     
     @ConsumeEvent(value = EventType.RELOAD_ACTIVITY_EVENT_ADDRESS, blocking = true)
     void consumeActivityReloadEvent(String name) {
-        activityApiClient.refresh();
+        activityService.refresh();
     }
 
 }
\ No newline at end of file
@@ -1,14 +1,16 @@
 package com.redhat.labs.lodestar.service;
 
+import java.util.Optional;
+
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
+import javax.ws.rs.core.Response;
 
 import org.eclipse.microprofile.config.inject.ConfigProperty;
-import org.eclipse.microprofile.rest.client.inject.RestClient;
 
+import com.redhat.labs.lodestar.cache.StatusCache;
 import com.redhat.labs.lodestar.model.status.ApplicationVersion;
 import com.redhat.labs.lodestar.model.status.VersionManifest;
-import com.redhat.labs.lodestar.rest.client.LodeStarStatusApiClient;
 
 @ApplicationScoped
 public class VersionService {
@@ -20,8 +22,7 @@ public class VersionService {
     String gitTag;
 
     @Inject
-    @RestClient
-    LodeStarStatusApiClient statusApiClient;
+    StatusCache statusCache;
 
     /**
      * Returns the configured {@link ApplicationVersion} containing the git commit and git tag.
@@ -33,12 +34,15 @@ public class VersionService {
     }
 
     /**
-     * Returns the {@link VersionManifest} from the LodeStar Status Service.
+     * Returns the {@link VersionManifest} from the LodeStar Status Service. The
+     * last known manifest is returned unless older than the maximum age in
+     * seconds.
      * 
+     * @param maxAge
      * @return
      */
-    public VersionManifest getVersionManifest() {
-        return statusApiClient.getVersionManifest();
+    public Response getVersionManifest(Optional<Integer> maxAge) {
+        return statusCache.getVersionManifest(maxAge);
     }
 
 }
@@ -7,6 +7,7 @@ import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -28,6 +29,13 @@ public class ClassFieldUtils {
             "engagement_categories", "categories", "status.overall_status", "status.status", "commits.web_url", "url",
             "engagement_categories.name", "categories.name", "engagement_categories.count", "categories.count");
 
+    /*
+     * Resolved field types keyed by class and field name. Fields on the model
+     * classes do not change at runtime, so each path only needs to be resolved
+     * once.
+     */
+    private static Map<String, Class<?>> fieldTypes = new ConcurrentHashMap<>();
+
     public static String snakeToCamelCase(String value) {
 
         if (!value.contains("_")) {
@@ -107,6 +115,13 @@ public class ClassFieldUtils {
             return null;
         }
 
+        String key = new StringBuilder(clazz.getName()).append("#").append(fieldName).toString();
+        return fieldTypes.computeIfAbsent(key, k -> resolveTypeFromFieldName(clazz, fieldName));
+
+    }
+
+    private static Class<?> resolveTypeFromFieldName(Class<?> clazz, String fieldName) {
+
         String current = fieldName;
         String nested = null;
 
@@ -141,6 +156,42 @@ public class ClassFieldUtils {
 
     }
 
+    /**
+     * Returns the value of the given field name from the target object. Nested
+     * field names are separated by a '.'. If any field in the path cannot be
+     * found or is null, null is returned.
+     *
+     * @param target
+     * @param fieldName
+     * @return
+     */
+    public static Object getFieldValue(Object target, String fieldName) {
+
+        Object current = target;
+
+        for (String name : fieldName.split("\\.")) {
+
+            if (null == current) {
+                return null;
+            }
+
+            Field field = FieldUtils.getField(current.getClass(), name, true);
+            if (null == field) {
+                return null;
+            }
+
+            try {
+                current = FieldUtils.readField(field, current, true);
+            } catch (IllegalAccessException e) {
+                return null;
+            }
+
+        }
+
+        return current;
+
+    }
+
     static String getNestedFieldName(String fieldName, Optional<String> prefix) {
         return prefix.isPresent() ? new StringBuilder(prefix.get()).append(".").append(fieldName).toString()
                 : fieldName;
@@ -0,0 +1,227 @@
+package com.redhat.labs.lodestar.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.redhat.labs.lodestar.model.Artifact;
+import com.redhat.labs.lodestar.model.BillingCodes;
+import com.redhat.labs.lodestar.model.BillingProject;
+import com.redhat.labs.lodestar.model.Category;
+import com.redhat.labs.lodestar.model.Commit;
+import com.redhat.labs.lodestar.model.CreationDetails;
+import com.redhat.labs.lodestar.model.Engagement;
+import com.redhat.labs.lodestar.model.EngagementUser;
+import com.redhat.labs.lodestar.model.HostingEnvironment;
+import com.redhat.labs.lodestar.model.Launch;
+import com.redhat.labs.lodestar.model.Message;
+import com.redhat.labs.lodestar.model.Score;
+import com.redhat.labs.lodestar.model.Status;
+import com.redhat.labs.lodestar.model.Subsystem;
+import com.redhat.labs.lodestar.model.UseCase;
+
+/**
+ * Creates deep copies of an {@link Engagement} and its nested models by copying
+ * each field. Strings, numbers, and other immutable values are shared with the
+ * original, while every model, collection, and map is copied, so the copy can
+ * be modified or handed to another thread without affecting the original.
+ *
+ * New fields added to the nested models must also be added here.
+ */
+public class DeepCopyUtils {
+
+    private DeepCopyUtils() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Returns a deep copy of the {@link Engagement}, or null if null.
+     *
+     * @param engagement
+     * @return
+     */
+    public static Engagement copy(Engagement engagement) {
+
+        if (null == engagement) {
+            return null;
+        }
+
+        // immutable values are shared by the builder, nested values are replaced
+        return engagement.toBuilder()
+                .hostingEnvironments(copyList(engagement.getHostingEnvironments(), DeepCopyUtils::copy))
+                .subdomains(copyList(engagement.getSubdomains(), Function.identity()))
+                .launch(copy(engagement.getLaunch()))
+                .engagementUsers(copySet(engagement.getEngagementUsers(), DeepCopyUtils::copy))
+                .status(copy(engagement.getStatus()))
+                .commits(copyList(engagement.getCommits(), DeepCopyUtils::copy))
+                .creationDetails(copy(engagement.getCreationDetails()))
+                .categories(copyList(engagement.getCategories(), DeepCopyUtils::copy))
+                .useCases(copyList(engagement.getUseCases(), DeepCopyUtils::copy))
+                .artifacts(copyList(engagement.getArtifacts(), DeepCopyUtils::copy))
+                .scores(copyList(engagement.getScores(), DeepCopyUtils::copy))
+                .billingCodes(copyList(engagement.getBillingCodes(), DeepCopyUtils::copy)).build();
+
+    }
+
+    static HostingEnvironment copy(HostingEnvironment environment) {
+        return null == environment ? null
+                : HostingEnvironment.builder().uuid(environment.getUuid()).created(environment.getCreated())
+                        .updated(environment.getUpdated()).engagementUuid(environment.getEngagementUuid())
+                        .environmentName(environment.getEnvironmentName())
+                        .additionalDetails(environment.getAdditionalDetails())
+                        .ocpCloudProviderName(environment.getOcpCloudProviderName())
+                        .ocpCloudProviderRegion(environment.getOcpCloudProviderRegion())
+                        .ocpPersistentStorageSize(environment.getOcpPersistentStorageSize())
+                        .ocpSubDomain(environment.getOcpSubDomain()).ocpVersion(environment.getOcpVersion())
+                        .ocpClusterSize(environment.getOcpClusterSize()).build();
+    }
+
+    static Launch copy(Launch launch) {
+        return null == launch ? null
+                : Launch.builder().launchedDateTime(launch.getLaunchedDateTime()).launchedBy(launch.getLaunchedBy())
+                        .launchedByEmail(launch.getLaunchedByEmail()).build();
+    }
+
+    static EngagementUser copy(EngagementUser user) {
+        return null == user ? null : user.toBuilder().build();
+    }
+
+    static Status copy(Status status) {
+        return null == status ? null
+                : Status.builder().status(status.getStatus())
+                        .messages(copyList(status.getMessages(), DeepCopyUtils::copy))
+                        .subsystems(copyList(status.getSubsystems(), DeepCopyUtils::copy)).build();
+    }
+
+    static Subsystem copy(Subsystem subsystem) {
+        return null == subsystem ? null
+                : Subsystem.builder().name(subsystem.getName()).status(subsystem.getStatus())
+                        .state(subsystem.getState()).info(subsystem.getInfo()).updated(subsystem.getUpdated())
+                        .messages(copyList(subsystem.getMessages(), DeepCopyUtils::copy))
+                        .accessUrls(copyList(subsystem.getAccessUrls(), DeepCopyUtils::copyMap)).build();
+    }
+
+    static Message copy(Message message) {
+        return null == message ? null
+                : Message.builder().severity(message.getSeverity()).message(message.getMessage())
+                        .updated(message.getUpdated()).build();
+    }
+
+    static Commit copy(Commit commit) {
+        return null == commit ? null
+                : commit.toBuilder().added(copyList(commit.getAdded(), Function.identity()))
+                        .modified(copyList(commit.getModified(), Function.identity()))
+                        .removed(copyList(commit.getRemoved(), Function.identity())).build();
+    }
+
+    static CreationDetails copy(CreationDetails details) {
+        return null == details ? null
+                : CreationDetails.builder().createdByUser(details.getCreatedByUser())
+                        .createdByEmail(details.getCreatedByEmail()).createdOn(details.getCreatedOn()).build();
+    }
+
+    static Category copy(Category category) {
+        return null == category ? null
+                : Category.builder().uuid(category.getUuid()).created(category.getCreated())
+                        .updated(category.getUpdated()).engagementUuid(category.getEngagementUuid())
+                        .name(category.getName()).nameLower(category.getNameLower()).count(category.getCount())
+                        .build();
+    }
+
+    static UseCase copy(UseCase useCase) {
+        return null == useCase ? null
+                : UseCase.builder().uuid(useCase.getUuid()).created(useCase.getCreated())
+                        .updated(useCase.getUpdated()).engagementUuid(useCase.getEngagementUuid())
+                        .title(useCase.getTitle()).description(useCase.getDescription()).order(useCase.getOrder())
+                        .build();
+    }
+
+    static Artifact copy(Artifact artifact) {
+        return null == artifact ? null
+                : Artifact.builder().uuid(artifact.getUuid()).created(artifact.getCreated())
+                        .updated(artifact.getUpdated()).engagementUuid(artifact.getEngagementUuid())
+                        .title(artifact.getTitle()).description(artifact.getDescription()).type(artifact.getType())
+                        .typeLower(artifact.getTypeLower()).linkAddress(artifact.getLinkAddress()).build();
+    }
+
+    static Score copy(Score score) {
+        return null == score ? null
+                : Score.builder().uuid(score.getUuid()).created(score.getCreated()).updated(score.getUpdated())
+                        .engagementUuid(score.getEngagementUuid()).name(score.getName()).value(score.getValue())
+                        .build();
+    }
+
+    static BillingCodes copy(BillingCodes billingCodes) {
+        return null == billingCodes ? null
+                : BillingCodes.builder()
+                        .billingProjects(copyList(billingCodes.getBillingProjects(), DeepCopyUtils::copy)).build();
+    }
+
+    static BillingProject copy(BillingProject project) {
+        return null == project ? null
+                : BillingProject.builder().code(project.getCode())
+                        .tasks(copyList(project.getTasks(), Function.identity())).build();
+    }
+
+    /**
+     * Returns a copy of the map, copying nested maps and lists. Used for free
+     * form JSON values.
+     *
+     * @param map
+     * @return
+     */
+    static Map<String, Object> copyMap(Map<String, Object> map) {
+
+        if (null == map) {
+            return null;
+        }
+
+        Map<String, Object> copy = new LinkedHashMap<>();
+        map.forEach((key, value) -> copy.put(key, copyValue(value)));
+        return copy;
+
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object copyValue(Object value) {
+
+        if (value instanceof Map) {
+            return copyMap((Map<String, Object>) value);
+        }
+
+        if (value instanceof List) {
+            return copyList((List<Object>) value, DeepCopyUtils::copyValue);
+        }
+
+        return value;
+
+    }
+
+    private static <T> List<T> copyList(List<T> list, Function<T, T> copier) {
+        return copyCollection(list, copier, () -> new ArrayList<>(list.size()));
+    }
+
+    private static <T> Set<T> copySet(Set<T> set, Function<T, T> copier) {
+        return copyCollection(set, copier, LinkedHashSet::new);
+    }
+
+    private static <T, C extends Collection<T>> C copyCollection(Collection<T> collection, Function<T, T> copier,
+            Supplier<C> factory) {
+
+        if (null == collection) {
+            return null;
+        }
+
+        C copy = factory.get();
+        collection.forEach(value -> copy.add(copier.apply(value)));
+        return copy;
+
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.redhat.labs.lodestar.util;
+
+import javax.ws.rs.core.UriInfo;
+
+public class EntityTagUtils {
+
+    private static final String QUERY_SEPARATOR = "?";
+    private static final String VERSION_SEPARATOR = "|";
+
+    private EntityTagUtils() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Returns a signature identifying the response to a list request. The path,
+     * query string, and API version header all change the response.
+     *
+     * @param uriInfo
+     * @param apiVersion
+     * @return
+     */
+    public static String getRequestSignature(UriInfo uriInfo, String apiVersion) {
+        return new StringBuilder(uriInfo.getRequestUri().getRawPath()).append(QUERY_SEPARATOR)
+                .append(String.valueOf(uriInfo.getRequestUri().getRawQuery())).append(VERSION_SEPARATOR)
+                .append(String.valueOf(apiVersion)).toString();
+    }
+
+}
@@ -0,0 +1,144 @@
+package com.redhat.labs.lodestar.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.redhat.labs.lodestar.model.Engagement;
+import com.redhat.labs.lodestar.model.Status;
+import com.redhat.labs.lodestar.utils.MockUtils;
+
+class EngagementCacheTest {
+
+    EngagementCache cache;
+    EngagementChangeTracker tracker;
+
+    @BeforeEach
+    void setup() {
+
+        tracker = new EngagementChangeTracker();
+
+        cache = new EngagementCache();
+        cache.size = 10;
+        cache.ttl = Duration.ofMinutes(1);
+        cache.changeTracker = tracker;
+        cache.init();
+
+    }
+
+    @Test
+    void testGetByUuidReadsThrough() {
+
+        AtomicInteger loads = new AtomicInteger();
+        Engagement engagement = MockUtils.mockMinimumEngagement("c1", "p1", "1");
+        Supplier<Optional<Engagement>> loader = () -> {
+            loads.incrementAndGet();
+            return Optional.of(engagement);
+        };
+
+        CachedEngagement first = cache.getByUuid("1", loader).get();
+        CachedEngagement second = cache.getByUuid("1", loader).get();
+
+        assertEquals(1, loads.get());
+        assertSame(first, second);
+        assertSame(engagement, second.getEngagement());
+
+        // name lookup uses the same entry
+        assertSame(first, cache.getByCustomerAndProjectName("c1", "p1", Optional::empty).get());
+
+    }
+
+    @Test
+    void testGetByUuidNotFound() {
+        assertTrue(cache.getByUuid("1", Optional::empty).isEmpty());
+    }
+
+    @Test
+    void testUpsertEvicts() {
+
+        Engagement engagement = MockUtils.mockMinimumEngagement("c1", "p1", "1");
+        cache.getByUuid("1", () -> Optional.of(engagement));
+
+        cache.onUpsert(engagement);
+
+        assertTrue(cache.getByUuid("1", Optional::empty).isEmpty());
+        assertTrue(cache.getByCustomerAndProjectName("c1", "p1", Optional::empty).isEmpty());
+
+    }
+
+    @Test
+    void testRenamedEngagementNotReturnedByOldNames() {
+
+        cache.getByUuid("1", () -> Optional.of(MockUtils.mockMinimumEngagement("c1", "p1", "1")));
+
+        // eviction by the new names leaves the old names pointing at the uuid
+        cache.onUpsert(MockUtils.mockMinimumEngagement("c2", "p2", "1"));
+        cache.getByUuid("1", () -> Optional.of(MockUtils.mockMinimumEngagement("c2", "p2", "1")));
+
+        assertTrue(cache.getByCustomerAndProjectName("c1", "p1", Optional::empty).isEmpty());
+
+    }
+
+    @Test
+    void testNotCachedIfWrittenWhileLoading() {
+
+        Engagement engagement = MockUtils.mockMinimumEngagement("c1", "p1", "1");
+
+        cache.getByUuid("1", () -> {
+            tracker.upserted(engagement);
+            return Optional.of(engagement);
+        });
+
+        assertTrue(cache.getByUuid("1", Optional::empty).isEmpty());
+
+    }
+
+    @Test
+    void testExpired() {
+
+        cache.ttl = Duration.ZERO;
+
+        cache.getByUuid("1", () -> Optional.of(MockUtils.mockMinimumEngagement("c1", "p1", "1")));
+
+        assertTrue(cache.getByUuid("1", Optional::empty).isEmpty());
+
+    }
+
+    @Test
+    void testDisabled() {
+
+        cache.size = 0;
+        cache.init();
+
+        cache.getByUuid("1", () -> Optional.of(MockUtils.mockMinimumEngagement("c1", "p1", "1")));
+
+        assertTrue(cache.getByUuid("1", Optional::empty).isEmpty());
+
+    }
+
+    @Test
+    void testEntityTagChangesWithContent() {
+
+        Engagement engagement = MockUtils.mockMinimumEngagement("c1", "p1", "1");
+        engagement.setLastUpdate("2021-01-01T00:00:00.000Z");
+        String original = CachedEngagement.of(engagement).getEntityTag();
+
+        assertEquals(original, CachedEngagement.of(engagement).getEntityTag());
+        assertTrue(original.startsWith("2021-01-01T00:00:00.000Z-"));
+
+        // status updates do not change last update
+        engagement.setStatus(Status.builder().status("green").build());
+        assertNotEquals(original, CachedEngagement.of(engagement).getEntityTag());
+
+    }
+
+}
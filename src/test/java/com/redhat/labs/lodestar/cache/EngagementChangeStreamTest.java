@@ -0,0 +1,95 @@
+package com.redhat.labs.lodestar.cache;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.mongodb.client.model.changestream.OperationType;
+import com.redhat.labs.lodestar.model.Engagement;
+
+class EngagementChangeStreamTest {
+
+    EngagementChangeTracker changeTracker;
+    EngagementChangeStream changeStream;
+
+    @BeforeEach
+    void setup() {
+
+        changeTracker = Mockito.mock(EngagementChangeTracker.class);
+
+        changeStream = new EngagementChangeStream();
+        changeStream.changeTracker = changeTracker;
+
+    }
+
+    @Test
+    void testApplyUpdate() {
+
+        Engagement engagement = Engagement.builder().uuid("1234").customerName("Customer").build();
+
+        changeStream.apply(OperationType.INSERT, engagement, null);
+        changeStream.apply(OperationType.UPDATE, engagement, null);
+        changeStream.apply(OperationType.REPLACE, engagement, null);
+
+        Mockito.verify(changeTracker, Mockito.times(3)).upserted(engagement);
+        Mockito.verify(changeTracker, Mockito.never()).invalidated();
+
+    }
+
+    @Test
+    void testApplyUpdateOfDeletedEngagement() {
+
+        changeStream.apply(OperationType.UPDATE, null, null);
+
+        Mockito.verifyNoInteractions(changeTracker);
+
+    }
+
+    @Test
+    void testApplyDeleteOfKnownEngagement() {
+
+        ObjectId id = new ObjectId();
+        Engagement engagement = Engagement.builder().mongoId(id).uuid("1234").customerName("Customer")
+                .projectName("Project").build();
+
+        changeStream.apply(OperationType.INSERT, engagement, null);
+        changeStream.apply(OperationType.DELETE, null, new BsonDocument("_id", new BsonObjectId(id)));
+        changeStream.flushInvalidation();
+
+        Mockito.verify(changeTracker).removed(Mockito.argThat(e -> "1234".equals(e.getUuid())
+                && "Customer".equals(e.getCustomerName()) && "Project".equals(e.getProjectName())));
+        Mockito.verify(changeTracker, Mockito.never()).invalidated();
+
+    }
+
+    @Test
+    void testApplyUnknownChangesInvalidateOnce() {
+
+        changeStream.apply(OperationType.DELETE, null, new BsonDocument("_id", new BsonObjectId(new ObjectId())));
+        changeStream.apply(OperationType.DELETE, null, null);
+        changeStream.apply(OperationType.DROP, null, null);
+        changeStream.apply(OperationType.INVALIDATE, null, null);
+
+        // coalesced until the stream has caught up
+        Mockito.verify(changeTracker, Mockito.never()).invalidated();
+
+        changeStream.flushInvalidation();
+        changeStream.flushInvalidation();
+
+        Mockito.verify(changeTracker, Mockito.times(1)).invalidated();
+        Mockito.verify(changeTracker, Mockito.never()).removed(Mockito.any());
+        Mockito.verify(changeTracker, Mockito.never()).upserted(Mockito.any());
+
+    }
+
+    @Test
+    void testConsumerDefaultsToHostName() {
+        assertFalse(EngagementChangeStream.getHostName().isBlank());
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.redhat.labs.lodestar.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.redhat.labs.lodestar.utils.MockUtils;
+
+class EngagementChangeTrackerTest {
+
+    EngagementChangeTracker tracker;
+
+    @BeforeEach
+    void setup() {
+        tracker = new EngagementChangeTracker();
+        tracker.entityTagWindow = Duration.ofHours(1);
+    }
+
+    @Test
+    void testEntityTagChangesOnWrite() {
+
+        String tag = tracker.getEntityTag("/engagements?page=1");
+        assertEquals(tag, tracker.getEntityTag("/engagements?page=1"));
+
+        tracker.upserted(MockUtils.mockMinimumEngagement("c1", "p1", "1"));
+        assertNotEquals(tag, tracker.getEntityTag("/engagements?page=1"));
+
+    }
+
+    @Test
+    void testEntityTagDiffersBySignature() {
+        assertNotEquals(tracker.getEntityTag("/engagements?page=1"), tracker.getEntityTag("/engagements?page=2"));
+    }
+
+    @Test
+    void testEntityTagDiffersByInstance() {
+
+        EngagementChangeTracker other = new EngagementChangeTracker();
+        other.entityTagWindow = Duration.ofHours(1);
+
+        assertNotEquals(tracker.getEntityTag("/engagements"), other.getEntityTag("/engagements"));
+
+    }
+
+    @Test
+    void testCacheKeyChangesOnWrite() {
+
+        String key = tracker.getCacheKey("count");
+        assertEquals(key, tracker.getCacheKey("count"));
+        assertNotEquals(key, tracker.getCacheKey("other"));
+
+        tracker.upserted(MockUtils.mockMinimumEngagement("c1", "p1", "1"));
+        assertNotEquals(key, tracker.getCacheKey("count"));
+
+    }
+
+    @Test
+    void testCacheKeyChangesWithWindow() throws Exception {
+
+        tracker.entityTagWindow = Duration.ofMillis(1);
+
+        String key = tracker.getCacheKey("count");
+        Thread.sleep(5);
+        assertNotEquals(key, tracker.getCacheKey("count"));
+
+    }
+
+}
@@ -0,0 +1,181 @@
+package com.redhat.labs.lodestar.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.google.common.collect.Lists;
+import com.mongodb.MongoException;
+import com.redhat.labs.lodestar.model.Artifact;
+import com.redhat.labs.lodestar.model.Category;
+import com.redhat.labs.lodestar.model.Engagement;
+import com.redhat.labs.lodestar.model.filter.ListFilterOptions;
+import com.redhat.labs.lodestar.model.filter.SortOrder;
+import com.redhat.labs.lodestar.repository.EngagementRepository;
+import com.redhat.labs.lodestar.utils.MockUtils;
+
+class FacetCacheTest {
+
+    EngagementRepository repository;
+    FacetCache cache;
+
+    @BeforeEach
+    void setup() {
+
+        repository = Mockito.mock(EngagementRepository.class);
+
+        cache = new FacetCache();
+        cache.enabled = true;
+        cache.repository = repository;
+
+    }
+
+    @Test
+    void testFindNotLoaded() {
+
+        Mockito.when(repository.findAllFacetFields()).thenThrow(new MongoException("down"));
+        cache.reload();
+
+        assertTrue(cache.find(Facet.CUSTOMER_NAME, new ListFilterOptions()).isEmpty());
+
+    }
+
+    @Test
+    void testFindCustomerNames() {
+
+        Mockito.when(repository.findAllFacetFields()).thenReturn(Lists.newArrayList(
+                MockUtils.mockMinimumEngagement("Zeta", "p1", "1"), MockUtils.mockMinimumEngagement("alpha", "p2", "2"),
+                MockUtils.mockMinimumEngagement("ZETA", "p3", "3")));
+        cache.reload();
+
+        assertEquals(List.of("alpha", "Zeta"), names(cache.find(Facet.CUSTOMER_NAME, new ListFilterOptions())));
+
+        ListFilterOptions options = new ListFilterOptions();
+        options.setSearch("customer_name like ET");
+        assertEquals(List.of("Zeta"), names(cache.find(Facet.CUSTOMER_NAME, options)));
+
+    }
+
+    @Test
+    void testFindCustomerNamesRankedByPrefix() {
+
+        Mockito.when(repository.findAllFacetFields())
+                .thenReturn(Lists.newArrayList(MockUtils.mockMinimumEngagement("Bacme", "p1", "1"),
+                        MockUtils.mockMinimumEngagement("acme labs", "p2", "2"),
+                        MockUtils.mockMinimumEngagement("Acme", "p3", "3"),
+                        MockUtils.mockMinimumEngagement("Other", "p4", "4")));
+        cache.reload();
+
+        ListFilterOptions options = new ListFilterOptions();
+        options.setSearch("customer_name like ACM");
+        assertEquals(List.of("Acme", "acme labs", "Bacme"), names(cache.find(Facet.CUSTOMER_NAME, options)));
+
+        options.setSortOrder(SortOrder.DESC);
+        assertEquals(List.of("acme labs", "Acme", "Bacme"), names(cache.find(Facet.CUSTOMER_NAME, options)));
+
+        cache.onUpsert(MockUtils.mockMinimumEngagement("Acme Two", "p5", "5"));
+        options.setSortOrder(null);
+        assertEquals(List.of("Acme", "acme labs", "Acme Two", "Bacme"),
+                names(cache.find(Facet.CUSTOMER_NAME, options)));
+
+    }
+
+    @Test
+    void testFindCategoriesByCount() {
+
+        Engagement e1 = engagement("1", "cat1", "cat2");
+        Engagement e2 = engagement("2", "Cat2", "cat3");
+        Engagement e3 = engagement("3", "cat2", "cat3");
+        Mockito.when(repository.findAllFacetFields()).thenReturn(Lists.newArrayList(e1, e2, e3));
+        cache.reload();
+
+        List<FacetValue> values = cache.find(Facet.CATEGORY_NAME, new ListFilterOptions()).get();
+        assertEquals(List.of("cat1", "cat3", "cat2"), names(Optional.of(values)));
+        assertEquals(3, values.get(2).getCount());
+
+        ListFilterOptions options = new ListFilterOptions();
+        options.setSortOrder(SortOrder.DESC);
+        assertEquals(List.of("cat2", "cat3", "cat1"), names(cache.find(Facet.CATEGORY_NAME, options)));
+
+    }
+
+    @Test
+    void testFindUpdatedByWrites() {
+
+        Engagement e1 = engagement("1", "cat1");
+        Mockito.when(repository.findAllFacetFields()).thenReturn(Lists.newArrayList(e1));
+        cache.reload();
+
+        cache.onUpsert(engagement("1", "cat2"));
+        cache.onUpsert(engagement("2", "cat2"));
+        List<FacetValue> values = cache.find(Facet.CATEGORY_NAME, new ListFilterOptions()).get();
+        assertEquals(1, values.size());
+        assertEquals(2, values.get(0).getCount());
+
+        cache.onRemove(engagement("1"));
+        assertEquals(1, cache.find(Facet.CATEGORY_NAME, new ListFilterOptions()).get().get(0).getCount());
+
+        cache.onReset();
+        assertTrue(cache.find(Facet.CATEGORY_NAME, new ListFilterOptions()).get().isEmpty());
+
+    }
+
+    @Test
+    void testFindArtifactTypes() {
+
+        Engagement e1 = MockUtils.mockMinimumEngagement("c1", "p1", "1");
+        e1.setArtifacts(Lists.newArrayList(Artifact.builder().type("Demo").build(),
+                Artifact.builder().type("report").build()));
+        Mockito.when(repository.findAllFacetFields()).thenReturn(Lists.newArrayList(e1));
+        cache.reload();
+
+        ListFilterOptions options = new ListFilterOptions();
+        options.setSearch("artifacts.type like dem,rep");
+        assertEquals(List.of("Demo", "report"), names(cache.find(Facet.ARTIFACT_TYPE, options)));
+
+    }
+
+    @Test
+    void testFindUnsupportedSearch() {
+
+        Mockito.when(repository.findAllFacetFields())
+                .thenReturn(Lists.newArrayList(MockUtils.mockMinimumEngagement("c1", "p1", "1")));
+        cache.reload();
+
+        ListFilterOptions options = new ListFilterOptions();
+        options.setSearch("customer_name like ^c");
+        assertTrue(cache.find(Facet.CUSTOMER_NAME, options).isEmpty());
+
+        options.setSearch("customer_name like c&state=active");
+        assertTrue(cache.find(Facet.CUSTOMER_NAME, options).isEmpty());
+
+        options.setSearch("project_name like c");
+        assertTrue(cache.find(Facet.CUSTOMER_NAME, options).isEmpty());
+
+        options.setSearch(null);
+        options.setAfter("");
+        assertTrue(cache.find(Facet.CUSTOMER_NAME, options).isEmpty());
+
+    }
+
+    private Engagement engagement(String uuid, String... categories) {
+
+        Engagement engagement = MockUtils.mockMinimumEngagement("c" + uuid, "p" + uuid, uuid);
+        engagement.setCategories(Lists.newArrayList(categories).stream()
+                .map(name -> Category.builder().name(name).build()).collect(Collectors.toList()));
+        return engagement;
+
+    }
+
+    private List<String> names(Optional<List<FacetValue>> values) {
+        return values.get().stream().map(FacetValue::getName).collect(Collectors.toList());
+    }
+
+}
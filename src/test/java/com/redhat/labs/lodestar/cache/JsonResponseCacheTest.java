@@ -0,0 +1,92 @@
+package com.redhat.labs.lodestar.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import javax.json.bind.JsonbBuilder;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.redhat.labs.lodestar.config.JsonConfig;
+import com.redhat.labs.lodestar.model.Engagement;
+
+class JsonResponseCacheTest {
+
+    JsonResponseCache cache;
+
+    @BeforeEach
+    void setup() {
+
+        cache = new JsonResponseCache();
+        cache.maxBytes = 1024;
+        cache.jsonb = JsonbBuilder.create(JsonConfig.singleLineConfig());
+
+    }
+
+    @Test
+    void testToJsonCached() {
+
+        Engagement engagement = Engagement.builder().uuid("1").customerName("Customer").build();
+
+        byte[] body = cache.toJson("1", "v1", "full", engagement);
+        assertTrue(new String(body, StandardCharsets.UTF_8).contains("\"customer_name\":\"Customer\""));
+
+        assertSame(body, cache.toJson("1", "v1", "full", engagement));
+        assertNotSame(body, cache.toJson("1", "v2", "full", engagement));
+        assertNotSame(body, cache.toJson("1", "v1", "include=uuid", engagement));
+
+        assertEquals(1, cache.getHits());
+        assertEquals(3, cache.getMisses());
+
+    }
+
+    @Test
+    void testToJsonBoundedByBytes() {
+
+        Engagement one = Engagement.builder().uuid("1").customerName("Customer One").build();
+        Engagement two = Engagement.builder().uuid("2").customerName("Customer Two").build();
+
+        // room for one body only
+        int size = cache.toJson("1", null, "full", one).length;
+        cache.maxBytes = size + size / 2;
+
+        byte[] body = cache.toJson("1", "v1", "full", one);
+        cache.toJson("2", "v1", "full", two);
+
+        // least recently used removed to fit
+        assertEquals(body.length, cache.getTotalBytes());
+        assertNotSame(body, cache.toJson("1", "v1", "full", one));
+
+    }
+
+    @Test
+    void testToJsonNotCachedWithoutVersion() {
+
+        Engagement engagement = Engagement.builder().uuid("1").build();
+
+        assertNotSame(cache.toJson("1", null, "full", engagement), cache.toJson("1", null, "full", engagement));
+        assertEquals(0, cache.getTotalBytes());
+
+    }
+
+    @Test
+    void testOnUpsertRemovesAllVersions() {
+
+        Engagement engagement = Engagement.builder().uuid("1").build();
+
+        byte[] body = cache.toJson("1", "v1", "full", engagement);
+        cache.toJson("1", "v1", "include=uuid", engagement);
+
+        cache.onUpsert(engagement);
+
+        assertEquals(0, cache.getTotalBytes());
+        assertNotSame(body, cache.toJson("1", "v1", "full", engagement));
+
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.redhat.labs.lodestar.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class LruCacheTest {
+
+    @Test
+    void testEvictsLeastRecentlyUsed() {
+
+        LruCache<String, Integer> cache = new LruCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+
+        // access a so b is the least recently used
+        assertTrue(cache.get("a").isPresent());
+
+        cache.put("c", 3);
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.get("a").isPresent());
+        assertFalse(cache.get("b").isPresent());
+        assertTrue(cache.get("c").isPresent());
+
+    }
+
+    @Test
+    void testComputeIfAbsent() {
+
+        AtomicInteger loads = new AtomicInteger();
+        LruCache<String, Integer> cache = new LruCache<>(2);
+
+        assertEquals(1, cache.computeIfAbsent("a", k -> loads.incrementAndGet()));
+        assertEquals(1, cache.computeIfAbsent("a", k -> loads.incrementAndGet()));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+    }
+
+    @Test
+    void testDisabled() {
+
+        AtomicInteger loads = new AtomicInteger();
+        LruCache<String, Integer> cache = new LruCache<>(0);
+
+        assertFalse(cache.isEnabled());
+        assertEquals(1, cache.computeIfAbsent("a", k -> loads.incrementAndGet()));
+        assertEquals(2, cache.computeIfAbsent("a", k -> loads.incrementAndGet()));
+        assertEquals(0, cache.size());
+
+    }
+
+    @Test
+    void testRemoveAndClear() {
+
+        LruCache<String, Integer> cache = new LruCache<>(5);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", null);
+
+        assertEquals(2, cache.size());
+
+        cache.remove("a");
+        assertFalse(cache.get("a").isPresent());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+
+    }
+
+}
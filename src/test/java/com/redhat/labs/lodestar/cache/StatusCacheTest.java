@@ -0,0 +1,96 @@
+package com.redhat.labs.lodestar.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.redhat.labs.lodestar.model.status.Version;
+import com.redhat.labs.lodestar.model.status.VersionManifest;
+import com.redhat.labs.lodestar.rest.client.LodeStarStatusApiClient;
+
+class StatusCacheTest {
+
+    LodeStarStatusApiClient statusClient;
+    StatusCache cache;
+    AtomicLong now = new AtomicLong(1000);
+
+    @BeforeEach
+    void setup() {
+
+        statusClient = Mockito.mock(LodeStarStatusApiClient.class);
+
+        cache = new StatusCache();
+        cache.enabled = true;
+        cache.statusClient = statusClient;
+        cache.clock = now::get;
+
+    }
+
+    @Test
+    void testGetComponentStatusServedFromSnapshot() {
+
+        Mockito.when(statusClient.getComponentStatus()).thenReturn(Response.ok("UP").build(),
+                Response.ok("DOWN").build());
+
+        assertEquals("UP", cache.getComponentStatus(Optional.empty()).getEntity());
+
+        now.addAndGet(90000);
+        Response response = cache.getComponentStatus(Optional.empty());
+        assertEquals("UP", response.getEntity());
+        assertEquals("90", response.getHeaderString("Age"));
+
+        // older than requested
+        assertEquals("DOWN", cache.getComponentStatus(Optional.of(60)).getEntity());
+
+        Mockito.verify(statusClient, Mockito.times(2)).getComponentStatus();
+
+    }
+
+    @Test
+    void testGetComponentStatusKeepsLastKnownOnError() {
+
+        Mockito.when(statusClient.getComponentStatus()).thenReturn(Response.ok("UP").build())
+                .thenThrow(new WebApplicationException(503));
+
+        cache.refresh();
+        now.addAndGet(90000);
+        cache.refresh();
+
+        assertEquals("UP", cache.getComponentStatus(Optional.of(30)).getEntity());
+
+    }
+
+    @Test
+    void testGetComponentStatusNeverRead() {
+
+        Mockito.when(statusClient.getComponentStatus()).thenThrow(new WebApplicationException(503));
+
+        assertThrows(WebApplicationException.class, () -> cache.getComponentStatus(Optional.empty()));
+
+    }
+
+    @Test
+    void testGetVersionManifestRefreshed() {
+
+        VersionManifest v1 = VersionManifest.builder().mainVersion(Version.builder().value("v1").build()).build();
+        VersionManifest v2 = VersionManifest.builder().mainVersion(Version.builder().value("v2").build()).build();
+        Mockito.when(statusClient.getVersionManifest()).thenReturn(v1, v2);
+
+        cache.refresh();
+        assertEquals(v1, cache.getVersionManifest(Optional.empty()).getEntity());
+
+        cache.refresh();
+        assertEquals(v2, cache.getVersionManifest(Optional.of(0)).getEntity());
+
+    }
+
+}
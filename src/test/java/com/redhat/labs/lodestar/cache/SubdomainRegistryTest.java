@@ -0,0 +1,115 @@
+package com.redhat.labs.lodestar.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.google.common.collect.Lists;
+import com.mongodb.MongoTimeoutException;
+import com.redhat.labs.lodestar.model.Engagement;
+import com.redhat.labs.lodestar.repository.EngagementRepository;
+import com.redhat.labs.lodestar.utils.MockUtils;
+
+class SubdomainRegistryTest {
+
+    SubdomainRegistry registry;
+    EngagementRepository repository;
+
+    @BeforeEach
+    void setup() {
+
+        repository = Mockito.mock(EngagementRepository.class);
+
+        registry = new SubdomainRegistry();
+        registry.enabled = true;
+        registry.repository = repository;
+
+    }
+
+    @Test
+    void testNotLoaded() {
+        assertTrue(registry.isInUse("sub1").isEmpty());
+    }
+
+    @Test
+    void testReload() {
+
+        Mockito.when(repository.findAllSubdomains()).thenReturn(List.of(mockEngagement("1234", "Sub1", "sub2")));
+
+        registry.reload();
+
+        assertEquals(Optional.of(true), registry.isInUse("sub1"));
+        assertEquals(Optional.of(true), registry.isInUse("SUB2"));
+        assertEquals(Optional.of(false), registry.isInUse("sub3"));
+
+    }
+
+    @Test
+    void testReloadFailure() {
+
+        Mockito.when(repository.findAllSubdomains()).thenReturn(List.of(mockEngagement("1234", "sub1")))
+                .thenThrow(new MongoTimeoutException("timeout"));
+
+        registry.reload();
+        assertEquals(Optional.of(true), registry.isInUse("sub1"));
+
+        registry.reload();
+        assertTrue(registry.isInUse("sub1").isEmpty());
+
+    }
+
+    @Test
+    void testDisabled() {
+
+        registry.enabled = false;
+        registry.reload();
+
+        assertTrue(registry.isInUse("sub1").isEmpty());
+        Mockito.verify(repository, Mockito.never()).findAllSubdomains();
+
+    }
+
+    @Test
+    void testChanges() {
+
+        Mockito.when(repository.findAllSubdomains()).thenReturn(List.of());
+        registry.reload();
+
+        registry.onUpsert(mockEngagement("1234", "sub1", "sub2"));
+        registry.onUpsert(mockEngagement("5678", "sub3"));
+        assertEquals(Optional.of(true), registry.isInUse("sub1"));
+
+        // subdomain removed from engagement
+        registry.onUpsert(mockEngagement("1234", "sub2"));
+        assertEquals(Optional.of(false), registry.isInUse("sub1"));
+        assertEquals(Optional.of(true), registry.isInUse("sub2"));
+
+        registry.onRemove(mockEngagement("1234"));
+        assertEquals(Optional.of(false), registry.isInUse("sub2"));
+        assertEquals(Optional.of(true), registry.isInUse("sub3"));
+
+        registry.onReset();
+        assertEquals(Optional.of(false), registry.isInUse("sub3"));
+
+    }
+
+    private Engagement mockEngagement(String uuid, String... subdomains) {
+
+        Engagement engagement = MockUtils.mockMinimumEngagement("c1", "p1", uuid);
+        engagement.setHostingEnvironments(Lists.newArrayList());
+
+        for (String subdomain : subdomains) {
+            engagement.getHostingEnvironments().add(MockUtils.mockHostingEnvironment("env", subdomain));
+        }
+
+        return engagement;
+
+    }
+
+}
@@ -2,6 +2,8 @@ package com.redhat.labs.lodestar.model;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -80,4 +82,44 @@ public class EngagementTest {
         Assertions.assertEquals(Engagement.EngagementState.ACTIVE, active.getEngagementCurrentState(currentTimeLocal));
     }
 
+    @Test
+    public void testUpdateSubdomains() {
+
+        Engagement engagement = new Engagement();
+        engagement.updateSubdomains();
+        Assertions.assertEquals(List.of(), engagement.getSubdomains());
+
+        HostingEnvironment he1 = HostingEnvironment.builder().ocpSubDomain("Sub1").build();
+        HostingEnvironment he2 = HostingEnvironment.builder().ocpSubDomain("sub1").build();
+        HostingEnvironment he3 = HostingEnvironment.builder().ocpSubDomain(" ").build();
+        HostingEnvironment he4 = HostingEnvironment.builder().ocpSubDomain("SUB2").build();
+        HostingEnvironment he5 = HostingEnvironment.builder().build();
+        engagement.setHostingEnvironments(Arrays.asList(he1, he2, he3, he4, he5, null));
+
+        engagement.updateSubdomains();
+        Assertions.assertEquals(List.of("sub1", "sub2"), engagement.getSubdomains());
+
+    }
+
+    @Test
+    public void testUpdateLowercaseFields() {
+
+        Category category = Category.builder().name("Cat1").build();
+        Artifact artifact = Artifact.builder().type("Demo").build();
+        Engagement engagement = Engagement.builder().customerName("Customer A").projectName("Project B")
+                .categories(Arrays.asList(category, null)).artifacts(Arrays.asList(artifact)).build();
+
+        engagement.updateLowercaseFields();
+
+        Assertions.assertEquals("customer a", engagement.getCustomerNameLower());
+        Assertions.assertEquals("project b", engagement.getProjectNameLower());
+        Assertions.assertEquals("cat1", category.getNameLower());
+        Assertions.assertEquals("demo", artifact.getTypeLower());
+
+        // lowercase fields are not compared
+        Assertions.assertEquals(Category.builder().name("Cat1").build(), category);
+        Assertions.assertEquals(Artifact.builder().type("Demo").build(), artifact);
+
+    }
+
 }
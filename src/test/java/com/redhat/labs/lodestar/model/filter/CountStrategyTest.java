@@ -0,0 +1,24 @@
+package com.redhat.labs.lodestar.model.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class CountStrategyTest {
+
+    @ParameterizedTest
+    @MethodSource("provideValues")
+    void testFromString(String input, CountStrategy expected) {
+        assertEquals(expected, CountStrategy.fromString(input));
+    }
+
+    private static Stream<Arguments> provideValues() {
+        return Stream.of(Arguments.of("exact", CountStrategy.EXACT), Arguments.of("Estimated", CountStrategy.ESTIMATED),
+                Arguments.of("NONE", CountStrategy.NONE), Arguments.of("unknown", null), Arguments.of(null, null));
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.redhat.labs.lodestar.model.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class ResponseViewTest {
+
+    @ParameterizedTest
+    @MethodSource("provideValues")
+    void testFromString(String input, ResponseView expected) {
+        assertEquals(expected, ResponseView.fromString(input));
+    }
+
+    private static Stream<Arguments> provideValues() {
+        return Stream.of(Arguments.of("card", ResponseView.CARD), Arguments.of("Summary", ResponseView.SUMMARY),
+                Arguments.of("FULL", ResponseView.FULL), Arguments.of("unknown", null), Arguments.of(null, null));
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.redhat.labs.lodestar.model.pagination;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.ws.rs.WebApplicationException;
+
+import org.junit.jupiter.api.Test;
+
+import com.redhat.labs.lodestar.model.Engagement;
+import com.redhat.labs.lodestar.model.Launch;
+
+class PageCursorTest {
+
+    @Test
+    void testEncodeDecode() {
+
+        PageCursor cursor = PageCursor.builder().values(Arrays.asList("customer", null, 5, "1234")).build();
+        PageCursor decoded = PageCursor.decode(cursor.encode());
+
+        assertEquals(4, decoded.getValues().size());
+        assertEquals("customer", decoded.getValues().get(0));
+        assertNull(decoded.getValues().get(1));
+        assertEquals(5, decoded.getValues().get(2));
+        assertEquals("1234", decoded.getValues().get(3));
+
+    }
+
+    @Test
+    void testDecodeInvalidToken() {
+
+        WebApplicationException ex = assertThrows(WebApplicationException.class, () -> PageCursor.decode("%%%"));
+        assertEquals(400, ex.getResponse().getStatus());
+
+    }
+
+    @Test
+    void testDecodeTokenWithoutValues() {
+
+        String token = java.util.Base64.getUrlEncoder().encodeToString("{\"a\": 1}".getBytes());
+        WebApplicationException ex = assertThrows(WebApplicationException.class, () -> PageCursor.decode(token));
+        assertEquals(400, ex.getResponse().getStatus());
+
+    }
+
+    @Test
+    void testFromResult() {
+
+        Engagement engagement = Engagement.builder().customerName("c1").projectName("p1").uuid("1234").build();
+        PageCursor cursor = PageCursor.fromResult(engagement, List.of("customerName", "projectName", "uuid"));
+
+        assertEquals(Arrays.asList("c1", "p1", "1234"), cursor.getValues());
+
+    }
+
+    @Test
+    void testFromResultNestedAndMissingFields() {
+
+        Engagement engagement = Engagement.builder().uuid("1234").build();
+        PageCursor cursor = PageCursor.fromResult(engagement, List.of("launch.launchedBy", "unknown", "uuid"));
+
+        assertEquals(Arrays.asList(null, null, "1234"), cursor.getValues());
+
+    }
+
+    @Test
+    void testFromResultUnsupportedType() {
+
+        Engagement engagement = Engagement.builder().uuid("1234").launch(Launch.builder().launchedBy("me").build())
+                .build();
+        List<String> fields = List.of("launch", "uuid");
+
+        WebApplicationException ex = assertThrows(WebApplicationException.class,
+                () -> PageCursor.fromResult(engagement, fields));
+        assertEquals(400, ex.getResponse().getStatus());
+
+    }
+
+}
@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.ws.rs.core.Link;
@@ -154,4 +155,73 @@ class PagedResultsTest {
 
     }
 
+    @Test
+    void testGetHeadersCursorPagedWithNextCursor() {
+
+        PagedResults results = PagedResults.builder().cursorPaged(true).nextCursor("abc").perPage(1).totalCount(3)
+                .build();
+
+        Map<String, Object> headers = results.getHeaders();
+        assertNotNull(headers);
+
+        assertEquals("abc", headers.get("x-next-cursor"));
+        assertEquals(1, headers.get("x-per-page"));
+        assertFalse(headers.containsKey("x-next-page"));
+        assertFalse(headers.containsKey("x-last-page"));
+
+        Link[] links = results.getLinks(UriBuilder.fromPath("http://some/path"));
+        assertEquals(1, links.length);
+        assertEquals("next", links[0].getRel());
+        assertEquals("abc", links[0].getParams().get("after"));
+
+    }
+
+    @Test
+    void testGetHeadersCursorPagedWithoutNextCursor() {
+
+        PagedResults results = PagedResults.builder().cursorPaged(true).perPage(1).build();
+
+        Map<String, Object> headers = results.getHeaders();
+        assertNotNull(headers);
+
+        assertFalse(headers.containsKey("x-next-cursor"));
+        assertEquals(1, headers.get("x-per-page"));
+
+        Link[] links = results.getLinks(UriBuilder.fromPath("http://some/path"));
+        assertEquals(0, links.length);
+
+    }
+
+    @Test
+    void testGetHeadersWithoutTotalCountFullPage() {
+
+        PagedResults<String> results = PagedResults.<String>builder().currentPage(1).perPage(2).totalCount(null)
+                .results(List.of("a", "b")).build();
+
+        Map<String, Object> headers = results.getHeaders();
+        assertNotNull(headers);
+
+        assertEquals(1, headers.get("x-current-page"));
+        assertEquals(1, headers.get("x-first-page"));
+        assertEquals(2, headers.get("x-next-page"));
+        assertEquals(2, headers.get("x-per-page"));
+        assertFalse(headers.containsKey("x-last-page"));
+
+    }
+
+    @Test
+    void testGetHeadersWithoutTotalCountPartialPage() {
+
+        PagedResults<String> results = PagedResults.<String>builder().currentPage(2).perPage(2).totalCount(null)
+                .results(List.of("a")).build();
+
+        Map<String, Object> headers = results.getHeaders();
+        assertNotNull(headers);
+
+        assertEquals(2, headers.get("x-current-page"));
+        assertFalse(headers.containsKey("x-next-page"));
+        assertFalse(headers.containsKey("x-last-page"));
+
+    }
+
 }
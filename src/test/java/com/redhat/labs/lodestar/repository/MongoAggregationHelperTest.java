@@ -0,0 +1,43 @@
+package com.redhat.labs.lodestar.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.redhat.labs.lodestar.model.filter.ListFilterOptions;
+
+class MongoAggregationHelperTest {
+
+    @Test
+    void testSortFieldsWithoutCursor() {
+
+        ListFilterOptions fo = ListFilterOptions.builder().sortFields("start_date").build();
+
+        assertEquals(List.of("startDate"), MongoAggregationHelper.getSortFields(fo));
+
+    }
+
+    @Test
+    void testSortFieldsWithCursorAddUuid() {
+
+        ListFilterOptions fo = ListFilterOptions.builder().after("").sortFields("start_date,customer_name").build();
+
+        assertEquals(List.of("startDate", "customerName", "uuid"), MongoAggregationHelper.getSortFields(fo));
+
+    }
+
+    @Test
+    void testSortFieldsWithCursorAndUniqueNames() {
+
+        // the default sort is already unique and uses the customer_project index
+        ListFilterOptions fo = ListFilterOptions.builder().after("").build();
+        assertEquals(List.of("customerName", "projectName"), MongoAggregationHelper.getSortFields(fo));
+
+        fo = ListFilterOptions.builder().after("").sortFields("project_name,customer_name").build();
+        assertEquals(List.of("projectName", "customerName"), MongoAggregationHelper.getSortFields(fo));
+
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.redhat.labs.lodestar.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.BsonDocument;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.Test;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.model.Updates;
+
+class MongoUpdateHelperTest {
+
+    @Test
+    void testUnchangedDocument() {
+
+        Map<String, Object> existing = document("a", 1, "b", Arrays.asList(1, 2), "c", null);
+        Map<String, Object> updated = document("a", 1, "b", Arrays.asList(1, 2), "c", null);
+
+        assertTrue(MongoUpdateHelper.generateUpdates(existing, updated).isEmpty());
+
+    }
+
+    @Test
+    void testNoExistingDocument() {
+
+        Map<String, Object> updated = document("a", 1, "b", null);
+
+        assertUpdates("{$set: {a: 1}}", MongoUpdateHelper.generateUpdates(null, updated));
+
+    }
+
+    @Test
+    void testNullValuesAreSetToNull() {
+
+        Map<String, Object> existing = document("a", 1, "n", document("x", 1, "y", 2));
+        Map<String, Object> updated = document("a", null, "n", document("x", 1, "y", null));
+
+        assertUpdates("{$set: {a: null, 'n.y': null}}", MongoUpdateHelper.generateUpdates(existing, updated));
+
+    }
+
+    @Test
+    void testRemovedKeys() {
+
+        // top level fields missing from the update are not changed
+        Map<String, Object> existing = document("a", 1, "b", 2);
+        Map<String, Object> updated = document("a", 1);
+
+        assertTrue(MongoUpdateHelper.generateUpdates(existing, updated).isEmpty());
+
+        // nested documents that lost fields are set as a whole
+        existing = document("n", document("x", 1, "y", 2));
+        updated = document("n", document("x", 1));
+
+        assertUpdates("{$set: {n: {x: 1}}}", MongoUpdateHelper.generateUpdates(existing, updated));
+
+    }
+
+    @Test
+    void testChangedNestedField() {
+
+        Map<String, Object> existing = document("n", document("x", 1, "y", document("z", "a")));
+        Map<String, Object> updated = document("n", document("x", 1, "y", document("z", "b")));
+
+        assertUpdates("{$set: {'n.y.z': 'b'}}", MongoUpdateHelper.generateUpdates(existing, updated));
+
+    }
+
+    @Test
+    void testArraysOfSameLength() {
+
+        Map<String, Object> existing = document("l", Arrays.asList(document("x", 1), document("x", 2)), "v",
+                Arrays.asList(1, 2, null));
+        Map<String, Object> updated = document("l", Arrays.asList(document("x", 1), document("x", 3)), "v",
+                Arrays.asList(1, null, 3));
+
+        assertUpdates("{$set: {'l.1.x': 3, 'v.1': null, 'v.2': 3}}",
+                MongoUpdateHelper.generateUpdates(existing, updated));
+
+    }
+
+    @Test
+    void testArraysThatChangeLength() {
+
+        Map<String, Object> existing = document("l", Arrays.asList(1, 2), "m", Arrays.asList(1, 2));
+        Map<String, Object> updated = document("l", Arrays.asList(1, 2, 3), "m", Arrays.asList(1));
+
+        assertUpdates("{$set: {l: [1, 2, 3], m: [1]}}", MongoUpdateHelper.generateUpdates(existing, updated));
+
+    }
+
+    @Test
+    void testKeysThatAreNotFieldPaths() {
+
+        Map<String, Object> existing = document("m", document("a.b", 1), "o", document("$x", 1), "e",
+                document("", 1));
+        Map<String, Object> updated = document("m", document("a.b", 2), "o", document("$x", 2), "e",
+                document("", 2));
+
+        assertUpdates("{$set: {m: {'a.b': 2}, o: {'$x': 2}, e: {'': 2}}}",
+                MongoUpdateHelper.generateUpdates(existing, updated));
+
+    }
+
+    @Test
+    void testUnorderedArrays() {
+
+        Set<String> unordered = Collections.singleton("users");
+
+        Map<String, Object> existing = document("users",
+                Arrays.asList(document("uuid", "1", "role", "dev"), document("uuid", "2", "role", "dev")));
+
+        // a set in a different order is unchanged
+        Map<String, Object> updated = document("users",
+                Arrays.asList(document("uuid", "2", "role", "dev"), document("uuid", "1", "role", "dev")));
+
+        assertTrue(MongoUpdateHelper.generateUpdates(existing, updated, unordered).isEmpty());
+
+        // a changed set is written as a whole, never by position
+        updated = document("users",
+                Arrays.asList(document("uuid", "2", "role", "dev"), document("uuid", "1", "role", "admin")));
+
+        assertUpdates("{$set: {users: [{uuid: '2', role: 'dev'}, {uuid: '1', role: 'admin'}]}}",
+                MongoUpdateHelper.generateUpdates(existing, updated, unordered));
+
+    }
+
+    static void assertUpdates(String expected, List<Bson> updates) {
+        assertEquals(BsonDocument.parse(expected), Updates.combine(updates).toBsonDocument(BsonDocument.class,
+                MongoClientSettings.getDefaultCodecRegistry()));
+    }
+
+    static Map<String, Object> document(Object... keysAndValues) {
+
+        Map<String, Object> document = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            document.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+
+        return document;
+
+    }
+
+}
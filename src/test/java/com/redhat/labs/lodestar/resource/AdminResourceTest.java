@@ -0,0 +1,73 @@
+package com.redhat.labs.lodestar.resource;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.redhat.labs.lodestar.model.EngagementIndex;
+import com.redhat.labs.lodestar.service.EngagementIndexService;
+import com.redhat.labs.lodestar.utils.IntegrationTestHelper;
+import com.redhat.labs.lodestar.utils.TokenUtils;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.mockito.InjectMock;
+
+@QuarkusTest
+@Tag("nested")
+class AdminResourceTest extends IntegrationTestHelper {
+
+    @InjectMock
+    EngagementIndexService indexService;
+
+    @Test
+    void testGetIndexes() throws Exception {
+
+        HashMap<String, Long> timeClaims = new HashMap<>();
+        String token = TokenUtils.generateTokenString("/JwtClaimsWriter.json", timeClaims);
+
+        EngagementIndex index = EngagementIndex.builder().name("lodestar_uuid").keys(Map.of("uuid", 1)).unique(true)
+                .managed(true).accessCount(5L).build();
+        Mockito.when(indexService.getIndexes()).thenReturn(List.of(index));
+
+        given()
+            .when()
+                .auth()
+                    .oauth2(token)
+                .get("/admin/indexes")
+            .then()
+                .statusCode(200)
+                .body("size()", is(1))
+                .body("[0].name", is("lodestar_uuid"))
+                .body("[0].keys.uuid", is(1))
+                .body("[0].unique", is(true))
+                .body("[0].managed", is(true))
+                .body("[0].access_count", is(5));
+
+    }
+
+    @Test
+    void testGetIndexesReaderForbidden() throws Exception {
+
+        HashMap<String, Long> timeClaims = new HashMap<>();
+        String token = TokenUtils.generateTokenString("/JwtClaimsReader.json", timeClaims);
+
+        given()
+            .when()
+                .auth()
+                    .oauth2(token)
+                .get("/admin/indexes")
+            .then()
+                .statusCode(403);
+
+        Mockito.verify(indexService, Mockito.never()).getIndexes();
+
+    }
+
+}
@@ -7,6 +7,7 @@ import static org.hamcrest.Matchers.nullValue;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Optional;
+import java.util.Set;
 
 import javax.ws.rs.core.Response;
 
@@ -177,7 +178,8 @@ class EngagementResourceCreateTest extends IntegrationTestHelper {
         engagement2.setHostingEnvironments(Arrays.asList(env2));
 
         Mockito.when(eRepository.findByUuid("5432")).thenReturn(Optional.empty());
-        Mockito.when(eRepository.findBySubdomain("aSuperRandomSubdomain")).thenReturn(Optional.of(engagement));
+        Mockito.when(eRepository.findSubdomainsInUse(Mockito.any(), Mockito.eq(Optional.empty())))
+                .thenReturn(Set.of("asuperrandomsubdomain"));
 
         String body = quarkusJsonb.toJson(engagement2);
 
@@ -185,5 +187,35 @@ class EngagementResourceCreateTest extends IntegrationTestHelper {
                 .statusCode(409);
 
     }
+
+    @Test
+    void testBulkPostEngagementsWithAuthAndRole() throws Exception {
+
+        HashMap<String, Long> timeClaims = new HashMap<>();
+        String token = TokenUtils.generateTokenString("/JwtClaimsWriter.json", timeClaims);
+
+        Engagement valid = MockUtils.mockMinimumEngagement("c1", "p1", null);
+        Engagement invalid = MockUtils.mockMinimumEngagement(" ", "p2", null);
+
+        String body = quarkusJsonb.toJson(Arrays.asList(valid, invalid));
+
+        given()
+            .when()
+                .auth()
+                .oauth2(token)
+                .body(body)
+                .contentType(ContentType.JSON)
+                .post("/engagements/bulk")
+            .then()
+                .statusCode(200)
+                .body("[0].status", equalTo(201))
+                .body("[0].customer_name", equalTo("c1"))
+                .body("[1].status", equalTo(400))
+                .body("[1].index", equalTo(1));
+
+        Mockito.verify(eRepository).insertAll(Mockito.argThat(engagements -> engagements.size() == 1
+                && "John Doe".equals(engagements.get(0).getLastUpdateByName())));
+
+    }
   
-}
\ No newline at end of file
+}
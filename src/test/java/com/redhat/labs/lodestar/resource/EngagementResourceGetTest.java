@@ -8,8 +8,12 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import javax.ws.rs.WebApplicationException;
 
@@ -30,6 +34,7 @@ import com.redhat.labs.lodestar.model.Score;
 import com.redhat.labs.lodestar.model.UseCase;
 import com.redhat.labs.lodestar.model.filter.FilterOptions;
 import com.redhat.labs.lodestar.model.filter.ListFilterOptions;
+import com.redhat.labs.lodestar.model.filter.ResponseView;
 import com.redhat.labs.lodestar.model.pagination.PagedArtifactResults;
 import com.redhat.labs.lodestar.model.pagination.PagedCategoryResults;
 import com.redhat.labs.lodestar.model.pagination.PagedEngagementResults;
@@ -73,6 +78,59 @@ class EngagementResourceGetTest extends IntegrationTestHelper {
 
     }
 
+    @Test
+    void testGetEngagementNotModified() throws Exception {
+
+        HashMap<String, Long> timeClaims = new HashMap<>();
+        String token = TokenUtils.generateTokenString("/JwtClaimsReader.json", timeClaims);
+
+        Engagement engagement = MockUtils.mockMinimumEngagement("c1", "e1", "1234");
+        engagement.setLastUpdate("2021-01-01T00:00:00.000Z");
+        Mockito.when(eRepository.findByUuid("1234", new FilterOptions())).thenReturn(Optional.of(engagement));
+
+        Response r = given().when().auth().oauth2(token).get("/engagements/1234");
+        assertEquals(200, r.getStatusCode());
+
+        String etag = r.getHeader("ETag");
+        assertTrue(etag.startsWith("\"2021-01-01T00:00:00.000Z-"));
+
+        // matching entity tag
+        given().when().auth().oauth2(token).header("If-None-Match", etag).get("/engagements/1234").then()
+                .statusCode(304).header("ETag", etag).header("last-update", "2021-01-01T00:00:00.000Z");
+
+        given().when().auth().oauth2(token).header("If-None-Match", etag).head("/engagements/1234").then()
+                .statusCode(304);
+
+        // changed engagement
+        engagement.setDescription("changed");
+        given().when().auth().oauth2(token).header("If-None-Match", etag).get("/engagements/1234").then()
+                .statusCode(200).body("description", equalTo("changed"));
+
+    }
+
+    @Test
+    void testGetProjectedEngagementReturnsStatusUpdatedWithoutLastUpdate() throws Exception {
+
+        HashMap<String, Long> timeClaims = new HashMap<>();
+        String token = TokenUtils.generateTokenString("/JwtClaimsReader.json", timeClaims);
+
+        Engagement engagement = MockUtils.mockMinimumEngagement("c1", "e1", "1234");
+        engagement.setLastUpdate("2021-01-01T00:00:00.000Z");
+        engagement.setStatus(MockUtils.mockStatus("green"));
+        Mockito.when(eRepository.findByUuid(Mockito.eq("1234"), Mockito.any(FilterOptions.class)))
+                .thenReturn(Optional.of(engagement));
+
+        given().when().auth().oauth2(token).queryParam("include", "status").get("/engagements/1234").then()
+                .statusCode(200).body("status.overall_status", equalTo("green"));
+
+        // status updates do not change the last update
+        engagement.setStatus(MockUtils.mockStatus("red"));
+        given().when().auth().oauth2(token).queryParam("include", "status").get("/engagements/1234").then()
+                .statusCode(200).header("last-update", "2021-01-01T00:00:00.000Z")
+                .body("status.overall_status", equalTo("red"));
+
+    }
+
     @Test
     void testGetEngagementWithAuthAndRoleDoesNotExist() throws Exception {
 
@@ -165,6 +223,31 @@ class EngagementResourceGetTest extends IntegrationTestHelper {
 
     }
 
+    @Test
+    void testGetAllNotModified() throws Exception {
+
+        HashMap<String, Long> timeClaims = new HashMap<>();
+        String token = TokenUtils.generateTokenString("/JwtClaimsReader.json", timeClaims);
+
+        PagedEngagementResults results = PagedEngagementResults.builder()
+                .results(Lists.newArrayList(MockUtils.mockMinimumEngagement("c1", "p1", "1"))).build();
+        Mockito.when(eRepository.findPagedEngagements(Mockito.any(ListFilterOptions.class))).thenReturn(results);
+
+        Response r = given().when().auth().oauth2(token).queryParam("search", "customer_name=c1").get("/engagements");
+        assertEquals(200, r.getStatusCode());
+        String etag = r.getHeader("ETag");
+
+        // same query answered without running the query
+        given().when().auth().oauth2(token).queryParam("search", "customer_name=c1").header("If-None-Match", etag)
+                .get("/engagements").then().statusCode(304);
+        Mockito.verify(eRepository, Mockito.times(1)).findPagedEngagements(Mockito.any(ListFilterOptions.class));
+
+        // different query
+        given().when().auth().oauth2(token).queryParam("search", "customer_name=c2").header("If-None-Match", etag)
+                .get("/engagements").then().statusCode(200);
+
+    }
+
     @Test
     void testGetAllWithExcludeAndInclude() throws Exception {
 
@@ -448,4 +531,83 @@ class EngagementResourceGetTest extends IntegrationTestHelper {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    void testExportEngagements() throws Exception {
+
+        HashMap<String, Long> timeClaims = new HashMap<>();
+        String token = TokenUtils.generateTokenString("/JwtClaimsReader.json", timeClaims);
+
+        Engagement e1 = MockUtils.mockMinimumEngagement("c1", "p1", "1");
+        Engagement e2 = MockUtils.mockMinimumEngagement("c2", "p2", "2");
+
+        Mockito.doAnswer(invocation -> {
+            Consumer<Engagement> consumer = invocation.getArgument(1);
+            consumer.accept(e1);
+            consumer.accept(e2);
+            return null;
+        }).when(eRepository).streamEngagements(Mockito.any(ListFilterOptions.class), Mockito.any());
+
+        Response r = given().when().auth().oauth2(token).queryParam("search", "customer_name like c")
+                .queryParam("view", "card").get("/engagements/export");
+
+        assertEquals(200, r.getStatusCode());
+        assertTrue(r.getContentType().startsWith("application/x-ndjson"));
+
+        String[] lines = r.getBody().asString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"customer_name\":\"c1\""));
+        assertTrue(lines[1].contains("\"customer_name\":\"c2\""));
+
+        ArgumentCaptor<ListFilterOptions> ac = ArgumentCaptor.forClass(ListFilterOptions.class);
+        Mockito.verify(eRepository).streamEngagements(ac.capture(), Mockito.any());
+        assertEquals("customer_name like c", ac.getValue().getSearch().get());
+        assertEquals(ResponseView.CARD, ac.getValue().getView().get());
+
+    }
+
+    @Test
+    void testBatchGetEngagements() throws Exception {
+
+        HashMap<String, Long> timeClaims = new HashMap<>();
+        String token = TokenUtils.generateTokenString("/JwtClaimsReader.json", timeClaims);
+
+        Engagement e1 = MockUtils.mockMinimumEngagement("c1", "p1", "1");
+        Engagement e2 = MockUtils.mockMinimumEngagement("c2", "p2", "2");
+
+        Mockito.when(eRepository.findByUuids(Mockito.anyCollection(), Mockito.any(FilterOptions.class)))
+                .thenReturn(Lists.newArrayList(e2, e1));
+
+        Response r = given().when().auth().oauth2(token).contentType(ContentType.JSON).queryParam("include", "customerName")
+                .body("[\"1\",\"3\",\"2\",\"1\"]").post("/engagements/batch-get");
+
+        assertEquals(200, r.getStatusCode());
+        assertEquals("c1", r.jsonPath().getString("1.customer_name"));
+        assertEquals("c2", r.jsonPath().getString("2.customer_name"));
+        assertNull(r.jsonPath().get("3"));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<String>> uuids = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<FilterOptions> options = ArgumentCaptor.forClass(FilterOptions.class);
+        Mockito.verify(eRepository).findByUuids(uuids.capture(), options.capture());
+        assertEquals(Lists.newArrayList("1", "3", "2"), Lists.newArrayList(uuids.getValue()));
+        assertEquals("customerName", options.getValue().getInclude());
+
+    }
+
+    @Test
+    void testBatchGetEngagementsTooMany() throws Exception {
+
+        HashMap<String, Long> timeClaims = new HashMap<>();
+        String token = TokenUtils.generateTokenString("/JwtClaimsReader.json", timeClaims);
+
+        String body = IntStream.rangeClosed(1, 101).mapToObj(i -> "\"" + i + "\"")
+                .collect(Collectors.joining(",", "[", "]"));
+
+        given().when().auth().oauth2(token).contentType(ContentType.JSON).body(body).post("/engagements/batch-get")
+                .then().statusCode(400);
+
+        Mockito.verify(eRepository, Mockito.never()).findByUuids(Mockito.anyCollection(), Mockito.any());
+
+    }
+
+}
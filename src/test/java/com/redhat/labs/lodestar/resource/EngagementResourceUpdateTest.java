@@ -8,7 +8,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import org.apache.commons.compress.utils.Sets;
@@ -16,11 +18,14 @@ import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
+import com.redhat.labs.lodestar.cache.CachedEngagement;
 import com.redhat.labs.lodestar.model.Engagement;
 import com.redhat.labs.lodestar.model.EngagementUser;
 import com.redhat.labs.lodestar.model.Launch;
+import com.redhat.labs.lodestar.service.EngagementService;
 import com.redhat.labs.lodestar.utils.IntegrationTestHelper;
 import com.redhat.labs.lodestar.utils.MockUtils;
 import com.redhat.labs.lodestar.utils.TokenUtils;
@@ -46,7 +51,7 @@ class EngagementResourceUpdateTest extends IntegrationTestHelper {
         toUpdate.setDescription("testing");
 
         Mockito.when(eRepository.findByUuid("1234")).thenReturn(Optional.of(persisted));
-        Mockito.when(eRepository.updateEngagement(Mockito.any(), Mockito.eq(toUpdate.getLastUpdate()))).thenReturn(Optional.of(toUpdate));
+        Mockito.when(eRepository.updateEngagement(Mockito.any(), Mockito.any(), Mockito.eq(toUpdate.getLastUpdate()))).thenReturn(Optional.of(toUpdate));
 
         String body = quarkusJsonb.toJson(toUpdate);
 
@@ -145,7 +150,7 @@ class EngagementResourceUpdateTest extends IntegrationTestHelper {
         toUpdate.setEngagementUsers(Sets.newHashSet(user1, user2, user3));
 
         Mockito.when(eRepository.findByUuid("1234")).thenReturn(Optional.of(persisted));
-        Mockito.when(eRepository.updateEngagement(Mockito.any(), Mockito.eq(toUpdate.getLastUpdate()))).thenReturn(Optional.of(toUpdate));
+        Mockito.when(eRepository.updateEngagement(Mockito.any(), Mockito.any(), Mockito.eq(toUpdate.getLastUpdate()))).thenReturn(Optional.of(toUpdate));
 
         String body = quarkusJsonb.toJson(toUpdate);
 
@@ -208,7 +213,7 @@ class EngagementResourceUpdateTest extends IntegrationTestHelper {
         toUpdate.setDescription("testing");
 
         Mockito.when(eRepository.findByUuid("1234")).thenReturn(Optional.of(persisted));
-        Mockito.when(eRepository.updateEngagement(Mockito.any(), Mockito.eq(toUpdate.getLastUpdate()))).thenReturn(Optional.of(toUpdate));
+        Mockito.when(eRepository.updateEngagement(Mockito.any(), Mockito.any(), Mockito.eq(toUpdate.getLastUpdate()))).thenReturn(Optional.of(toUpdate));
 
         String body = quarkusJsonb.toJson(toUpdate);
         
@@ -291,10 +296,10 @@ class EngagementResourceUpdateTest extends IntegrationTestHelper {
         persisted.setLastUpdate(ZonedDateTime.now(ZoneId.of("Z")).toString());
         Engagement toUpdate = MockUtils.cloneEngagement(persisted);
         toUpdate.setDescription("testing");
+        toUpdate.setHostingEnvironments(List.of(MockUtils.mockHostingEnvironment("env1", "s")));
 
         Mockito.when(eRepository.findByUuid("1234")).thenReturn(Optional.of(persisted));
-        Mockito.when(eRepository.findBySubdomain("s", Optional.of("1234"))).thenReturn(Optional.empty());
-        Mockito.when(eRepository.findBySubdomain("s")).thenReturn(Optional.of(MockUtils.mockMinimumEngagement("c5","e4", "9876")));
+        Mockito.when(eRepository.findSubdomainsInUse(List.of("s"), Optional.of("1234"))).thenReturn(Set.of("s"));
 
         String body = quarkusJsonb.toJson(toUpdate);
 
@@ -358,7 +363,7 @@ class EngagementResourceUpdateTest extends IntegrationTestHelper {
         toUpdate.setDescription("testing");
 
         Mockito.when(eRepository.findByCustomerNameAndProjectName("c1", "e2")).thenReturn(Optional.of(persisted));
-        Mockito.when(eRepository.updateEngagement(Mockito.any(), Mockito.eq(toUpdate.getLastUpdate()))).thenReturn(Optional.of(toUpdate));
+        Mockito.when(eRepository.updateEngagement(Mockito.any(), Mockito.any(), Mockito.eq(toUpdate.getLastUpdate()))).thenReturn(Optional.of(toUpdate));
 
         String body = quarkusJsonb.toJson(toUpdate);
 
@@ -396,5 +401,191 @@ class EngagementResourceUpdateTest extends IntegrationTestHelper {
                 .statusCode(200);
 
     }
+
+    @Test
+    void testPatchEngagementMergePatchWithAuthAndRoleSuccess() throws Exception {
+
+        HashMap<String, Long> timeClaims = new HashMap<>();
+        String token = TokenUtils.generateTokenString("/JwtClaimsWriter.json", timeClaims);
+
+        Engagement persisted = MockUtils.mockMinimumEngagement("c1", "e2", "1234");
+        persisted.setProjectId(1234);
+        persisted.setLastUpdate(ZonedDateTime.now(ZoneId.of("Z")).toString());
+
+        Mockito.when(eRepository.findByUuid("1234")).thenReturn(Optional.of(persisted));
+        Mockito.when(eRepository.updateEngagement(Mockito.any(), Mockito.any(), Mockito.eq(persisted.getLastUpdate())))
+                .thenAnswer(i -> Optional.of(i.getArgument(0)));
+
+        String body = "{\"description\":\"patched\",\"last_update\":\"" + persisted.getLastUpdate() + "\"}";
+
+        given()
+            .when()
+                .auth()
+                .oauth2(token)
+                .body(body)
+                .contentType(EngagementService.MERGE_PATCH_JSON)
+                .patch("/engagements/1234")
+            .then()
+                .statusCode(200)
+                .body("customer_name", equalTo("c1"))
+                .body("project_name", equalTo("e2"))
+                .body("project_id", equalTo(1234))
+                .body("description", equalTo("patched"));
+
+        ArgumentCaptor<Engagement> captor = ArgumentCaptor.forClass(Engagement.class);
+        Mockito.verify(eRepository).updateEngagement(captor.capture(), Mockito.eq(persisted),
+                Mockito.eq(persisted.getLastUpdate()));
+        assertEquals("patched", captor.getValue().getDescription());
+
+    }
+
+    @Test
+    void testPatchEngagementJsonPatchFailedTest() throws Exception {
+
+        HashMap<String, Long> timeClaims = new HashMap<>();
+        String token = TokenUtils.generateTokenString("/JwtClaimsWriter.json", timeClaims);
+
+        Engagement persisted = MockUtils.mockMinimumEngagement("c1", "e2", "1234");
+        persisted.setLastUpdate(ZonedDateTime.now(ZoneId.of("Z")).toString());
+
+        Mockito.when(eRepository.findByUuid("1234")).thenReturn(Optional.of(persisted));
+
+        String body = "[{\"op\":\"test\",\"path\":\"/last_update\",\"value\":\"stale\"},"
+                + "{\"op\":\"replace\",\"path\":\"/description\",\"value\":\"patched\"}]";
+
+        given()
+            .when()
+                .auth()
+                .oauth2(token)
+                .body(body)
+                .contentType(EngagementService.JSON_PATCH_JSON)
+                .patch("/engagements/1234")
+            .then()
+                .statusCode(409);
+
+        Mockito.verify(eRepository, Mockito.never()).updateEngagement(Mockito.any(), Mockito.any(), Mockito.any());
+
+    }
+
+    @Test
+    void testPatchEngagementUuidChanged() throws Exception {
+
+        HashMap<String, Long> timeClaims = new HashMap<>();
+        String token = TokenUtils.generateTokenString("/JwtClaimsWriter.json", timeClaims);
+
+        Engagement persisted = MockUtils.mockMinimumEngagement("c1", "e2", "1234");
+        persisted.setLastUpdate(ZonedDateTime.now(ZoneId.of("Z")).toString());
+
+        Mockito.when(eRepository.findByUuid("1234")).thenReturn(Optional.of(persisted));
+
+        given()
+            .when()
+                .auth()
+                .oauth2(token)
+                .body("[{\"op\":\"test\",\"path\":\"/last_update\",\"value\":\"" + persisted.getLastUpdate()
+                        + "\"},{\"op\":\"replace\",\"path\":\"/uuid\",\"value\":\"5678\"}]")
+                .contentType(EngagementService.JSON_PATCH_JSON)
+                .patch("/engagements/1234")
+            .then()
+                .statusCode(400);
+
+    }
+
+    @Test
+    void testPatchEngagementWithoutPrecondition() throws Exception {
+
+        HashMap<String, Long> timeClaims = new HashMap<>();
+        String token = TokenUtils.generateTokenString("/JwtClaimsWriter.json", timeClaims);
+
+        Engagement persisted = MockUtils.mockMinimumEngagement("c1", "e2", "1234");
+        persisted.setLastUpdate(ZonedDateTime.now(ZoneId.of("Z")).toString());
+
+        Mockito.when(eRepository.findByUuid("1234")).thenReturn(Optional.of(persisted));
+
+        given()
+            .when()
+                .auth()
+                .oauth2(token)
+                .body("{\"description\":\"patched\"}")
+                .contentType(EngagementService.MERGE_PATCH_JSON)
+                .patch("/engagements/1234")
+            .then()
+                .statusCode(428);
+
+        Mockito.verify(eRepository, Mockito.never()).updateEngagement(Mockito.any(), Mockito.any(), Mockito.any());
+
+    }
+
+    @Test
+    void testPatchEngagementIfMatchSuccess() throws Exception {
+
+        HashMap<String, Long> timeClaims = new HashMap<>();
+        String token = TokenUtils.generateTokenString("/JwtClaimsWriter.json", timeClaims);
+
+        Engagement persisted = MockUtils.mockMinimumEngagement("c1", "e2", "1234");
+        persisted.setLastUpdate(ZonedDateTime.now(ZoneId.of("Z")).toString());
+        String entityTag = CachedEngagement.of(persisted).getEntityTag();
+
+        Mockito.when(eRepository.findByUuid("1234")).thenReturn(Optional.of(persisted));
+        Mockito.when(eRepository.updateEngagement(Mockito.any(), Mockito.any(), Mockito.eq(persisted.getLastUpdate())))
+                .thenAnswer(i -> Optional.of(i.getArgument(0)));
+
+        given()
+            .when()
+                .auth()
+                .oauth2(token)
+                .header("If-Match", "\"" + entityTag + "\"")
+                .body("[{\"op\":\"replace\",\"path\":\"/description\",\"value\":\"patched\"}]")
+                .contentType(EngagementService.JSON_PATCH_JSON)
+                .patch("/engagements/1234")
+            .then()
+                .statusCode(200)
+                .body("description", equalTo("patched"));
+
+    }
+
+    @Test
+    void testPatchEngagementIfMatchStale() throws Exception {
+
+        HashMap<String, Long> timeClaims = new HashMap<>();
+        String token = TokenUtils.generateTokenString("/JwtClaimsWriter.json", timeClaims);
+
+        Engagement persisted = MockUtils.mockMinimumEngagement("c1", "e2", "1234");
+        persisted.setLastUpdate(ZonedDateTime.now(ZoneId.of("Z")).toString());
+
+        Mockito.when(eRepository.findByUuid("1234")).thenReturn(Optional.of(persisted));
+
+        given()
+            .when()
+                .auth()
+                .oauth2(token)
+                .header("If-Match", "\"stale\"")
+                .body("{\"description\":\"patched\"}")
+                .contentType(EngagementService.MERGE_PATCH_JSON)
+                .patch("/engagements/1234")
+            .then()
+                .statusCode(412);
+
+        Mockito.verify(eRepository, Mockito.never()).updateEngagement(Mockito.any(), Mockito.any(), Mockito.any());
+
+    }
+
+    @Test
+    void testPatchEngagementWithReaderRole() throws Exception {
+
+        HashMap<String, Long> timeClaims = new HashMap<>();
+        String token = TokenUtils.generateTokenString("/JwtClaimsReader.json", timeClaims);
+
+        given()
+            .when()
+                .auth()
+                .oauth2(token)
+                .body("{\"description\":\"patched\"}")
+                .contentType(EngagementService.MERGE_PATCH_JSON)
+                .patch("/engagements/1234")
+            .then()
+                .statusCode(403);
+
+    }
     
-}
\ No newline at end of file
+}
@@ -0,0 +1,117 @@
+package com.redhat.labs.lodestar.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.ws.rs.core.Response;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.redhat.labs.lodestar.rest.client.LodeStarActivityApiClient;
+
+class ActivityServiceTest {
+
+    LodeStarActivityApiClient activityApi;
+    ActivityService service;
+    AtomicLong now = new AtomicLong(1000);
+
+    @BeforeEach
+    void setup() {
+
+        activityApi = Mockito.mock(LodeStarActivityApiClient.class);
+
+        service = new ActivityService();
+        service.enabled = true;
+        service.ttl = Duration.ofMinutes(10);
+        service.activityApi = activityApi;
+        service.clock = now::get;
+
+    }
+
+    @Test
+    void testGetActivityForUuidCachedUntilHook() {
+
+        Mockito.when(activityApi.getActivityForUuid("1")).thenReturn(Response.ok("[1]").build(),
+                Response.ok("[1,2]").build(), Response.ok("[1,2]").build());
+        Mockito.when(activityApi.getPaginatedActivity(0, 10)).thenReturn(Response.ok("[1]").build(),
+                Response.ok("[1,2]").build());
+        Mockito.when(activityApi.getActivityForUuid("2")).thenReturn(Response.ok("[3]").build());
+
+        assertEquals("[1]", service.getActivityForUuid("1").getEntity());
+        assertEquals("[1]", service.getActivityForUuid("1").getEntity());
+        assertEquals("[1]", service.getActivity(0, 10).getEntity());
+        assertEquals("[3]", service.getActivityForUuid("2").getEntity());
+
+        // hook for engagement 1
+        service.reloadActivityForUuid("1");
+
+        assertEquals("[1,2]", service.getActivityForUuid("1").getEntity());
+        assertEquals("[1,2]", service.getActivity(0, 10).getEntity());
+        assertEquals("[3]", service.getActivityForUuid("2").getEntity());
+
+        Mockito.verify(activityApi, Mockito.times(3)).getActivityForUuid("1");
+        Mockito.verify(activityApi, Mockito.times(2)).getPaginatedActivity(0, 10);
+        Mockito.verify(activityApi, Mockito.times(1)).getActivityForUuid("2");
+
+    }
+
+    @Test
+    void testGetActivityKeepsHeaders() {
+
+        Mockito.when(activityApi.getPaginatedActivity(0, 10)).thenReturn(Response.ok("[1]")
+                .header("x-total-activity", 12).header("Link", "<http://activity?page=1>; rel=\"next\"").build());
+
+        // the loaded response and the cached response both keep the headers
+        for (int i = 0; i < 2; i++) {
+            Response response = service.getActivity(0, 10);
+            assertEquals("12", response.getHeaderString("x-total-activity"));
+            assertEquals("<http://activity?page=1>; rel=\"next\"", response.getHeaderString("Link"));
+        }
+
+        Mockito.verify(activityApi, Mockito.times(1)).getPaginatedActivity(0, 10);
+
+    }
+
+    @Test
+    void testRefreshRemovesAllActivity() {
+
+        Mockito.when(activityApi.getPaginatedActivityForUuid("1", 0, 5)).thenReturn(Response.ok("[1]").build(),
+                Response.ok("[2]").build());
+
+        service.getActivityForUuid("1", 0, 5);
+        service.refresh();
+
+        assertEquals("[2]", service.getActivityForUuid("1", 0, 5).getEntity());
+        Mockito.verify(activityApi).refresh();
+
+    }
+
+    @Test
+    void testGetActivityExpires() {
+
+        Mockito.when(activityApi.getPaginatedActivity(0, 10)).thenReturn(Response.ok("[1]").build(),
+                Response.ok("[2]").build());
+
+        service.getActivity(0, 10);
+        now.addAndGet(Duration.ofMinutes(10).toMillis());
+
+        assertEquals("[2]", service.getActivity(0, 10).getEntity());
+
+    }
+
+    @Test
+    void testGetActivityErrorNotCached() {
+
+        Mockito.when(activityApi.getPaginatedActivity(0, 10)).thenReturn(Response.serverError().build(),
+                Response.ok("[1]").build());
+
+        assertEquals(500, service.getActivity(0, 10).getStatus());
+        assertEquals("[1]", service.getActivity(0, 10).getEntity());
+
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.redhat.labs.lodestar.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.redhat.labs.lodestar.rest.client.LodeStarConfigApiClient;
+
+class ConfigServiceTest {
+
+    LodeStarConfigApiClient configApi;
+    ConfigService service;
+    AtomicLong now = new AtomicLong(1000);
+
+    @BeforeEach
+    void setup() {
+
+        configApi = Mockito.mock(LodeStarConfigApiClient.class);
+
+        service = new ConfigService();
+        service.ttl = Duration.ofSeconds(60);
+        service.maxStale = Duration.ofHours(1);
+        service.configApi = configApi;
+        service.refreshExecutor = Runnable::run;
+        service.clock = now::get;
+
+    }
+
+    @Test
+    void testGetRuntimeConfigCached() {
+
+        Mockito.when(configApi.getRuntimeConfig("one")).thenReturn(Response.ok("{ \"a\": 1 }").build());
+
+        assertEquals("{ \"a\": 1 }", service.getRuntimeConfig(Optional.of("one")).getEntity());
+        assertEquals("{ \"a\": 1 }", service.getRuntimeConfig(Optional.of("one")).getEntity());
+
+        Mockito.verify(configApi, Mockito.times(1)).getRuntimeConfig("one");
+        assertEquals(1, service.getHits());
+        assertEquals(1, service.getMisses());
+
+    }
+
+    @Test
+    void testGetRuntimeConfigStaleWhileRevalidate() {
+
+        Mockito.when(configApi.getRuntimeConfig(null)).thenReturn(Response.ok("v1").build(),
+                Response.ok("v2").build());
+
+        service.getRuntimeConfig(Optional.empty());
+        now.addAndGet(Duration.ofSeconds(61).toMillis());
+
+        // stale value returned, refreshed for the next request
+        assertEquals("v1", service.getRuntimeConfig(Optional.empty()).getEntity());
+        assertEquals("v2", service.getRuntimeConfig(Optional.empty()).getEntity());
+        assertEquals(1, service.getRefreshes());
+
+    }
+
+    @Test
+    void testGetRuntimeConfigServesStaleOnError() {
+
+        Mockito.when(configApi.getRuntimeConfig(null)).thenReturn(Response.ok("v1").build())
+                .thenThrow(new WebApplicationException(503));
+
+        service.getRuntimeConfig(Optional.empty());
+        now.addAndGet(Duration.ofSeconds(61).toMillis());
+
+        assertEquals("v1", service.getRuntimeConfig(Optional.empty()).getEntity());
+        assertEquals("v1", service.getRuntimeConfig(Optional.empty()).getEntity());
+        assertEquals(2, service.getRefreshFailures());
+
+        // too stale to serve
+        now.addAndGet(Duration.ofHours(1).toMillis());
+        assertThrows(WebApplicationException.class, () -> service.getRuntimeConfig(Optional.empty()));
+
+    }
+
+    @Test
+    void testGetRuntimeConfigCacheDisabled() {
+
+        service.ttl = Duration.ZERO;
+        Mockito.when(configApi.getRuntimeConfig("one")).thenReturn(Response.ok("v1").build());
+
+        service.getRuntimeConfig(Optional.of("one"));
+        service.getRuntimeConfig(Optional.of("one"));
+
+        Mockito.verify(configApi, Mockito.times(2)).getRuntimeConfig("one");
+
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.redhat.labs.lodestar.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.redhat.labs.lodestar.model.Engagement;
+import com.redhat.labs.lodestar.model.EngagementUser;
+import com.redhat.labs.lodestar.model.Score;
+
+/**
+ * Measures how the reconciliation of existing scores and users with an update
+ * scales with the size of the engagement. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class EngagementServiceBenchmarkTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EngagementServiceBenchmarkTest.class);
+
+    static final int SIZE = 2000;
+    static final int FACTOR = 8;
+    static final int RUNS = 10;
+
+    EngagementService service = new EngagementService();
+
+    @Test
+    void benchmarkReconcileScalesLinearly() {
+
+        // warm up
+        measure(SIZE);
+
+        long small = measure(SIZE);
+        long large = measure(SIZE * FACTOR);
+        double ratio = (double) large / small;
+
+        LOGGER.info("{} attributes: {} ns", SIZE, small);
+        LOGGER.info("{} attributes: {} ns", SIZE * FACTOR, large);
+
+        // quadratic reconciliation would take FACTOR * FACTOR times longer
+        assertTrue(ratio < FACTOR * 3,
+                "reconciliation took " + ratio + " times longer for " + FACTOR + " times the size");
+
+    }
+
+    /**
+     * Returns the fastest of several runs reconciling the given number of scores
+     * and users, in nanoseconds.
+     *
+     * @param size
+     * @return
+     */
+    long measure(int size) {
+
+        long best = Long.MAX_VALUE;
+
+        for (int run = 0; run < RUNS; run++) {
+
+            Engagement existing = mockEngagement(size);
+            Engagement incoming = mockEngagement(size);
+
+            // modify every tenth score
+            for (int i = 0; i < size; i += 10) {
+                incoming.getScores().get(i).setValue(-1.0);
+            }
+
+            long start = System.nanoTime();
+            service.setIdAndTimstampsOnEngagementAttribute(incoming.getScores(), existing.getScores());
+            service.setUserUuidsBeforeUpdate(incoming, existing);
+            best = Math.min(best, System.nanoTime() - start);
+
+        }
+
+        return best;
+
+    }
+
+    static Engagement mockEngagement(int size) {
+
+        List<Score> scores = new ArrayList<>(size);
+        Set<EngagementUser> users = new LinkedHashSet<>();
+
+        for (int i = 0; i < size; i++) {
+            scores.add(Score.builder().uuid("score" + i).name("score " + i).value((double) i).build());
+            users.add(EngagementUser.builder().uuid("user" + i).email("user" + i + "@example.com").firstName("User")
+                    .lastName("" + i).role("dev").build());
+        }
+
+        return Engagement.builder().scores(scores).engagementUsers(users).build();
+
+    }
+
+}
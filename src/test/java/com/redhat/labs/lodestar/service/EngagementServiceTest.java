@@ -8,9 +8,12 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -20,9 +23,11 @@ import javax.json.bind.Jsonb;
 import javax.json.bind.JsonbBuilder;
 import javax.json.bind.JsonbConfig;
 import javax.json.bind.config.PropertyNamingStrategy;
+import javax.validation.Validator;
 import javax.ws.rs.WebApplicationException;
 
 import org.apache.commons.lang3.StringUtils;
+import org.bson.BsonDocument;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -33,20 +38,32 @@ import org.mockito.Mockito;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.mongodb.MongoWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteError;
+import com.mongodb.bulk.BulkWriteError;
+import com.redhat.labs.lodestar.cache.EngagementChangeTracker;
+import com.redhat.labs.lodestar.cache.FacetCache;
+import com.redhat.labs.lodestar.cache.SubdomainRegistry;
 import com.redhat.labs.lodestar.model.Artifact;
+import com.redhat.labs.lodestar.model.BulkEngagementResult;
 import com.redhat.labs.lodestar.model.Category;
 import com.redhat.labs.lodestar.model.Engagement;
+import com.redhat.labs.lodestar.model.Engagement.EngagementState;
 import com.redhat.labs.lodestar.model.EngagementUser;
 import com.redhat.labs.lodestar.model.Hook;
 import com.redhat.labs.lodestar.model.HostingEnvironment;
 import com.redhat.labs.lodestar.model.Launch;
 import com.redhat.labs.lodestar.model.Score;
 import com.redhat.labs.lodestar.model.UseCase;
+import com.redhat.labs.lodestar.model.event.BulkCreateEvent;
 import com.redhat.labs.lodestar.model.event.EventType;
 import com.redhat.labs.lodestar.model.filter.FilterOptions;
 import com.redhat.labs.lodestar.model.filter.ListFilterOptions;
+import com.redhat.labs.lodestar.model.pagination.PagedCategoryResults;
 import com.redhat.labs.lodestar.model.pagination.PagedStringResults;
 import com.redhat.labs.lodestar.repository.EngagementRepository;
+import com.redhat.labs.lodestar.repository.EngagementStateCounts;
 import com.redhat.labs.lodestar.rest.client.LodeStarGitApiClient;
 import com.redhat.labs.lodestar.utils.MockUtils;
 
@@ -61,6 +78,7 @@ class EngagementServiceTest {
     EngagementRepository repository;
     EventBus eventBus;
     LodeStarGitApiClient gitApi;
+    SubdomainRegistry subdomainRegistry;
 
     EngagementService service;
 
@@ -70,14 +88,21 @@ class EngagementServiceTest {
         repository = Mockito.mock(EngagementRepository.class);
         eventBus = Mockito.mock(EventBus.class);
         gitApi = Mockito.mock(LodeStarGitApiClient.class);
+        subdomainRegistry = Mockito.mock(SubdomainRegistry.class);
 
         service = new EngagementService();
         service.statusFile = "status.json";
         service.commitFilteredMessages = Lists.newArrayList("manual_refresh");
-        service.jsonb = jsonb;
         service.repository = repository;
         service.eventBus = eventBus;
         service.gitApi = gitApi;
+        service.changeTracker = new EngagementChangeTracker();
+        service.subdomainRegistry = subdomainRegistry;
+        service.facetCache = new FacetCache();
+        service.stateCountCacheEnabled = true;
+        service.stateCountCacheTtl = Duration.ofHours(1);
+        service.validator = Mockito.mock(Validator.class);
+        service.bulkMaxSize = 4;
 
     }
 
@@ -145,7 +170,8 @@ class EngagementServiceTest {
         e.setHostingEnvironments(Lists.newArrayList(he1, he2));
 
         Mockito.when(repository.findByUuid("1234")).thenReturn(Optional.empty());
-        Mockito.when(repository.findBySubdomain(Mockito.anyString())).thenReturn(Optional.of(e));
+        Mockito.when(repository.findSubdomainsInUse(Lists.newArrayList("subdomain1", "subdomain2"), Optional.empty()))
+                .thenReturn(Set.of("subdomain1", "subdomain2"));
 
         WebApplicationException wae = assertThrows(WebApplicationException.class, () -> service.create(e));
         assertEquals(409, wae.getResponse().getStatus());
@@ -153,6 +179,83 @@ class EngagementServiceTest {
 
     }
 
+    @Test
+    void testBulkCreate() {
+
+        Engagement created1 = MockUtils.mockMinimumEngagement("c1", "p1", null);
+        Engagement invalid = MockUtils.mockMinimumEngagement(StringUtils.repeat("c", 256), "p2", null);
+        Engagement subdomainUsed = MockUtils.mockMinimumEngagement("c3", "p3", null);
+        subdomainUsed.setHostingEnvironments(Lists.newArrayList(MockUtils.mockHostingEnvironment("env1", "Used")));
+        Engagement namesUsed = MockUtils.mockMinimumEngagement("c4", "p4", null);
+
+        Mockito.when(repository.findSubdomainsInUse(List.of("Used"), Optional.empty())).thenReturn(Set.of("used"));
+        Mockito.when(repository.insertAll(Mockito.anyList()))
+                .thenReturn(List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1)));
+
+        List<BulkEngagementResult> results = service
+                .bulkCreate(Lists.newArrayList(created1, invalid, subdomainUsed, namesUsed));
+
+        assertEquals(4, results.size());
+        assertEquals(201, results.get(0).getStatus());
+        assertNotNull(results.get(0).getUuid());
+        assertEquals(400, results.get(1).getStatus());
+        assertEquals(409, results.get(2).getStatus());
+        assertEquals("The following subdomains are already in use: [Used]", results.get(2).getMessage());
+        assertEquals(409, results.get(3).getStatus());
+        assertEquals(3, results.get(3).getIndex());
+
+        Mockito.verify(repository).insertAll(List.of(created1, namesUsed));
+        Mockito.verify(eventBus).sendAndForget(Mockito.eq(EventType.BULK_CREATE_ENGAGEMENT_EVENT_ADDRESS),
+                Mockito.any(BulkCreateEvent.class));
+
+    }
+
+    @Test
+    void testBulkCreateDuplicateNamesAndSubdomains() {
+
+        Engagement created = MockUtils.mockMinimumEngagement("c1", "p1", null);
+        created.setHostingEnvironments(Lists.newArrayList(MockUtils.mockHostingEnvironment("env1", "s1")));
+        Engagement namesUsed = MockUtils.mockMinimumEngagement("c2", "p2", null);
+        Engagement namesInBatch = MockUtils.mockMinimumEngagement("c1", "p1", null);
+        Engagement subdomainInBatch = MockUtils.mockMinimumEngagement("c3", "p3", null);
+        subdomainInBatch.setHostingEnvironments(Lists.newArrayList(MockUtils.mockHostingEnvironment("env1", "S1")));
+
+        Mockito.when(repository.findByCustomerAndProjectNames(Mockito.anyCollection()))
+                .thenReturn(List.of(MockUtils.mockMinimumEngagement("c2", "p2", null)));
+
+        List<BulkEngagementResult> results = service
+                .bulkCreate(Lists.newArrayList(created, namesUsed, namesInBatch, subdomainInBatch));
+
+        assertEquals(201, results.get(0).getStatus());
+        assertEquals(409, results.get(1).getStatus());
+        assertEquals("engagement already exists, use PUT to update resource", results.get(1).getMessage());
+        assertEquals(409, results.get(2).getStatus());
+        assertEquals("engagement customer and project names are used by another engagement in the request",
+                results.get(2).getMessage());
+        assertEquals(409, results.get(3).getStatus());
+        assertEquals("The following subdomains are used by another engagement in the request: [S1]",
+                results.get(3).getMessage());
+
+        // names are checked with a single query
+        Mockito.verify(repository).findByCustomerAndProjectNames(Mockito.anyCollection());
+        Mockito.verify(repository).insertAll(List.of(created));
+
+    }
+
+    @Test
+    void testBulkCreateTooMany() {
+
+        List<Engagement> engagements = Lists.newArrayList();
+        for (int i = 0; i < 5; i++) {
+            engagements.add(MockUtils.mockMinimumEngagement("c" + i, "p" + i, null));
+        }
+
+        WebApplicationException wae = assertThrows(WebApplicationException.class,
+                () -> service.bulkCreate(engagements));
+        assertEquals(400, wae.getResponse().getStatus());
+
+    }
+
     @Test
     void testCreateSuccess() {
 
@@ -173,6 +276,58 @@ class EngagementServiceTest {
 
     }
 
+    @Test
+    void testCreateSetsSubdomains() {
+
+        Engagement e = MockUtils.mockMinimumEngagement("c1", "p1", "1234");
+        e.setHostingEnvironments(Lists.newArrayList(MockUtils.mockHostingEnvironment("env1", "Subdomain1")));
+
+        Engagement created = service.create(e);
+        assertEquals(List.of("subdomain1"), created.getSubdomains());
+
+    }
+
+    @Test
+    void testCreateDuplicateKey() {
+
+        Engagement e = MockUtils.mockMinimumEngagement("c1", "p1", "1234");
+
+        MongoWriteException mwe = new MongoWriteException(new WriteError(11000, "duplicate key", new BsonDocument()),
+                new ServerAddress());
+        Mockito.doThrow(mwe).when(repository).persist(e);
+
+        WebApplicationException wae = assertThrows(WebApplicationException.class, () -> service.create(e));
+        assertEquals(409, wae.getResponse().getStatus());
+
+        Mockito.verify(eventBus, Mockito.never()).sendAndForget(Mockito.eq(EventType.CREATE_ENGAGEMENT_EVENT_ADDRESS),
+                Mockito.any());
+
+    }
+
+    @Test
+    void testIsSubdomainInUseRegistryNotLoaded() {
+
+        Mockito.when(repository.findBySubdomain("subdomain")).thenReturn(Optional.of(new Engagement()));
+
+        assertTrue(service.isSubdomainInUse("subdomain"));
+        assertFalse(service.isSubdomainInUse("other"));
+        assertFalse(service.isSubdomainInUse(" "));
+
+    }
+
+    @Test
+    void testIsSubdomainInUseRegistryLoaded() {
+
+        Mockito.when(subdomainRegistry.isInUse("SubDomain")).thenReturn(Optional.of(true));
+        Mockito.when(subdomainRegistry.isInUse("other")).thenReturn(Optional.of(false));
+
+        assertTrue(service.isSubdomainInUse("SubDomain"));
+        assertFalse(service.isSubdomainInUse("other"));
+
+        Mockito.verify(repository, Mockito.never()).findBySubdomain(Mockito.anyString());
+
+    }
+
     // update
 
     @ParameterizedTest
@@ -245,8 +400,9 @@ class EngagementServiceTest {
         e2.setProjectId(2222);
 
         Mockito.when(repository.findByUuid("1234")).thenReturn(Optional.of(e));
-        Mockito.when(repository.findBySubdomain(Mockito.anyString(), Mockito.any())).thenReturn(Optional.empty());
-        Mockito.when(repository.findBySubdomain(Mockito.anyString())).thenReturn(Optional.of(e2));
+        Mockito.when(
+                repository.findSubdomainsInUse(Lists.newArrayList("subdomain1", "subdomain2"), Optional.of("1234")))
+                .thenReturn(Set.of("subdomain1", "subdomain2"));
 
         WebApplicationException wae = assertThrows(WebApplicationException.class, () -> service.update(e));
         assertEquals(409, wae.getResponse().getStatus());
@@ -292,7 +448,7 @@ class EngagementServiceTest {
         Mockito.when(repository.findByUuid("1234")).thenReturn(Optional.of(persisted));
         Mockito.when(repository.findByCustomerNameAndProjectName("c3", "p3", new FilterOptions()))
                 .thenReturn(Optional.empty());
-        Mockito.when(repository.updateEngagement(Mockito.any(), Mockito.any()))
+        Mockito.when(repository.updateEngagement(Mockito.any(), Mockito.any(), Mockito.any()))
                 .thenReturn(Optional.of(toUpdate));
 
         Engagement updated = service.update(toUpdate);
@@ -325,7 +481,7 @@ class EngagementServiceTest {
         Mockito.when(repository.findByUuid("1234")).thenReturn(Optional.of(persisted));
         Mockito.when(repository.findByCustomerNameAndProjectName("c3", "p3", new FilterOptions()))
                 .thenReturn(Optional.empty());
-        Mockito.when(repository.updateEngagement(Mockito.any(), Mockito.any()))
+        Mockito.when(repository.updateEngagement(Mockito.any(), Mockito.any(), Mockito.any()))
                 .thenReturn(Optional.of(toUpdate));
 
         Engagement updated = service.update(toUpdate);
@@ -505,6 +661,102 @@ class EngagementServiceTest {
 
     }
 
+    // getEngagementCountByStatus
+
+    @Test
+    void testGetEngagementCountByStatusCachedWithinBoundaries() {
+
+        Mockito.when(repository.findEngagementStateCounts("2021-06-08T00:00:00.000Z"))
+                .thenReturn(mockStateCounts("2021-06-08T00:00:00.000Z", "2021-06-01T00:00:00.000Z",
+                        "2021-06-10T00:00:00.000Z"));
+
+        Map<EngagementState, Integer> counts = service
+                .getEngagementCountByStatus(LocalDateTime.parse("2021-06-08T00:00:00"));
+        assertEquals(2, counts.get(EngagementState.ACTIVE));
+        assertEquals(2, counts.get(EngagementState.ANY));
+
+        // within boundaries uses cached counts
+        counts = service.getEngagementCountByStatus(LocalDateTime.parse("2021-06-09T12:00:00"));
+        assertEquals(2, counts.get(EngagementState.ACTIVE));
+        Mockito.verify(repository, Mockito.times(1)).findEngagementStateCounts(Mockito.anyString());
+
+        // at the upper boundary counts again
+        Mockito.when(repository.findEngagementStateCounts("2021-06-10T00:00:00.000Z"))
+                .thenReturn(mockStateCounts("2021-06-10T00:00:00.000Z", "2021-06-10T00:00:00.000Z", null));
+        service.getEngagementCountByStatus(LocalDateTime.parse("2021-06-10T00:00:00"));
+        Mockito.verify(repository, Mockito.times(2)).findEngagementStateCounts(Mockito.anyString());
+
+    }
+
+    @Test
+    void testGetEngagementCountByStatusAfterWrite() {
+
+        Mockito.when(repository.findEngagementStateCounts(Mockito.anyString()))
+                .thenReturn(mockStateCounts("2021-06-08T00:00:00.000Z", null, null));
+
+        service.getEngagementCountByStatus(LocalDateTime.parse("2021-06-08T00:00:00"));
+        service.getEngagementCountByStatus(LocalDateTime.parse("2021-06-08T00:00:00"));
+        Mockito.verify(repository, Mockito.times(1)).findEngagementStateCounts(Mockito.anyString());
+
+        service.changeTracker.cleared();
+
+        service.getEngagementCountByStatus(LocalDateTime.parse("2021-06-08T00:00:00"));
+        Mockito.verify(repository, Mockito.times(2)).findEngagementStateCounts(Mockito.anyString());
+
+    }
+
+    @Test
+    void testGetEngagementCountByStatusAfterTtl() {
+
+        Mockito.when(repository.findEngagementStateCounts(Mockito.anyString()))
+                .thenReturn(mockStateCounts("2021-06-08T00:00:00.000Z", null, null));
+
+        service.getEngagementCountByStatus(LocalDateTime.parse("2021-06-08T00:00:00"));
+        service.getEngagementCountByStatus(LocalDateTime.parse("2021-06-08T00:00:00"));
+        Mockito.verify(repository, Mockito.times(1)).findEngagementStateCounts(Mockito.anyString());
+
+        // counts loaded before the ttl are counted again without a local write
+        service.stateCountCacheTtl = Duration.ZERO;
+
+        service.getEngagementCountByStatus(LocalDateTime.parse("2021-06-08T00:00:00"));
+        Mockito.verify(repository, Mockito.times(2)).findEngagementStateCounts(Mockito.anyString());
+        assertTrue(service.getEngagementCountEntityTag(LocalDateTime.parse("2021-06-08T00:00:00")).isEmpty());
+
+    }
+
+    @Test
+    void testGetEngagementCountEntityTag() {
+
+        EngagementChangeTracker tracker = Mockito.spy(new EngagementChangeTracker());
+        Mockito.doReturn("tag").when(tracker).getEntityTag(Mockito.anyString());
+        service.changeTracker = tracker;
+
+        Mockito.when(repository.findEngagementStateCounts("2021-06-08T00:00:00.000Z"))
+                .thenReturn(mockStateCounts("2021-06-08T00:00:00.000Z", "2021-06-01T00:00:00.000Z",
+                        "2021-06-10T00:00:00.000Z"));
+
+        // no tag until counted
+        assertTrue(service.getEngagementCountEntityTag(LocalDateTime.parse("2021-06-08T00:00:00")).isEmpty());
+
+        service.getEngagementCountByStatus(LocalDateTime.parse("2021-06-08T00:00:00"));
+
+        // tag is for the counted time while the counts are valid
+        assertEquals(Optional.of("tag"),
+                service.getEngagementCountEntityTag(LocalDateTime.parse("2021-06-09T12:00:00")));
+        Mockito.verify(tracker).getEntityTag("count|2021-06-08T00:00:00.000Z");
+
+        assertTrue(service.getEngagementCountEntityTag(LocalDateTime.parse("2021-06-10T00:00:00")).isEmpty());
+
+        tracker.cleared();
+        assertTrue(service.getEngagementCountEntityTag(LocalDateTime.parse("2021-06-09T12:00:00")).isEmpty());
+
+    }
+
+    EngagementStateCounts mockStateCounts(String time, String lower, String upper) {
+        return EngagementStateCounts.builder().time(time).lowerBoundary(lower).upperBoundary(upper)
+                .counts(Map.of(EngagementState.ACTIVE, 2, EngagementState.ANY, 2)).build();
+    }
+
     // getAll
 
     @ParameterizedTest
@@ -673,6 +925,36 @@ class EngagementServiceTest {
 
     }
 
+    @Test
+    void testGetCategoriesFromFacetCache() {
+
+        Engagement e1 = MockUtils.mockMinimumEngagement("c1", "p1", "1");
+        e1.setCategories(Lists.newArrayList(Category.builder().name("Cat1").build(),
+                Category.builder().name("cat2").build()));
+        Engagement e2 = MockUtils.mockMinimumEngagement("c2", "p2", "2");
+        e2.setCategories(Lists.newArrayList(Category.builder().name("cat2").build()));
+        Mockito.when(repository.findAllFacetFields()).thenReturn(Lists.newArrayList(e1, e2));
+
+        FacetCache facetCache = new FacetCache();
+        facetCache.enabled = true;
+        facetCache.repository = repository;
+        facetCache.reload();
+        service.facetCache = facetCache;
+
+        ListFilterOptions options = new ListFilterOptions();
+        options.setPage(1);
+        options.setPerPage(1);
+
+        PagedCategoryResults page = service.getCategories(options);
+
+        assertEquals(2, page.getTotalCount());
+        assertEquals(1, page.getResults().size());
+        assertEquals("Cat1", page.getResults().get(0).getName());
+        assertEquals(1, page.getResults().get(0).getCount());
+        Mockito.verify(repository, Mockito.never()).findCategories(options);
+
+    }
+
     // getArtifactTypes
 
     @Test
@@ -836,14 +1118,14 @@ class EngagementServiceTest {
         persisted.setProjectId(1111);
 
         Mockito.when(repository.findByUuid("1234")).thenReturn(Optional.of(persisted));
-        Mockito.when(repository.updateEngagement(Mockito.any(), Mockito.any()))
+        Mockito.when(repository.updateEngagement(Mockito.any(), Mockito.any(), Mockito.any()))
                 .thenReturn(Optional.of(toUpdate));
 
         Engagement updated = service.launch(toUpdate);
         assertNotNull(updated);
         assertNotNull(updated.getLaunch());
 
-        Mockito.verify(repository).updateEngagement(Mockito.any(), Mockito.any());
+        Mockito.verify(repository).updateEngagement(Mockito.any(), Mockito.any(), Mockito.any());
         Mockito.verify(eventBus).sendAndForget(Mockito.eq(EventType.UPDATE_ENGAGEMENT_EVENT_ADDRESS), Mockito.any());
 
     }
@@ -959,4 +1241,26 @@ class EngagementServiceTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    void testSetUserUuidsBeforeUpdate() {
+
+        Engagement persisted = MockUtils.mockMinimumEngagement("c1", "p1", "1");
+        persisted.setEngagementUsers(Sets.newHashSet(
+                MockUtils.mockEngagementUser("a@example.com", "A", "User", "dev", "uuid-a", false),
+                MockUtils.mockEngagementUser("b@example.com", "B", "User", "dev", "uuid-b", false)));
+
+        Engagement updated = MockUtils.mockMinimumEngagement("c1", "p1", "1");
+        EngagementUser a = MockUtils.mockEngagementUser("a@example.com", "A", "Changed", "dev", null, false);
+        EngagementUser c = MockUtils.mockEngagementUser("c@example.com", "C", "User", "dev", null, false);
+        updated.setEngagementUsers(Sets.newHashSet(a, c));
+
+        service.setUserUuidsBeforeUpdate(updated, persisted);
+
+        // existing user keeps uuid, new user gets a new uuid
+        assertEquals("uuid-a", a.getUuid());
+        assertNotNull(c.getUuid());
+        assertNotEquals("uuid-b", c.getUuid());
+
+    }
+
+}
@@ -1,13 +1,20 @@
 package com.redhat.labs.lodestar.service;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Inject;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.gradle.internal.impldep.com.google.common.collect.Lists;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
@@ -15,6 +22,7 @@ import org.mockito.Mockito;
 
 import com.redhat.labs.lodestar.model.Engagement;
 import com.redhat.labs.lodestar.model.Status;
+import com.redhat.labs.lodestar.model.event.BulkCreateEvent;
 import com.redhat.labs.lodestar.model.event.EventType;
 import com.redhat.labs.lodestar.utils.IntegrationTestHelper;
 
@@ -34,6 +42,9 @@ class EventServiceTest extends IntegrationTestHelper {
 
     @Inject
     EventBus eventBus;
+
+    @ConfigProperty(name = "engagement.bulk.event.concurrency")
+    int bulkEventConcurrency;
     
     @Test
     void testConsumeCreateEngagementEventSuccess() {
@@ -85,6 +96,45 @@ class EventServiceTest extends IntegrationTestHelper {
 
     }
 
+    @Test
+    void testConsumeBulkCreateEngagementEvent() {
+
+        // each call waits until the configured number of calls are running together
+        CountDownLatch started = new CountDownLatch(bulkEventConcurrency);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger projectId = new AtomicInteger(5678);
+
+        Mockito.when(gitApiClient.createOrUpdateEngagement(Mockito.any(), Mockito.anyString(), Mockito.anyString()))
+                .thenAnswer(invocation -> {
+
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    started.countDown();
+                    started.await(1, TimeUnit.SECONDS);
+                    running.decrementAndGet();
+
+                    return Response.status(201).header("Location", "some/path/to/id/" + projectId.getAndIncrement())
+                            .build();
+
+                });
+
+        List<Engagement> engagements = new ArrayList<>();
+        for (int i = 0; i < bulkEventConcurrency * 2; i++) {
+            engagements.add(Engagement.builder().uuid("uuid" + i).customerName("c" + i).projectName("p" + i)
+                    .lastUpdateByName("someone").lastUpdateByEmail("someone@example.com").build());
+        }
+
+        eventBus.sendAndForget(EventType.BULK_CREATE_ENGAGEMENT_EVENT_ADDRESS, new BulkCreateEvent(engagements));
+
+        engagements.forEach(e -> Mockito.verify(gitApiClient, Mockito.timeout(2000).times(1))
+                .createOrUpdateEngagement(e, "someone", "someone@example.com"));
+        Mockito.verify(engagementService, Mockito.timeout(1000).times(engagements.size()))
+                .setProjectId(Mockito.anyString(), Mockito.anyInt());
+
+        assertEquals(bulkEventConcurrency, maxRunning.get());
+
+    }
+
     @Test
     void testConsumeUpdateEngagementEventSuccess() {
 
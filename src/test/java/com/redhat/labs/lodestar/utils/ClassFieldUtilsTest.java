@@ -1,10 +1,15 @@
 package com.redhat.labs.lodestar.utils;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import javax.ws.rs.WebApplicationException;
+
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
+import com.redhat.labs.lodestar.model.Engagement;
 import com.redhat.labs.lodestar.util.ClassFieldUtils;
 
 class ClassFieldUtilsTest {
@@ -14,5 +19,26 @@ class ClassFieldUtilsTest {
     void testSnakeToCamelCaseAlreadyCamelCase(String input, String expected) {
         assertEquals(expected, ClassFieldUtils.snakeToCamelCase(input));
     }
-    
+
+    @Test
+    void testGetObjectFromStringNestedField() {
+
+        // resolved twice to use the cached field type
+        assertEquals("c1", ClassFieldUtils.getObjectFromString(Engagement.class, "categories.name", "c1"));
+        assertEquals("c2", ClassFieldUtils.getObjectFromString(Engagement.class, "categories.name", "c2"));
+
+    }
+
+    @Test
+    void testGetObjectFromStringInvalidField() {
+
+        // failures are not cached
+        for (int i = 0; i < 2; i++) {
+            WebApplicationException e = assertThrows(WebApplicationException.class,
+                    () -> ClassFieldUtils.getObjectFromString(Engagement.class, "categories.unknown", "c1"));
+            assertEquals(400, e.getResponse().getStatus());
+        }
+
+    }
+
 }
@@ -0,0 +1,110 @@
+package com.redhat.labs.lodestar.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.redhat.labs.lodestar.config.JsonConfig;
+import com.redhat.labs.lodestar.model.Artifact;
+import com.redhat.labs.lodestar.model.Commit;
+import com.redhat.labs.lodestar.model.Engagement;
+import com.redhat.labs.lodestar.model.EngagementUser;
+import com.redhat.labs.lodestar.util.DeepCopyUtils;
+
+/**
+ * Compares the memory allocated by copying a large {@link Engagement} through
+ * a JSON round trip with a structural copy. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class DeepCopyUtilsBenchmarkTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeepCopyUtilsBenchmarkTest.class);
+
+    static final int SIZE = 500;
+    static final int WARMUP = 200;
+    static final int ITERATIONS = 500;
+
+    Jsonb jsonb = JsonbBuilder.create(JsonConfig.singleLineConfig());
+
+    static Engagement mockLargeEngagement() {
+
+        Engagement engagement = DeepCopyUtilsTest.mockFullEngagement();
+
+        List<Artifact> artifacts = new ArrayList<>();
+        Set<EngagementUser> users = new HashSet<>();
+        List<Commit> commits = new ArrayList<>();
+
+        for (int i = 0; i < SIZE; i++) {
+            artifacts.add(MockUtils.mockArtifact("artifact " + i, "demo", "https://example.com/" + i));
+            users.add(MockUtils.mockEngagementUser("user" + i + "@example.com", "User", "" + i, "dev", "uuid" + i,
+                    false));
+            commits.add(MockUtils.mockCommit("engagement.json", true, "commit " + i));
+        }
+
+        engagement.setArtifacts(artifacts);
+        engagement.setEngagementUsers(users);
+        engagement.setCommits(commits);
+
+        return engagement;
+
+    }
+
+    @Test
+    void benchmarkCopy() {
+
+        Engagement engagement = mockLargeEngagement();
+
+        UnaryOperator<Engagement> jsonCopy = e -> jsonb.fromJson(jsonb.toJson(e), Engagement.class);
+        UnaryOperator<Engagement> structuralCopy = DeepCopyUtils::copy;
+
+        assertEquals(jsonb.toJson(jsonCopy.apply(engagement)), jsonb.toJson(structuralCopy.apply(engagement)));
+
+        long jsonBytes = measure("json round trip", jsonCopy, engagement);
+        long structuralBytes = measure("structural copy", structuralCopy, engagement);
+
+        assertTrue(structuralBytes < jsonBytes,
+                "structural copy allocated " + structuralBytes + " bytes, json round trip " + jsonBytes);
+
+    }
+
+    static long measure(String name, UnaryOperator<Engagement> copier, Engagement engagement) {
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP; i++) {
+            copier.apply(engagement);
+        }
+
+        long bytes = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            copier.apply(engagement);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        bytes = (threads.getThreadAllocatedBytes(threadId) - bytes) / ITERATIONS;
+
+        LOGGER.info("{}: {} bytes/op, {} ns/op", name, bytes, elapsed / ITERATIONS);
+
+        return bytes;
+
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.redhat.labs.lodestar.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.Set;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.Lists;
+import com.redhat.labs.lodestar.config.JsonConfig;
+import com.redhat.labs.lodestar.model.BillingCodes;
+import com.redhat.labs.lodestar.model.BillingProject;
+import com.redhat.labs.lodestar.model.Engagement;
+import com.redhat.labs.lodestar.model.Launch;
+import com.redhat.labs.lodestar.model.Status;
+import com.redhat.labs.lodestar.model.Subsystem;
+import com.redhat.labs.lodestar.util.DeepCopyUtils;
+
+class DeepCopyUtilsTest {
+
+    Jsonb jsonb = JsonbBuilder.create(JsonConfig.singleLineConfig());
+
+    static Engagement mockFullEngagement() {
+
+        Engagement engagement = MockUtils.mockEngagement();
+        engagement.setUuid("1234");
+        engagement.setHostingEnvironments(Lists.newArrayList(MockUtils.mockHostingEnvironment("env1", "sub1")));
+        engagement.setEngagementUsers(
+                Set.of(MockUtils.mockEngagementUser("a@example.com", "A", "User", "dev", "uuid1", false)));
+        engagement.setLaunch(MockUtils.mockLaunch("2021-01-01", "launcher", "launcher@example.com"));
+        engagement.setCommits(Lists.newArrayList(MockUtils.mockCommit("engagement.json", true, "message")));
+        engagement.setCategories(Lists.newArrayList(MockUtils.mockCategory("c1")));
+        engagement.setArtifacts(Lists.newArrayList(MockUtils.mockArtifact("a1", "demo", "link")));
+        engagement.setUseCases(Lists.newArrayList(MockUtils.mockUseCase("u1", "use case", 1)));
+        engagement.setScores(Lists.newArrayList(MockUtils.mockScore("s1", 10.0)));
+        engagement.setBillingCodes(Lists.newArrayList(BillingCodes.builder().billingProjects(
+                Lists.newArrayList(BillingProject.builder().code("b1").tasks(Lists.newArrayList("t1")).build()))
+                .build()));
+        engagement.setStatus(Status.builder().status("green").subsystems(Lists.newArrayList(Subsystem.builder()
+                .name("openshift").accessUrls(Lists.newArrayList(Map.of("url", "https://example.com"))).build()))
+                .build());
+        engagement.updateSubdomains();
+        engagement.updateLowercaseFields();
+
+        return engagement;
+
+    }
+
+    @Test
+    void testCopy() {
+
+        Engagement engagement = mockFullEngagement();
+        Engagement copy = DeepCopyUtils.copy(engagement);
+
+        assertNotSame(engagement, copy);
+        assertEquals(jsonb.toJson(engagement), jsonb.toJson(copy));
+        assertEquals(engagement.getSubdomains(), copy.getSubdomains());
+        assertEquals(engagement.getCustomerNameLower(), copy.getCustomerNameLower());
+
+    }
+
+    @Test
+    void testCopyIsIndependent() {
+
+        Engagement engagement = mockFullEngagement();
+        Engagement copy = DeepCopyUtils.copy(engagement);
+
+        copy.getArtifacts().get(0).setTitle("changed");
+        copy.getHostingEnvironments().add(MockUtils.mockHostingEnvironment("env2", "sub2"));
+        copy.getStatus().getSubsystems().get(0).getAccessUrls().get(0).put("url", "changed");
+        copy.getCommits().get(0).getModified().add("other.json");
+        copy.setLaunch(Launch.builder().build());
+
+        assertEquals("a1", engagement.getArtifacts().get(0).getTitle());
+        assertEquals(1, engagement.getHostingEnvironments().size());
+        assertEquals("https://example.com",
+                engagement.getStatus().getSubsystems().get(0).getAccessUrls().get(0).get("url"));
+        assertTrue(engagement.getCommits().get(0).getModified().isEmpty());
+        assertEquals("launcher", engagement.getLaunch().getLaunchedBy());
+
+    }
+
+    @Test
+    void testCopyNull() {
+        assertNull(DeepCopyUtils.copy((Engagement) null));
+    }
+
+}
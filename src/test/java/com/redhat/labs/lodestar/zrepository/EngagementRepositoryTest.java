@@ -1,37 +1,55 @@
 package com.redhat.labs.lodestar.zrepository;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
+import org.bson.Document;
 import org.gradle.internal.impldep.com.google.common.collect.Sets;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
 import com.google.common.collect.Lists;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.Collation;
+import com.mongodb.client.model.CollationStrength;
+import com.mongodb.client.model.IndexOptions;
 import com.redhat.labs.lodestar.model.Artifact;
 import com.redhat.labs.lodestar.model.Category;
 import com.redhat.labs.lodestar.model.Commit;
 import com.redhat.labs.lodestar.model.Engagement;
+import com.redhat.labs.lodestar.model.Engagement.EngagementState;
+import com.redhat.labs.lodestar.model.EngagementIndex;
 import com.redhat.labs.lodestar.model.EngagementUser;
 import com.redhat.labs.lodestar.model.EngagementUserSummary;
 import com.redhat.labs.lodestar.model.HostingEnvironment;
 import com.redhat.labs.lodestar.model.Launch;
 import com.redhat.labs.lodestar.model.Score;
 import com.redhat.labs.lodestar.model.Status;
+import com.redhat.labs.lodestar.model.Subsystem;
 import com.redhat.labs.lodestar.model.UseCase;
+import com.redhat.labs.lodestar.model.filter.CountStrategy;
 import com.redhat.labs.lodestar.model.filter.FilterOptions;
 import com.redhat.labs.lodestar.model.filter.ListFilterOptions;
+import com.redhat.labs.lodestar.model.filter.ResponseView;
 import com.redhat.labs.lodestar.model.filter.SortOrder;
 import com.redhat.labs.lodestar.model.pagination.PagedArtifactResults;
 import com.redhat.labs.lodestar.model.pagination.PagedCategoryResults;
@@ -41,7 +59,10 @@ import com.redhat.labs.lodestar.model.pagination.PagedScoreResults;
 import com.redhat.labs.lodestar.model.pagination.PagedStringResults;
 import com.redhat.labs.lodestar.model.pagination.PagedUseCaseResults;
 import com.redhat.labs.lodestar.repository.EngagementRepository;
+import com.redhat.labs.lodestar.repository.EngagementStateCounts;
+import com.redhat.labs.lodestar.service.EngagementIndexService;
 import com.redhat.labs.lodestar.utils.EmbeddedMongoTest;
+import com.redhat.labs.lodestar.util.DateFormatter;
 import com.redhat.labs.lodestar.utils.MockUtils;
 
 import io.quarkus.test.junit.QuarkusTest;
@@ -64,6 +85,9 @@ class EngagementRepositoryTest {
     @Inject
     EngagementRepository repository;
 
+    @Inject
+    EngagementIndexService indexService;
+
     // Set tests:
 
     // set status
@@ -176,6 +200,64 @@ class EngagementRepositoryTest {
 
     }
 
+    @Test
+    void testUpdateEngagementWritesOnlyChangedFields() throws Exception {
+
+        Engagement e1 = MockUtils.mockMinimumEngagement("c1", "c2", "1234");
+        e1.setLastUpdate("value");
+        e1.setDescription("description");
+        e1.setArtifacts(Lists.newArrayList(MockUtils.mockArtifact("a1", "demo", "link1"),
+                MockUtils.mockArtifact("a2", "demo", "link2")));
+        repository.persist(e1);
+
+        Engagement existing = repository.findByUuid("1234").get();
+
+        // status does not change the last update
+        repository.setStatus("1234", MockUtils.mockStatus("green"));
+
+        Engagement e2 = MockUtils.cloneEngagement(existing);
+        e2.setLastUpdate("updated");
+        e2.setDescription(null);
+        e2.getArtifacts().get(1).setLinkAddress("link3");
+
+        Optional<Engagement> optional = repository.updateEngagement(e2, existing, "value");
+        assertTrue(optional.isPresent());
+
+        Engagement updated = optional.get();
+        assertEquals("updated", updated.getLastUpdate());
+        assertNull(updated.getDescription());
+        assertEquals("link1", updated.getArtifacts().get(0).getLinkAddress());
+        assertEquals("link3", updated.getArtifacts().get(1).getLinkAddress());
+        assertEquals("green", updated.getStatus().getStatus());
+
+    }
+
+    @Test
+    void testUpdateEngagementWritesChangedUsers() throws Exception {
+
+        Engagement e1 = MockUtils.mockMinimumEngagement("c1", "c2", "1234");
+        e1.setLastUpdate("value");
+        e1.setEngagementUsers(Sets.newHashSet(
+                MockUtils.mockEngagementUser("a@example.com", "A", "User", "dev", "uuid1", false),
+                MockUtils.mockEngagementUser("b@example.com", "B", "User", "dev", "uuid2", false),
+                MockUtils.mockEngagementUser("c@example.com", "C", "User", "dev", "uuid3", false)));
+        repository.persist(e1);
+
+        Engagement existing = repository.findByUuid("1234").get();
+
+        Engagement e2 = MockUtils.cloneEngagement(existing);
+        e2.setLastUpdate("updated");
+        e2.getEngagementUsers().stream().filter(u -> "uuid2".equals(u.getUuid())).forEach(u -> u.setRole("admin"));
+
+        Optional<Engagement> optional = repository.updateEngagement(e2, existing, "value");
+        assertTrue(optional.isPresent());
+
+        Map<String, String> roles = optional.get().getEngagementUsers().stream()
+                .collect(Collectors.toMap(EngagementUser::getUuid, EngagementUser::getRole));
+        assertEquals(Map.of("uuid1", "dev", "uuid2", "admin", "uuid3", "dev"), roles);
+
+    }
+
     // Optional<Engagement>:
     // findBySubdomain
     // findBySubdomain with uuid
@@ -186,6 +268,7 @@ class EngagementRepositoryTest {
         Engagement e = MockUtils.mockMinimumEngagement("c1", "c2", "1234");
         HostingEnvironment he = MockUtils.mockHostingEnvironment("env1", "sub1");
         e.setHostingEnvironments(Lists.newArrayList(he));
+        e.updateSubdomains();
 
         repository.persist(e);
 
@@ -206,6 +289,7 @@ class EngagementRepositoryTest {
         Engagement e = MockUtils.mockMinimumEngagement("c1", "c2", "1234");
         HostingEnvironment he = MockUtils.mockHostingEnvironment("env1", "sub1");
         e.setHostingEnvironments(Lists.newArrayList(he));
+        e.updateSubdomains();
 
         repository.persist(e);
 
@@ -220,6 +304,139 @@ class EngagementRepositoryTest {
 
     }
 
+    @Test
+    void testFindBySubdomainIgnoresCase() {
+
+        Engagement e = MockUtils.mockMinimumEngagement("c1", "c2", "1234");
+        HostingEnvironment he = MockUtils.mockHostingEnvironment("env1", "Sub1");
+        e.setHostingEnvironments(Lists.newArrayList(he));
+        e.updateSubdomains();
+
+        repository.persist(e);
+
+        assertTrue(repository.findBySubdomain("SUB1").isPresent());
+        assertTrue(repository.findBySubdomain("sub1", Optional.of("1234")).isPresent());
+        assertTrue(repository.findBySubdomain("sub1", Optional.of("5678")).isEmpty());
+        assertTrue(repository.findBySubdomain("sub").isEmpty());
+
+    }
+
+    @Test
+    void testFindByCustomerAndProjectNames() {
+
+        repository.persist(MockUtils.mockMinimumEngagement("c1", "p1", "1"));
+        repository.persist(MockUtils.mockMinimumEngagement("c1", "p2", "2"));
+        repository.persist(MockUtils.mockMinimumEngagement("c2", "p1", "3"));
+
+        List<Engagement> found = repository.findByCustomerAndProjectNames(
+                List.of(MockUtils.mockMinimumEngagement("c1", "p1", null),
+                        MockUtils.mockMinimumEngagement("c2", "p1", null),
+                        MockUtils.mockMinimumEngagement("c2", "p2", null)));
+
+        assertEquals(Set.of("c1:p1", "c2:p1"),
+                found.stream().map(e -> e.getCustomerName() + ":" + e.getProjectName()).collect(Collectors.toSet()));
+        assertTrue(found.stream().allMatch(e -> null == e.getUuid()));
+
+        assertTrue(repository.findByCustomerAndProjectNames(List.of()).isEmpty());
+
+    }
+
+    @Test
+    void testFindSubdomainsInUse() {
+
+        Engagement e1 = MockUtils.mockMinimumEngagement("c1", "c2", "1234");
+        e1.setHostingEnvironments(Lists.newArrayList(MockUtils.mockHostingEnvironment("env1", "Sub1"),
+                MockUtils.mockHostingEnvironment("env2", "sub2")));
+        e1.updateSubdomains();
+        repository.persist(e1);
+
+        Engagement e2 = MockUtils.mockMinimumEngagement("c3", "c4", "5678");
+        e2.setHostingEnvironments(Lists.newArrayList(MockUtils.mockHostingEnvironment("env3", "sub3")));
+        e2.updateSubdomains();
+        repository.persist(e2);
+
+        assertEquals(Set.of("sub1", "sub2", "sub3"),
+                repository.findSubdomainsInUse(List.of("SUB1", "sub2", "sub3", "sub4"), Optional.empty()));
+        assertEquals(Set.of("sub3"),
+                repository.findSubdomainsInUse(List.of("sub1", "sub2", "sub3", "sub4"), Optional.of("1234")));
+        assertTrue(repository.findSubdomainsInUse(List.of(), Optional.empty()).isEmpty());
+
+    }
+
+    @Test
+    void testSetMissingSubdomains() {
+
+        Engagement e1 = MockUtils.mockMinimumEngagement("c1", "c2", "1234");
+        e1.setHostingEnvironments(Lists.newArrayList(MockUtils.mockHostingEnvironment("env1", "Sub1"),
+                MockUtils.mockHostingEnvironment("env2", "sub2")));
+        repository.persist(e1);
+
+        Engagement e2 = MockUtils.mockMinimumEngagement("c3", "c4", "5678");
+        repository.persist(e2);
+
+        assertTrue(repository.findBySubdomain("sub1").isEmpty());
+
+        assertEquals(2, repository.setMissingSubdomains());
+        assertEquals(0, repository.setMissingSubdomains());
+
+        assertEquals("1234", repository.findBySubdomain("sub1").get().getUuid());
+        assertEquals("1234", repository.findBySubdomain("sub2").get().getUuid());
+
+        List<Engagement> owners = repository.findAllSubdomains();
+        assertEquals(1, owners.size());
+        assertEquals("1234", owners.get(0).getUuid());
+        assertNull(owners.get(0).getCustomerName());
+        assertEquals(2, owners.get(0).getHostingEnvironments().size());
+
+    }
+
+    @Test
+    void testSetMissingLowercaseFields() {
+
+        Engagement e1 = MockUtils.mockMinimumEngagement("Customer1", "Project1", "1234");
+        e1.setCategories(Lists.newArrayList(MockUtils.mockCategory("Cat1")));
+        e1.setArtifacts(Lists.newArrayList(MockUtils.mockArtifact("a1", "Demo", "")));
+        repository.persist(e1);
+
+        Engagement e2 = MockUtils.mockMinimumEngagement("Customer2", "Project2", "5678");
+        repository.persist(e2);
+
+        assertEquals(2, repository.setMissingLowercaseFields());
+        assertEquals(0, repository.setMissingLowercaseFields());
+
+        Engagement updated = repository.findByUuid("1234").get();
+        assertEquals("customer1", updated.getCustomerNameLower());
+        assertEquals("project1", updated.getProjectNameLower());
+        assertEquals("Cat1", updated.getCategories().get(0).getName());
+        assertEquals("cat1", updated.getCategories().get(0).getNameLower());
+        assertEquals("Demo", updated.getArtifacts().get(0).getType());
+        assertEquals("demo", updated.getArtifacts().get(0).getTypeLower());
+
+        updated = repository.findByUuid("5678").get();
+        assertEquals("customer2", updated.getCustomerNameLower());
+        assertNull(updated.getCategories());
+
+    }
+
+    @Test
+    void testFindCustomerSuggestionsIgnoresCase() {
+
+        Engagement e1 = MockUtils.mockMinimumEngagement("Acme", "p1", "1234");
+        Engagement e2 = MockUtils.mockMinimumEngagement("acme", "p2", "5678");
+        Engagement e3 = MockUtils.mockMinimumEngagement("Beta", "p3", "9012");
+        e1.updateLowercaseFields();
+        e2.updateLowercaseFields();
+        e3.updateLowercaseFields();
+        repository.persist(Lists.newArrayList(e1, e2, e3));
+
+        PagedStringResults pagedResults = repository.findCustomerSuggestions(new ListFilterOptions());
+        List<String> results = pagedResults.getResults();
+        assertEquals(2, results.size());
+        assertEquals("acme", results.get(0).toLowerCase());
+        assertEquals("Beta", results.get(1));
+
+    }
+
     // find by uuid
     // find by uuid with filter options
 
@@ -275,6 +492,30 @@ class EngagementRepositoryTest {
     // find by customer project names
     // find by customer project names with filter options
 
+    @Test
+    void testFindByUuids() {
+
+        repository.persist(MockUtils.mockMinimumEngagement("c1", "p1", "1"));
+        repository.persist(MockUtils.mockMinimumEngagement("c2", "p2", "2"));
+        repository.persist(MockUtils.mockMinimumEngagement("c3", "p3", "3"));
+
+        List<Engagement> results = repository.findByUuids(List.of("1", "3", "4"), new FilterOptions());
+        assertEquals(Set.of("1", "3"), results.stream().map(Engagement::getUuid).collect(Collectors.toSet()));
+
+        // uuid is returned even if not included
+        results = repository.findByUuids(List.of("2"), FilterOptions.builder().include("customerName").build());
+        assertEquals(1, results.size());
+        assertEquals("2", results.get(0).getUuid());
+        assertEquals("c2", results.get(0).getCustomerName());
+        assertNull(results.get(0).getProjectName());
+
+        // uuid is returned even if excluded
+        results = repository.findByUuids(List.of("2"), FilterOptions.builder().exclude("uuid,projectName").build());
+        assertEquals("2", results.get(0).getUuid());
+        assertNull(results.get(0).getProjectName());
+
+    }
+
     @Test
     void testFindByCustomerEngagementNames() {
 
@@ -333,6 +574,8 @@ class EngagementRepositoryTest {
         Engagement e1 = MockUtils.mockMinimumEngagement("c1", "c2", "1234");
         Engagement e2 = MockUtils.mockMinimumEngagement("e1", "c2", "1234");
 
+        e1.updateLowercaseFields();
+        e2.updateLowercaseFields();
         repository.persist(Lists.newArrayList(e1, e2));
 
         ListFilterOptions fo = new ListFilterOptions();
@@ -377,6 +620,8 @@ class EngagementRepositoryTest {
         Category c5 = MockUtils.mockCategory("c2");
         e2.setCategories(Lists.newArrayList(c3, c4, c5));
 
+        e1.updateLowercaseFields();
+        e2.updateLowercaseFields();
         repository.persist(Lists.newArrayList(e1, e2));
 
         ListFilterOptions options = new ListFilterOptions();
@@ -413,6 +658,8 @@ class EngagementRepositoryTest {
         Category c5 = MockUtils.mockCategory("c2");
         e2.setCategories(Lists.newArrayList(c3, c4, c5));
 
+        e1.updateLowercaseFields();
+        e2.updateLowercaseFields();
         repository.persist(Lists.newArrayList(e1, e2));
 
         PagedCategoryResults pagedResults = repository.findCategories(new ListFilterOptions());
@@ -450,6 +697,8 @@ class EngagementRepositoryTest {
         Artifact a4 = MockUtils.mockArtifact("a4", "video", "");
         e2.setArtifacts(Lists.newArrayList(a3, a4));
 
+        e1.updateLowercaseFields();
+        e2.updateLowercaseFields();
         repository.persist(Lists.newArrayList(e1, e2));
 
         ListFilterOptions options = new ListFilterOptions();
@@ -489,6 +738,8 @@ class EngagementRepositoryTest {
         Artifact a4 = MockUtils.mockArtifact("a4", "video", "");
         e2.setArtifacts(Lists.newArrayList(a3, a4));
 
+        e1.updateLowercaseFields();
+        e2.updateLowercaseFields();
         repository.persist(Lists.newArrayList(e1, e2));
 
         PagedStringResults pagedResults = repository.findArtifactTypes(new ListFilterOptions());
@@ -555,6 +806,185 @@ class EngagementRepositoryTest {
 
     }
 
+    @Test
+    void testFindAllWithCursor() {
+
+        repository.persist(MockUtils.mockMinimumEngagement("c1", "p1", "1"));
+        repository.persist(MockUtils.mockMinimumEngagement("c1", "p2", "2"));
+        repository.persist(MockUtils.mockMinimumEngagement("c2", "p1", "3"));
+
+        ListFilterOptions fo = ListFilterOptions.builder().after("").perPage(2).include("uuid").build();
+
+        PagedEngagementResults pagedResults = repository.findPagedEngagements(fo);
+        List<Engagement> results = pagedResults.getResults();
+        assertEquals(2, results.size());
+        assertEquals("1", results.get(0).getUuid());
+        assertEquals("2", results.get(1).getUuid());
+        assertNotNull(pagedResults.getNextCursor());
+
+        fo = ListFilterOptions.builder().after(pagedResults.getNextCursor()).perPage(2).include("uuid").build();
+
+        pagedResults = repository.findPagedEngagements(fo);
+        results = pagedResults.getResults();
+        assertEquals(1, results.size());
+        assertEquals("3", results.get(0).getUuid());
+        assertNull(pagedResults.getNextCursor());
+
+    }
+
+    @Test
+    void testFindAllWithCursorDescending() {
+
+        repository.persist(MockUtils.mockMinimumEngagement("c1", "p1", "1"));
+        repository.persist(MockUtils.mockMinimumEngagement("c1", "p2", "2"));
+        repository.persist(MockUtils.mockMinimumEngagement("c2", "p1", "3"));
+
+        ListFilterOptions fo = ListFilterOptions.builder().after("").perPage(1).sortOrder(SortOrder.DESC).build();
+
+        List<String> uuids = new ArrayList<>();
+        PagedEngagementResults pagedResults;
+        do {
+            pagedResults = repository.findPagedEngagements(fo);
+            pagedResults.getResults().forEach(e -> uuids.add(e.getUuid()));
+            fo = ListFilterOptions.builder().after(pagedResults.getNextCursor()).perPage(1)
+                    .sortOrder(SortOrder.DESC).build();
+        } while (null != pagedResults.getNextCursor());
+
+        assertEquals(Arrays.asList("3", "2", "1"), uuids);
+
+    }
+
+    @Test
+    void testFindAllWithView() {
+
+        Engagement e1 = MockUtils.mockMinimumEngagement("c1", "p1", "1");
+        e1.setDescription("description");
+        e1.setCommits(Lists.newArrayList(MockUtils.mockCommit("file", true, null)));
+        e1.setStatus(Status.builder().status("green")
+                .subsystems(Lists.newArrayList(Subsystem.builder().name("s1").build())).build());
+        e1.setEngagementUsers(Sets.newHashSet(MockUtils.mockEngagementUser("a@b.com", "a", "b", "dev", "u1", false)));
+        repository.persist(e1);
+
+        // card includes only the card fields
+        ListFilterOptions fo = ListFilterOptions.builder().view(ResponseView.CARD).build();
+        Engagement card = repository.findPagedEngagements(fo).getResults().get(0);
+        assertEquals("c1", card.getCustomerName());
+        assertEquals("green", card.getStatus().getStatus());
+        assertEquals("description", card.getDescription());
+        assertNull(card.getStatus().getSubsystems());
+        assertNull(card.getCommits());
+        assertNull(card.getEngagementUsers());
+
+        // summary excludes the embedded collections
+        fo = ListFilterOptions.builder().view(ResponseView.SUMMARY).build();
+        Engagement summary = repository.findPagedEngagements(fo).getResults().get(0);
+        assertEquals("c1", summary.getCustomerName());
+        assertEquals("green", summary.getStatus().getStatus());
+        assertNull(summary.getStatus().getSubsystems());
+        assertNull(summary.getCommits());
+        assertNull(summary.getEngagementUsers());
+
+        // full returns every field
+        fo = ListFilterOptions.builder().view(ResponseView.FULL).build();
+        Engagement full = repository.findPagedEngagements(fo).getResults().get(0);
+        assertEquals(1, full.getCommits().size());
+        assertEquals(1, full.getStatus().getSubsystems().size());
+        assertEquals(1, full.getEngagementUsers().size());
+
+        // include overrides the view
+        fo = ListFilterOptions.builder().view(ResponseView.CARD).include("commits").build();
+        Engagement included = repository.findPagedEngagements(fo).getResults().get(0);
+        assertNull(included.getCustomerName());
+        assertEquals(1, included.getCommits().size());
+
+    }
+
+    @Test
+    void testStreamEngagements() {
+
+        repository.persist(MockUtils.mockMinimumEngagement("c2", "p1", "1"));
+        repository.persist(MockUtils.mockMinimumEngagement("c1", "p2", "2"));
+        repository.persist(MockUtils.mockMinimumEngagement("c1", "p1", "3"));
+
+        // search, include, and sort are applied, paging is ignored
+        ListFilterOptions fo = ListFilterOptions.builder().search("customer_name=c1").include("projectName")
+                .sortFields("projectName").sortOrder(SortOrder.ASC).perPage(1).build();
+
+        List<Engagement> streamed = new ArrayList<>();
+        repository.streamEngagements(fo, streamed::add);
+
+        assertEquals(2, streamed.size());
+        assertEquals("p1", streamed.get(0).getProjectName());
+        assertEquals("p2", streamed.get(1).getProjectName());
+        assertNull(streamed.get(0).getCustomerName());
+
+    }
+
+    @Test
+    void testFindAllWithCountStrategy() {
+
+        repository.persist(MockUtils.mockMinimumEngagement("c1", "p1", "1"));
+        repository.persist(MockUtils.mockMinimumEngagement("c1", "p2", "2"));
+        repository.persist(MockUtils.mockMinimumEngagement("c2", "p1", "3"));
+
+        ListFilterOptions fo = ListFilterOptions.builder().perPage(1).build();
+        PagedEngagementResults pagedResults = repository.findPagedEngagements(fo);
+        assertEquals(1, pagedResults.getResults().size());
+        assertEquals(3, pagedResults.getTotalCount());
+
+        fo = ListFilterOptions.builder().perPage(1).countStrategy(CountStrategy.ESTIMATED).build();
+        pagedResults = repository.findPagedEngagements(fo);
+        assertEquals(1, pagedResults.getResults().size());
+        assertEquals(3, pagedResults.getTotalCount());
+
+        fo = ListFilterOptions.builder().perPage(1).countStrategy(CountStrategy.ESTIMATED).search("customer_name=c1")
+                .build();
+        pagedResults = repository.findPagedEngagements(fo);
+        assertEquals(1, pagedResults.getResults().size());
+        assertEquals(2, pagedResults.getTotalCount());
+
+        fo = ListFilterOptions.builder().perPage(1).countStrategy(CountStrategy.NONE).build();
+        pagedResults = repository.findPagedEngagements(fo);
+        assertEquals(1, pagedResults.getResults().size());
+        assertNull(pagedResults.getTotalCount());
+
+    }
+
+    @Test
+    void testFindAllReusesSearchPlan() {
+
+        repository.persist(MockUtils.mockMinimumEngagement("c1", "p1", "1"));
+        repository.persist(MockUtils.mockMinimumEngagement("c1", "p2", "2"));
+
+        ListFilterOptions fo = ListFilterOptions.builder().search("customer_name=c1").perPage(1).page(1).build();
+        assertEquals(1, repository.findPagedEngagements(fo).getResults().size());
+
+        long hits = repository.getSearchPlanCacheHits();
+
+        // paging does not change the plan
+        fo = ListFilterOptions.builder().search("customer_name=c1").perPage(1).page(2).build();
+        assertEquals(1, repository.findPagedEngagements(fo).getResults().size());
+        assertEquals(hits + 1, repository.getSearchPlanCacheHits());
+
+    }
+
+    @Test
+    void testFindCategoriesDoesNotModifySearch() {
+
+        Engagement e1 = MockUtils.mockMinimumEngagement("c1", "p1", "1234");
+        e1.setCategories(Lists.newArrayList(MockUtils.mockCategory("c1"), MockUtils.mockCategory("e1")));
+        e1.updateLowercaseFields();
+        repository.persist(e1);
+
+        String search = "categories.name like c&customer_name=c1";
+        ListFilterOptions options = new ListFilterOptions();
+        options.setSearch(search);
+
+        assertEquals(1, repository.findCategories(options).getResults().size());
+        assertEquals(search, options.getSearch().get());
+
+    }
+
     // list all search ( =, like, exists, not exists)
     @Test
     void testFindAllWithSearchEquals() {
@@ -1376,6 +1806,199 @@ class EngagementRepositoryTest {
 
     }
 
+    // engagement state counts
+
+    @Test
+    void testFindEngagementStateCounts() {
+
+        String time = "2021-06-08T00:00:00.000Z";
+
+        Engagement upcoming = MockUtils.mockMinimumEngagement("c1", "p1", "1");
+        Engagement active = mockLaunchedEngagement("p2", "2", "2021-12-31T00:00:00.000Z", null);
+        Engagement terminating = mockLaunchedEngagement("p3", "3", "2021-05-01T00:00:00.000Z",
+                "2021-07-01T00:00:00.000Z");
+        Engagement past = mockLaunchedEngagement("p4", "4", "2021-03-01T00:00:00.000Z", "2021-04-01T00:00:00.000Z");
+        Engagement pastNoArchive = mockLaunchedEngagement("p5", "5", "2021-02-01T00:00:00.000Z", null);
+        repository.persist(Lists.newArrayList(upcoming, active, terminating, past, pastNoArchive));
+
+        EngagementStateCounts counts = repository.findEngagementStateCounts(time);
+
+        assertEquals(1, counts.getCounts().get(EngagementState.UPCOMING));
+        assertEquals(1, counts.getCounts().get(EngagementState.ACTIVE));
+        assertEquals(1, counts.getCounts().get(EngagementState.TERMINATING));
+        assertEquals(2, counts.getCounts().get(EngagementState.PAST));
+        assertEquals(5, counts.getCounts().get(EngagementState.ANY));
+        assertEquals("2021-05-01T00:00:00.000Z", counts.getLowerBoundary());
+        assertEquals("2021-07-01T00:00:00.000Z", counts.getUpperBoundary());
+
+        // matches the state computed for each engagement
+        LocalDateTime currentTime = DateFormatter.getInstance().getDateTime(time);
+        repository.listAll()
+                .forEach(e -> assertTrue(counts.getCounts().containsKey(e.getEngagementCurrentState(currentTime))));
+
+    }
+
+    @Test
+    void testFindEngagementStateCountsNoEngagements() {
+
+        EngagementStateCounts counts = repository.findEngagementStateCounts("2021-06-08T00:00:00.000Z");
+
+        assertEquals(1, counts.getCounts().size());
+        assertEquals(0, counts.getCounts().get(EngagementState.ANY));
+        assertNull(counts.getLowerBoundary());
+        assertNull(counts.getUpperBoundary());
+
+    }
+
+    Engagement mockLaunchedEngagement(String projectName, String uuid, String endDate, String archiveDate) {
+
+        Engagement engagement = MockUtils.mockMinimumEngagement("c1", projectName, uuid);
+        engagement.setLaunch(new Launch());
+        engagement.setStartDate("2021-01-01T00:00:00.000Z");
+        engagement.setEndDate(endDate);
+        engagement.setArchiveDate(archiveDate);
+        return engagement;
+
+    }
+
+    // managed indexes
+
+    @Test
+    void testReconcileIndexes() {
+
+        indexService.reconcile();
+
+        List<EngagementIndex> indexes = indexService.getIndexes();
+        List<String> names = indexes.stream().map(EngagementIndex::getName).collect(Collectors.toList());
+
+        assertTrue(names.contains("_id_"));
+        assertTrue(names.contains("lodestar_uuid"));
+        assertTrue(names.contains("lodestar_customer_project"));
+        assertFalse(names.contains("lodestar_customer_project_ci"));
+        assertTrue(names.contains("lodestar_customer_project_lower"));
+        assertTrue(names.contains("lodestar_user_email"));
+
+        EngagementIndex uuidIndex = indexes.stream().filter(idx -> "lodestar_uuid".equals(idx.getName()))
+                .findFirst().orElseThrow();
+        assertTrue(uuidIndex.isUnique());
+        assertTrue(uuidIndex.isManaged());
+        assertNotNull(uuidIndex.getPartialFilterExpression());
+        assertNotNull(uuidIndex.getAccessCount());
+
+    }
+
+    @Test
+    void testReconcileIndexesReplacesAndDropsManagedIndexesOnly() {
+
+        repository.mongoCollection().createIndex(new Document("endDate", -1),
+                new IndexOptions().name("lodestar_end_date"));
+        repository.mongoCollection().createIndex(new Document("startDate", 1),
+                new IndexOptions().name("lodestar_start_date"));
+        repository.mongoCollection().createIndex(new Document("startDate", 1), new IndexOptions().name("custom"));
+        repository.mongoCollection().createIndex(new Document("customerName", 1).append("projectName", 1),
+                new IndexOptions().name("lodestar_customer_project_ci")
+                        .collation(Collation.builder().locale("en").collationStrength(CollationStrength.SECONDARY)
+                                .build()));
+
+        indexService.reconcile();
+
+        List<EngagementIndex> indexes = indexService.getIndexes();
+        List<String> names = indexes.stream().map(EngagementIndex::getName).collect(Collectors.toList());
+
+        assertTrue(names.contains("custom"));
+        assertFalse(names.contains("lodestar_start_date"));
+        assertFalse(names.contains("lodestar_customer_project_ci"));
+
+        EngagementIndex endDate = indexes.stream().filter(idx -> "lodestar_end_date".equals(idx.getName()))
+                .findFirst().orElseThrow();
+        assertEquals(1, endDate.getKeys().get("endDate"));
+
+    }
+
+    @Test
+    void testReconcileIndexesKeepsIndexWhenReplacementFails() {
+
+        // a non unique index with duplicate values cannot be replaced by a unique index
+        repository.mongoCollection().createIndex(new Document("customerName", 1).append("projectName", 1),
+                new IndexOptions().name("lodestar_customer_project"));
+        repository.mongoCollection().createIndex(new Document("endDate", -1),
+                new IndexOptions().name("lodestar_uuid"));
+        repository.persist(MockUtils.mockMinimumEngagement("c1", "p1", "1234"));
+        repository.persist(MockUtils.mockMinimumEngagement("c1", "p1", "5678"));
+        repository.persist(MockUtils.mockMinimumEngagement("c2", "p2", "1234"));
+
+        indexService.reconcile();
+
+        List<EngagementIndex> indexes = indexService.getIndexes();
+
+        EngagementIndex names = indexes.stream().filter(idx -> "lodestar_customer_project".equals(idx.getName()))
+                .findFirst().orElseThrow();
+        assertFalse(names.isUnique());
+
+        // keys changed, the existing index is kept and the replacement is not built
+        EngagementIndex uuid = indexes.stream().filter(idx -> "lodestar_uuid".equals(idx.getName())).findFirst()
+                .orElseThrow();
+        assertEquals(-1, uuid.getKeys().get("endDate"));
+        assertTrue(indexes.stream().noneMatch(idx -> idx.getName().endsWith("_replacement")));
+
+    }
+
+    @Test
+    void testReconcileIndexesRejectsDuplicateUuid() {
+
+        indexService.reconcile();
+
+        repository.persist(MockUtils.mockMinimumEngagement("c1", "p1", "1234"));
+        Engagement duplicate = MockUtils.mockMinimumEngagement("c2", "p2", "1234");
+
+        assertThrows(MongoWriteException.class, () -> repository.persist(duplicate));
+
+    }
+
+    @Test
+    void testReconcileIndexesRejectsDuplicateSubdomain() {
+
+        indexService.reconcile();
+
+        Engagement e1 = MockUtils.mockMinimumEngagement("c1", "p1", "1234");
+        e1.setHostingEnvironments(Lists.newArrayList(MockUtils.mockHostingEnvironment("env1", "sub1")));
+        e1.updateSubdomains();
+        repository.persist(e1);
+
+        Engagement e2 = MockUtils.mockMinimumEngagement("c2", "p2", "5678");
+        repository.persist(e2);
+
+        Engagement duplicate = MockUtils.mockMinimumEngagement("c3", "p3", "9012");
+        duplicate.setHostingEnvironments(Lists.newArrayList(MockUtils.mockHostingEnvironment("env1", "SUB1")));
+        duplicate.updateSubdomains();
+
+        assertThrows(MongoWriteException.class, () -> repository.persist(duplicate));
+
+    }
+
+    @Test
+    void testInsertAllReportsFailedInserts() {
+
+        indexService.reconcile();
+
+        repository.persist(MockUtils.mockMinimumEngagement("c1", "p1", "1234"));
+
+        List<BulkWriteError> errors = repository.insertAll(Lists.newArrayList(
+                MockUtils.mockMinimumEngagement("c2", "p2", "5678"), MockUtils.mockMinimumEngagement("c1", "p1", "9012"),
+                MockUtils.mockMinimumEngagement("c3", "p3", "3456")));
+
+        assertEquals(1, errors.size());
+        assertEquals(1, errors.get(0).getIndex());
+        assertEquals(ErrorCategory.DUPLICATE_KEY, errors.get(0).getCategory());
+
+        assertTrue(repository.findByUuid("5678").isPresent());
+        assertTrue(repository.findByUuid("9012").isEmpty());
+        assertTrue(repository.findByUuid("3456").isPresent());
+
+        assertTrue(repository.insertAll(List.of()).isEmpty());
+
+    }
+
     // create test data engagements
     private void createAndInsertRangeEngagementData() {
 